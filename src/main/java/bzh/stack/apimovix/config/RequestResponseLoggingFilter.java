@@ -1,37 +0,0 @@
-package bzh.stack.apimovix.config;
-
-import java.io.IOException;
-
-import org.springframework.core.Ordered;
-import org.springframework.core.annotation.Order;
-import org.springframework.stereotype.Component;
-import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
-
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-
-@Component
-@Order(Ordered.HIGHEST_PRECEDENCE)
-public class RequestResponseLoggingFilter extends OncePerRequestFilter {
-
-    @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
-            FilterChain filterChain) throws ServletException, IOException {
-        
-        // Wrap request and response to make them readable multiple times
-        ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request);
-        ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
-        
-        try {
-            // Process the request
-            filterChain.doFilter(wrappedRequest, wrappedResponse);
-        } finally {
-            // Copy the response content back to the original response
-            wrappedResponse.copyBodyToResponse();
-        }
-    }
-}
\ No newline at end of file
@@ -1,22 +0,0 @@
-package bzh.stack.apimovix.config;
-
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-
-import bzh.stack.apimovix.interceptor.RequestLoggingInterceptor;
-
-@Configuration
-public class WebMvcConfig implements WebMvcConfigurer {
-
-    private final RequestLoggingInterceptor requestLoggingInterceptor;
-
-    public WebMvcConfig(RequestLoggingInterceptor requestLoggingInterceptor) {
-        this.requestLoggingInterceptor = requestLoggingInterceptor;
-    }
-
-    @Override
-    public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(requestLoggingInterceptor);
-    }
-} 
\ No newline at end of file
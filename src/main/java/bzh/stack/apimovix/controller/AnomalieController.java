@@ -14,7 +14,9 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 import bzh.stack.apimovix.annotation.MobileRequired;
 import bzh.stack.apimovix.annotation.TokenRequired;
@@ -143,6 +145,32 @@ public class AnomalieController {
         return MAPIR.ok(anomalieMapper.toDetailDto(optAnomalie.get()));
     }
 
+    @PostMapping(value = "/{id}/picture", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload anomaly picture (multipart)", description = "Adds a binary picture to an existing anomaly, without base64 encoding", responses = {
+            @ApiResponse(responseCode = "201", description = "Successfully uploaded anomaly picture", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = AnomalieDetailDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Anomaly not found", content = @Content),
+            @ApiResponse(responseCode = "413", description = "Picture too large", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error while processing picture", content = @Content),
+    })
+    @MobileRequired
+    public ResponseEntity<?> uploadPicture(
+            HttpServletRequest request,
+            @Parameter(description = "UUID of the anomaly", required = true, schema = @Schema(type = "string", format = "uuid")) @Pattern(regexp = PATTERNS.UUID_PATTERN, message = GLOBAL.PATH_INVALID_FORMAT_UUID) @PathVariable String id,
+            @Parameter(description = "Picture file", required = true) @RequestPart("file") MultipartFile file) {
+        Profil profil = (Profil) request.getAttribute("profil");
+        UUID uuid = UUID.fromString(id);
+        Optional<Anomalie> optAnomalie = anomalieService.findAnomalie(profil.getAccount(), uuid);
+        if (optAnomalie.isEmpty()) {
+            return MAPIR.notFound();
+        }
+
+        if (anomalieService.addUploadedPicture(optAnomalie.get(), file).isEmpty()) {
+            return MAPIR.internalServerError();
+        }
+
+        return MAPIR.created(anomalieMapper.toDetailDto(optAnomalie.get()));
+    }
+
     @PostMapping("/{id}/send-email")
     @Operation(summary = "Send anomaly by email", description = "Sends the anomaly with PDF attachment to specified email addresses or account default emails", responses = {
             @ApiResponse(responseCode = "200", description = "Email sent successfully", content = @Content),
@@ -17,7 +17,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 import bzh.stack.apimovix.annotation.AdminRequired;
 import bzh.stack.apimovix.annotation.HyperAdminRequired;
@@ -254,6 +256,34 @@ public class CommandController {
         return MAPIR.created(picture);
     }
 
+    @PostMapping(value = "/{commandId}/picture", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @MobileRequired
+    @Operation(summary = "Upload command picture (multipart)", description = "Uploads a binary picture associated with a specific command, without base64 encoding", responses = {
+            @ApiResponse(responseCode = "201", description = "Successfully uploaded command picture", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CommandPicture.class))),
+            @ApiResponse(responseCode = "404", description = "Command not found", content = @Content),
+            @ApiResponse(responseCode = "413", description = "Picture too large", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error while processing picture", content = @Content),
+    })
+    public ResponseEntity<?> uploadPictureFile(
+            HttpServletRequest request,
+            @Parameter(description = "UUID of the command to upload picture for", required = true, schema = @Schema(type = "string", format = "uuid")) @Pattern(regexp = PATTERNS.UUID_PATTERN, message = GLOBAL.PATH_INVALID_FORMAT_UUID) @PathVariable String commandId,
+            @Parameter(description = "Picture file", required = true) @RequestPart("file") MultipartFile file) {
+        Profil profil = (Profil) request.getAttribute("profil");
+        UUID uuid = UUID.fromString(commandId);
+        Optional<Command> command = commandService.findById(profil.getAccount(), uuid);
+        if (command.isEmpty()) {
+            return MAPIR.notFound();
+        }
+
+        CommandPicture picture = commandService.createCommandPicture(command.get(), file);
+
+        if (picture == null) {
+            return MAPIR.internalServerError();
+        }
+
+        return MAPIR.created(picture);
+    }
+
     @PostMapping("/search")
     @Operation(summary = "Search commands", description = "Searches for commands based on provided criteria", responses = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved matching commands", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, array = @ArraySchema(schema = @Schema(implementation = CommandSearchResponseDTO.class)))),
@@ -3,6 +3,7 @@ package bzh.stack.apimovix.controller;
 import java.io.IOException;
 import java.util.List;
 
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,9 +14,13 @@ import org.springframework.web.bind.annotation.RestController;
 
 import bzh.stack.apimovix.annotation.HyperAdminRequired;
 import bzh.stack.apimovix.annotation.TokenRequired;
+import bzh.stack.apimovix.dto.logs.LogChunkDTO;
 import bzh.stack.apimovix.dto.logs.LogContentDTO;
 import bzh.stack.apimovix.dto.logs.LogFileDTO;
+import bzh.stack.apimovix.dto.logs.LogQueryDTO;
+import bzh.stack.apimovix.dto.logs.LogQueryResultDTO;
 import bzh.stack.apimovix.service.ErrorLogService;
+import bzh.stack.apimovix.service.logs.LogQueryService;
 import bzh.stack.apimovix.util.GLOBAL;
 import bzh.stack.apimovix.util.MAPIR;
 import io.swagger.v3.oas.annotations.Operation;
@@ -37,6 +42,7 @@ import lombok.RequiredArgsConstructor;
 public class ErrorLogsController {
 
     private final ErrorLogService errorLogService;
+    private final LogQueryService logQueryService;
 
     @GetMapping("/list")
     @Operation(
@@ -63,10 +69,36 @@ public class ErrorLogsController {
         }
     }
 
+    @GetMapping("/query")
+    @Operation(
+        summary = "Query error log entries",
+        description = "Searches error log entries by day range, token, HTTP status and URI prefix (hyper admin required). Newest entries first, paginated. Only the NDJSON segments are searched.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Successfully retrieved matching entries",
+                content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = LogQueryResultDTO.class)
+                )
+            )
+        }
+    )
+    @HyperAdminRequired
+    public ResponseEntity<?> queryErrorLogs(@ParameterObject LogQueryDTO query) {
+        try {
+            return MAPIR.ok(logQueryService.query(ErrorLogService.ERROR_LOGS_DIR, query));
+        } catch (IllegalArgumentException e) {
+            return MAPIR.badRequest(e.getMessage());
+        } catch (IOException e) {
+            return MAPIR.badRequest("Erreur lors de la recherche dans les logs: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/content")
     @Operation(
         summary = "Get error log file content",
-        description = "Gets the content of a specific error log file (hyper admin required). Use the relative path returned from the /list endpoint (e.g., '2025/10/22/no-token').",
+        description = "Gets the content of a specific error log file (hyper admin required). Use the relative path returned from the /list endpoint (e.g., '2025/10/22/no-token.ndjson').",
         responses = {
             @ApiResponse(
                 responseCode = "200",
@@ -81,9 +113,9 @@ public class ErrorLogsController {
     @HyperAdminRequired
     public ResponseEntity<?> getErrorLogFileContent(
             @Parameter(
-                description = "Relative path of the error log file from logs/errors directory (e.g., '2025/10/22/no-token')",
+                description = "Relative path of the error log file from logs/errors directory (e.g., '2025/10/22/no-token.ndjson')",
                 required = true,
-                example = "2025/10/22/no-token"
+                example = "2025/10/22/no-token.ndjson"
             ) @RequestParam String path) {
         try {
             LogContentDTO dto = errorLogService.getErrorLogFileContent(path);
@@ -95,6 +127,64 @@ public class ErrorLogsController {
         }
     }
 
+    @GetMapping("/range")
+    @Operation(
+        summary = "Read part of a error log file",
+        description = "Reads at most 'length' bytes (max 1 MB) from 'offset', cut on a line end (hyper admin required). Use endOffset as the next offset to continue.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Successfully read the requested range",
+                content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = LogChunkDTO.class)
+                )
+            )
+        }
+    )
+    @HyperAdminRequired
+    public ResponseEntity<?> readErrorLogFileRange(
+            @Parameter(description = "Relative path of the file from logs/errors directory", required = true) @RequestParam String path,
+            @Parameter(description = "Start offset in bytes") @RequestParam(defaultValue = "0") long offset,
+            @Parameter(description = "Maximum number of bytes to read") @RequestParam(defaultValue = "65536") int length) {
+        try {
+            return MAPIR.ok(errorLogService.readErrorLogFileRange(path, offset, length));
+        } catch (SecurityException e) {
+            return MAPIR.badRequest("Acces non autorise");
+        } catch (IOException e) {
+            return MAPIR.badRequest("Erreur lors de la lecture du fichier: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/tail")
+    @Operation(
+        summary = "Read the last lines of a error log file",
+        description = "Reads the last 'lines' lines (max 1 MB) of the file, or those before 'before' (hyper admin required). Use startOffset as the next 'before' to read further up.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Successfully read the last lines",
+                content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = LogChunkDTO.class)
+                )
+            )
+        }
+    )
+    @HyperAdminRequired
+    public ResponseEntity<?> tailErrorLogFile(
+            @Parameter(description = "Relative path of the file from logs/errors directory", required = true) @RequestParam String path,
+            @Parameter(description = "Number of lines to read") @RequestParam(defaultValue = "200") int lines,
+            @Parameter(description = "Read the lines before this byte offset (end of file if absent)") @RequestParam(required = false) Long before) {
+        try {
+            return MAPIR.ok(errorLogService.tailErrorLogFile(path, lines, before));
+        } catch (SecurityException e) {
+            return MAPIR.badRequest("Acces non autorise");
+        } catch (IOException e) {
+            return MAPIR.badRequest("Erreur lors de la lecture du fichier: " + e.getMessage());
+        }
+    }
+
     @DeleteMapping("/delete")
     @Operation(
         summary = "Delete error log file",
@@ -113,9 +203,9 @@ public class ErrorLogsController {
     @HyperAdminRequired
     public ResponseEntity<?> deleteErrorLogFile(
             @Parameter(
-                description = "Relative path of the error log file to delete from logs/errors directory (e.g., '2025/10/22/no-token')",
+                description = "Relative path of the error log file to delete from logs/errors directory (e.g., '2025/10/22/no-token.ndjson')",
                 required = true,
-                example = "2025/10/22/no-token"
+                example = "2025/10/22/no-token.ndjson"
             ) @RequestParam String path) {
         try {
             errorLogService.deleteErrorLogFile(path);
@@ -4,9 +4,6 @@ import java.io.File;
 import java.util.List;
 import java.util.UUID;
 
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -89,12 +86,7 @@ public class FactureController {
             }
 
             File pdfFile = factureService.getPdfFile(factureId);
-            Resource resource = new FileSystemResource(pdfFile);
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + pdfFile.getName() + "\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(resource);
+            return MAPIR.file(pdfFile);
         } catch (RuntimeException e) {
             return MAPIR.badRequest(e.getMessage());
         }
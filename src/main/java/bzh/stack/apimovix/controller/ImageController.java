@@ -7,8 +7,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import bzh.stack.apimovix.enums.ImageSizeENUM;
 import bzh.stack.apimovix.service.picture.PictureService;
 import bzh.stack.apimovix.util.MAPIR;
 import io.swagger.v3.oas.annotations.Operation;
@@ -32,17 +34,10 @@ public class ImageController {
     })
     public ResponseEntity<?> getPharmacyImage(
             @Parameter(description = "CIP code of the pharmacy", required = true) @PathVariable String cip,
-            @Parameter(description = "ID of the image to retrieve", required = true) @PathVariable String imageId)
+            @Parameter(description = "ID of the image to retrieve", required = true) @PathVariable String imageId,
+            @Parameter(description = "Image variant: thumbnail, medium or original (default)") @RequestParam(required = false) String size)
             throws IOException {
-
-        String path = String.format("pharmacy/%s/%s", cip, imageId);
-
-        File file = pictureService.findImageFile(path);
-        if (file == null) {
-            return MAPIR.notFound();
-        }
-
-        return MAPIR.file(file);
+        return imageResponse(String.format("pharmacy/%s/%s", cip, imageId), size);
     }
 
     @GetMapping("/pharmacyinfos/{cip}/{pharmacyInfosId}/{imageId}")
@@ -53,17 +48,10 @@ public class ImageController {
     public ResponseEntity<?> getPharmacyInfosImage(
             @Parameter(description = "CIP code of the pharmacy", required = true) @PathVariable String cip,
             @Parameter(description = "ID of the pharmacy information", required = true) @PathVariable String pharmacyInfosId,
-            @Parameter(description = "ID of the image to retrieve", required = true) @PathVariable String imageId)
+            @Parameter(description = "ID of the image to retrieve", required = true) @PathVariable String imageId,
+            @Parameter(description = "Image variant: thumbnail, medium or original (default)") @RequestParam(required = false) String size)
             throws IOException {
-
-        String path = String.format("pharmacyinfos/%s/%s/%s", cip, pharmacyInfosId, imageId);
-
-        File file = pictureService.findImageFile(path);
-        if (file == null) {
-            return MAPIR.notFound();
-        }
-
-        return MAPIR.file(file);
+        return imageResponse(String.format("pharmacyinfos/%s/%s/%s", cip, pharmacyInfosId, imageId), size);
     }
 
     @GetMapping("/command/{y}/{m}/{d}/{commandId}/{imageId}")
@@ -76,17 +64,10 @@ public class ImageController {
             @Parameter(description = "Month of the command", required = true) @PathVariable String m,
             @Parameter(description = "Day of the command", required = true) @PathVariable String d,
             @Parameter(description = "ID of the command", required = true) @PathVariable String commandId,
-            @Parameter(description = "ID of the image to retrieve", required = true) @PathVariable String imageId)
+            @Parameter(description = "ID of the image to retrieve", required = true) @PathVariable String imageId,
+            @Parameter(description = "Image variant: thumbnail, medium or original (default)") @RequestParam(required = false) String size)
             throws IOException {
-
-        String path = String.format("command/%s/%s/%s/%s/%s", y, m, d, commandId, imageId);
-
-        File file = pictureService.findImageFile(path);
-        if (file == null) {
-            return MAPIR.notFound();
-        }
-
-        return MAPIR.file(file);
+        return imageResponse(String.format("command/%s/%s/%s/%s/%s", y, m, d, commandId, imageId), size);
     }
 
     @GetMapping("/anomalie/{y}/{m}/{d}/{anomalieId}/{imageId}")
@@ -99,17 +80,10 @@ public class ImageController {
             @Parameter(description = "Month of the anomaly", required = true) @PathVariable String m,
             @Parameter(description = "Day of the anomaly", required = true) @PathVariable String d,
             @Parameter(description = "ID of the anomaly", required = true) @PathVariable String anomalieId,
-            @Parameter(description = "ID of the image to retrieve", required = true) @PathVariable String imageId)
+            @Parameter(description = "ID of the image to retrieve", required = true) @PathVariable String imageId,
+            @Parameter(description = "Image variant: thumbnail, medium or original (default)") @RequestParam(required = false) String size)
             throws IOException {
-
-        String path = String.format("anomalie/%s/%s/%s/%s/%s", y, m, d, anomalieId, imageId);
-
-        File file = pictureService.findImageFile(path);
-        if (file == null) {
-            return MAPIR.notFound();
-        }
-
-        return MAPIR.file(file);
+        return imageResponse(String.format("anomalie/%s/%s/%s/%s/%s", y, m, d, anomalieId, imageId), size);
     }
 
     @GetMapping("/account/{accountId}/{imageId}")
@@ -119,17 +93,10 @@ public class ImageController {
     })
     public ResponseEntity<?> getAccountLogo(
             @Parameter(description = "ID of the account", required = true) @PathVariable String accountId,
-            @Parameter(description = "ID of the logo to retrieve", required = true) @PathVariable String imageId)
+            @Parameter(description = "ID of the logo to retrieve", required = true) @PathVariable String imageId,
+            @Parameter(description = "Image variant: thumbnail, medium or original (default)") @RequestParam(required = false) String size)
             throws IOException {
-
-        String path = String.format("account/%s/%s", accountId, imageId);
-
-        File file = pictureService.findImageFile(path);
-        if (file == null) {
-            return MAPIR.notFound();
-        }
-
-        return MAPIR.file(file);
+        return imageResponse(String.format("account/%s/%s", accountId, imageId), size);
     }
 
     @GetMapping("/profil/{profilId}/{imageId}")
@@ -139,12 +106,22 @@ public class ImageController {
     })
     public ResponseEntity<?> getProfilPicture(
             @Parameter(description = "ID of the profile", required = true) @PathVariable String profilId,
-            @Parameter(description = "ID of the image to retrieve", required = true) @PathVariable String imageId)
+            @Parameter(description = "ID of the image to retrieve", required = true) @PathVariable String imageId,
+            @Parameter(description = "Image variant: thumbnail, medium or original (default)") @RequestParam(required = false) String size)
             throws IOException {
+        return imageResponse(String.format("profil/%s/%s", profilId, imageId), size);
+    }
 
-        String path = String.format("profil/%s/%s", profilId, imageId);
+    /**
+     * Fichier de l'image dans la variante demandée (size : thumbnail, medium ou original par défaut)
+     */
+    private ResponseEntity<?> imageResponse(String path, String size) throws IOException {
+        ImageSizeENUM imageSize = ImageSizeENUM.fromParam(size);
+        if (imageSize == null) {
+            return MAPIR.badRequest("Invalid image size: " + size);
+        }
 
-        File file = pictureService.findImageFile(path);
+        File file = pictureService.findImageFile(path, imageSize);
         if (file == null) {
             return MAPIR.notFound();
         }
@@ -9,21 +9,26 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import bzh.stack.apimovix.annotation.ImporterRequired;
+import bzh.stack.apimovix.dto.importer.BulkSendCommandResponseDTO;
 import bzh.stack.apimovix.dto.importer.SendCommandRequestDTO;
 import bzh.stack.apimovix.dto.importer.SendCommandResponseDTO;
-import bzh.stack.apimovix.model.ImporterToken;
 import bzh.stack.apimovix.model.PackageEntity;
+import bzh.stack.apimovix.service.BulkImporterService;
+import bzh.stack.apimovix.service.ImporterIdempotencyService;
 import bzh.stack.apimovix.service.ImporterService;
+import bzh.stack.apimovix.service.PrincipalCacheService.ImporterPrincipal;
 import bzh.stack.apimovix.service.pdfGenerator.PdfGeneratorService;
 import bzh.stack.apimovix.service.packageservices.PackageService;
 import bzh.stack.apimovix.util.MAPIR;
 import jakarta.servlet.http.HttpServletRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -43,6 +48,10 @@ public class ImporterController {
     ImporterService importerService;
     @Autowired
     PackageService packageService;
+    @Autowired
+    BulkImporterService bulkImporterService;
+    @Autowired
+    ImporterIdempotencyService importerIdempotencyService;
 
     @Autowired
     private PdfGeneratorService pdfGeneratorService;
@@ -57,6 +66,7 @@ public class ImporterController {
             - Si l'expéditeur (sender) n'existe pas, il sera créé automatiquement
             - Si le destinataire (recipient) n'existe pas, il sera créé automatiquement
             - Chaque colis (package) reçoit un code-barres unique et une URL d'étiquette
+            - Avec un header `Idempotency-Key` (ou le champ `idempotency_key`), un nouvel envoi de la même clé renvoie la réponse du premier envoi sans rien recréer
             """,
         responses = {
             @ApiResponse(responseCode = "200", description = "Commande créée avec succès", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = SendCommandResponseDTO.class))),
@@ -68,18 +78,66 @@ public class ImporterController {
                 required = true
             )
             @Valid @RequestBody SendCommandRequestDTO body,
+            @Parameter(description = "Clé d'idempotence : un nouvel envoi avec la même clé renvoie la réponse du premier envoi") @RequestHeader(value = ImporterIdempotencyService.HEADER, required = false) String idempotencyKey,
             HttpServletRequest request) {
 
         // Vérifier que le sender.code correspond au expCode du token
-        ImporterToken importerToken = (ImporterToken) request.getAttribute("importerToken");
-        if (importerToken != null && importerToken.getExpCode() != null && !importerToken.getExpCode().isEmpty()) {
+        ImporterPrincipal importerToken = (ImporterPrincipal) request.getAttribute("importerToken");
+        if (importerToken != null && importerToken.expCode() != null && !importerToken.expCode().isEmpty()) {
             String senderCode = body.getSender() != null ? body.getSender().getCode() : null;
-            if (senderCode == null || !senderCode.equals(importerToken.getExpCode())) {
+            if (senderCode == null || !senderCode.equals(importerToken.expCode())) {
                 return MAPIR.forbidden("Le code expéditeur ne correspond pas au token utilisé");
             }
         }
 
-        SendCommandResponseDTO responseDTO = importerService.sendCommand(body);
+        if (idempotencyKey != null && idempotencyKey.length() > 200) {
+            return MAPIR.badRequest(ImporterIdempotencyService.HEADER + " ne peut pas dépasser 200 caractères");
+        }
+        String idempotencyId = ImporterIdempotencyService.storageKey(importerToken, body,
+            idempotencyKey != null ? idempotencyKey : body.getIdempotency_key());
+
+        SendCommandResponseDTO responseDTO = idempotencyId != null
+            ? importerIdempotencyService.execute(idempotencyId, () -> importerService.sendCommand(body))
+            : importerService.sendCommand(body);
+        return MAPIR.ok(responseDTO);
+    }
+
+    @PostMapping(value = "/command/send/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(
+        summary = "Envoyer un lot de commandes",
+        description = """
+            Permet d'envoyer un grand nombre de commandes en un seul appel.
+
+            **Format :**
+            - `application/json` : tableau de commandes au format de /command/send
+            - `application/x-ndjson` : une commande JSON par ligne
+
+            **Fonctionnement :**
+            - Chaque commande est traitée comme sur /command/send (création du sender, du destinataire, des colis)
+            - Une commande invalide n'empêche pas l'import des autres
+            - Le résultat est donné par commande, dans l'ordre d'envoi (champ `index`)
+            - Une commande dont le champ `idempotency_key` a déjà été traité renvoie la réponse enregistrée
+            """,
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Lot traité, voir le résultat de chaque commande", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = BulkSendCommandResponseDTO.class))),
+        }
+    )
+    public ResponseEntity<?> sendCommands(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Commandes à envoyer (tableau JSON ou NDJSON)",
+                required = true,
+                content = {
+                    @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, array = @ArraySchema(schema = @Schema(implementation = SendCommandRequestDTO.class))),
+                    @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = SendCommandRequestDTO.class))
+                }
+            )
+            HttpServletRequest request) throws IOException {
+
+        ImporterPrincipal importerToken = (ImporterPrincipal) request.getAttribute("importerToken");
+        boolean ndjson = request.getContentType() != null
+            && MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+
+        BulkSendCommandResponseDTO responseDTO = bulkImporterService.sendCommands(request.getInputStream(), ndjson, importerToken);
         return MAPIR.ok(responseDTO);
     }
 
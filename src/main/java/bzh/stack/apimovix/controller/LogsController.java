@@ -3,6 +3,7 @@ package bzh.stack.apimovix.controller;
 import java.io.IOException;
 import java.util.List;
 
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,9 +14,14 @@ import org.springframework.web.bind.annotation.RestController;
 
 import bzh.stack.apimovix.annotation.HyperAdminRequired;
 import bzh.stack.apimovix.annotation.TokenRequired;
+import bzh.stack.apimovix.dto.logs.LogChunkDTO;
 import bzh.stack.apimovix.dto.logs.LogContentDTO;
 import bzh.stack.apimovix.dto.logs.LogFileDTO;
+import bzh.stack.apimovix.dto.logs.LogQueryDTO;
+import bzh.stack.apimovix.dto.logs.LogQueryResultDTO;
 import bzh.stack.apimovix.service.LogService;
+import bzh.stack.apimovix.service.logs.AccessLogWriter;
+import bzh.stack.apimovix.service.logs.LogQueryService;
 import bzh.stack.apimovix.util.GLOBAL;
 import bzh.stack.apimovix.util.MAPIR;
 import io.swagger.v3.oas.annotations.Operation;
@@ -37,6 +43,7 @@ import lombok.RequiredArgsConstructor;
 public class LogsController {
 
     private final LogService logService;
+    private final LogQueryService logQueryService;
 
     @GetMapping("/list")
     @Operation(
@@ -63,10 +70,36 @@ public class LogsController {
         }
     }
 
+    @GetMapping("/query")
+    @Operation(
+        summary = "Query access log entries",
+        description = "Searches access log entries by day range, token, HTTP status and URI prefix (hyper admin required). Newest entries first, paginated. Only the NDJSON segments are searched.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Successfully retrieved matching entries",
+                content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = LogQueryResultDTO.class)
+                )
+            )
+        }
+    )
+    @HyperAdminRequired
+    public ResponseEntity<?> queryLogs(@ParameterObject LogQueryDTO query) {
+        try {
+            return MAPIR.ok(logQueryService.query(AccessLogWriter.LOG_DIRECTORY, query));
+        } catch (IllegalArgumentException e) {
+            return MAPIR.badRequest(e.getMessage());
+        } catch (IOException e) {
+            return MAPIR.badRequest("Erreur lors de la recherche dans les logs: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/content")
     @Operation(
         summary = "Get log file content",
-        description = "Gets the content of a specific log file (hyper admin required). Use the relative path returned from the /list endpoint (e.g., '2025/10/22/no-token').",
+        description = "Gets the content of a specific log file (hyper admin required). Use the relative path returned from the /list endpoint (e.g., '2025/10/22/no-token.ndjson').",
         responses = {
             @ApiResponse(
                 responseCode = "200",
@@ -81,9 +114,9 @@ public class LogsController {
     @HyperAdminRequired
     public ResponseEntity<?> getLogFileContent(
             @Parameter(
-                description = "Relative path of the log file from logs/api directory (e.g., '2025/10/22/no-token')",
+                description = "Relative path of the log file from logs/api directory (e.g., '2025/10/22/no-token.ndjson')",
                 required = true,
-                example = "2025/10/22/no-token"
+                example = "2025/10/22/no-token.ndjson"
             ) @RequestParam String path) {
         try {
             String content = logService.getLogFileContent(path);
@@ -99,6 +132,64 @@ public class LogsController {
         }
     }
 
+    @GetMapping("/range")
+    @Operation(
+        summary = "Read part of a log file",
+        description = "Reads at most 'length' bytes (max 1 MB) from 'offset', cut on a line end (hyper admin required). Use endOffset as the next offset to continue.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Successfully read the requested range",
+                content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = LogChunkDTO.class)
+                )
+            )
+        }
+    )
+    @HyperAdminRequired
+    public ResponseEntity<?> readLogFileRange(
+            @Parameter(description = "Relative path of the file from logs/api directory", required = true) @RequestParam String path,
+            @Parameter(description = "Start offset in bytes") @RequestParam(defaultValue = "0") long offset,
+            @Parameter(description = "Maximum number of bytes to read") @RequestParam(defaultValue = "65536") int length) {
+        try {
+            return MAPIR.ok(logService.readLogFileRange(path, offset, length));
+        } catch (SecurityException e) {
+            return MAPIR.badRequest("Accès non autorisé");
+        } catch (IOException e) {
+            return MAPIR.badRequest("Erreur lors de la lecture du fichier: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/tail")
+    @Operation(
+        summary = "Read the last lines of a log file",
+        description = "Reads the last 'lines' lines (max 1 MB) of the file, or those before 'before' (hyper admin required). Use startOffset as the next 'before' to read further up.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Successfully read the last lines",
+                content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = LogChunkDTO.class)
+                )
+            )
+        }
+    )
+    @HyperAdminRequired
+    public ResponseEntity<?> tailLogFile(
+            @Parameter(description = "Relative path of the file from logs/api directory", required = true) @RequestParam String path,
+            @Parameter(description = "Number of lines to read") @RequestParam(defaultValue = "200") int lines,
+            @Parameter(description = "Read the lines before this byte offset (end of file if absent)") @RequestParam(required = false) Long before) {
+        try {
+            return MAPIR.ok(logService.tailLogFile(path, lines, before));
+        } catch (SecurityException e) {
+            return MAPIR.badRequest("Accès non autorisé");
+        } catch (IOException e) {
+            return MAPIR.badRequest("Erreur lors de la lecture du fichier: " + e.getMessage());
+        }
+    }
+
     @DeleteMapping("/delete")
     @Operation(
         summary = "Delete log file",
@@ -117,9 +208,9 @@ public class LogsController {
     @HyperAdminRequired
     public ResponseEntity<?> deleteLogFile(
             @Parameter(
-                description = "Relative path of the log file to delete from logs/api directory (e.g., '2025/10/22/no-token')",
+                description = "Relative path of the log file to delete from logs/api directory (e.g., '2025/10/22/no-token.ndjson')",
                 required = true,
-                example = "2025/10/22/no-token"
+                example = "2025/10/22/no-token.ndjson"
             ) @RequestParam String path) {
         try {
             logService.deleteLogFile(path);
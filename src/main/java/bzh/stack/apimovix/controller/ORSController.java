@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import bzh.stack.apimovix.annotation.TokenRequired;
@@ -16,6 +17,7 @@ import bzh.stack.apimovix.dto.ors.OptimizeRequestDTO;
 import bzh.stack.apimovix.dto.ors.OptimizeResponseDTO;
 import bzh.stack.apimovix.dto.ors.RouteRequestDTO;
 import bzh.stack.apimovix.dto.ors.RouteResponseDTO;
+import bzh.stack.apimovix.enums.OptimizeEngineENUM;
 import bzh.stack.apimovix.service.ORSService;
 import bzh.stack.apimovix.util.GLOBAL;
 import bzh.stack.apimovix.util.MAPIR;
@@ -44,12 +46,17 @@ public class ORSController {
             @ApiResponse(responseCode = "500", description = "Internal server error - OpenRouteService unavailable or error occurred", content = @Content),
     })
     public ResponseEntity<?> optimize(
-            @Parameter(description = "Request containing coordinates to optimize", required = true, schema = @Schema(implementation = OptimizeRequestDTO.class)) @RequestBody OptimizeRequestDTO requestDTO) {
+            @Parameter(description = "Request containing coordinates to optimize", required = true, schema = @Schema(implementation = OptimizeRequestDTO.class)) @RequestBody OptimizeRequestDTO requestDTO,
+            @Parameter(description = "Optimization engine: remote, local or auto (remote with local fallback); server default when absent") @RequestParam(required = false) String engine) {
         if (requestDTO.getCoordinates() == null || requestDTO.getCoordinates().size() < 2) {
             return MAPIR.fieldRequired("coordinates");
         }
+        OptimizeEngineENUM optimizeEngine = OptimizeEngineENUM.fromParam(engine, orsService.getDefaultOptimizeEngine());
+        if (optimizeEngine == null) {
+            return MAPIR.badRequest("Invalid optimization engine: " + engine);
+        }
 
-        Optional<OptimizeResponseDTO> result = orsService.optimizePoints(requestDTO);
+        Optional<OptimizeResponseDTO> result = orsService.optimizePoints(requestDTO, optimizeEngine);
         if (result.isEmpty()) {
             return MAPIR.internalServerError();
         }
@@ -17,7 +17,9 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 import bzh.stack.apimovix.annotation.HyperAdminRequired;
 import bzh.stack.apimovix.annotation.MobileRequired;
@@ -136,6 +138,33 @@ public class PharmacyController {
         return MAPIR.created(picture);
     }
 
+    @PostMapping(value = "/{cip}/picture", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload pharmacy picture (multipart)", description = "Uploads a binary picture associated with a specific pharmacy, without base64 encoding. You can optionally specify displayOrder to set the picture order.", responses = {
+            @ApiResponse(responseCode = "201", description = "Successfully uploaded pharmacy picture", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = PharmacyPicture.class))),
+            @ApiResponse(responseCode = "404", description = "Pharmacy not found or doesn't belong to your account", content = @Content),
+            @ApiResponse(responseCode = "413", description = "Picture too large", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error while processing picture", content = @Content),
+    })
+    public ResponseEntity<?> uploadPictureFile(
+            ServletRequest request,
+            @Parameter(description = "CIP code of the pharmacy to upload picture for", required = true) @PathVariable String cip,
+            @Parameter(description = "Picture file", required = true) @RequestPart("file") MultipartFile file,
+            @Parameter(description = "Optional display order") @RequestParam(required = false) Integer displayOrder) {
+        Profil profil = (Profil) request.getAttribute("profil");
+        Optional<Pharmacy> pharmacy = pharmacyService.findPharmacyByAccount(profil.getAccount(), cip);
+        if (pharmacy.isEmpty()) {
+            return MAPIR.notFound();
+        }
+
+        PharmacyPicture picture = pharmacyService.createPharmacyPicture(pharmacy.get(), profil.getAccount(), file, displayOrder);
+
+        if (picture == null) {
+            return MAPIR.internalServerError();
+        }
+
+        return MAPIR.created(picture);
+    }
+
     @PutMapping("/{cip}/picture/{id}")
     @Operation(summary = "Update pharmacy picture", description = "Updates a pharmacy picture's image and/or display order. Both base64 and displayOrder are optional - you can update one or both.", responses = {
             @ApiResponse(responseCode = "200", description = "Successfully updated pharmacy picture", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = PharmacyPicture.class))),
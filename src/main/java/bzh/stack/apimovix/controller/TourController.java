@@ -27,6 +27,7 @@ import bzh.stack.apimovix.dto.tour.TourAssignDTO;
 import bzh.stack.apimovix.dto.tour.TourCreateDTO;
 import bzh.stack.apimovix.dto.tour.TourDTO;
 import bzh.stack.apimovix.dto.tour.TourDetailDTO;
+import bzh.stack.apimovix.dto.tour.TourGeometryDTO;
 import bzh.stack.apimovix.dto.tour.TourStatusDTO;
 import bzh.stack.apimovix.dto.tour.TourUpdateDTO;
 import bzh.stack.apimovix.dto.tour.TourUpdateOrderDTO;
@@ -40,6 +41,7 @@ import bzh.stack.apimovix.model.Tour;
 import bzh.stack.apimovix.model.History.HistoryTourStatus;
 import bzh.stack.apimovix.service.pdfGenerator.PdfGeneratorService;
 import bzh.stack.apimovix.service.TarifService;
+import bzh.stack.apimovix.service.tour.TourGeometryService;
 import bzh.stack.apimovix.service.tour.TourService;
 import bzh.stack.apimovix.util.GLOBAL;
 import bzh.stack.apimovix.util.MAPIR;
@@ -69,6 +71,7 @@ public class TourController {
     private final TarifService tarifService;
     private final TourMapper tourMapper;
     private final PdfGeneratorService pdfGeneratorService;
+    private final TourGeometryService tourGeometryService;
 
     @GetMapping("/{id}")
     @Operation(summary = "Get tour by ID", description = "Retrieves detailed information about a specific tour", responses = {
@@ -86,6 +89,23 @@ public class TourController {
         return MAPIR.ok(tourMapper.toDetailDto(optTour.get()));
     }
 
+    @GetMapping("/{id}/geometry")
+    @Operation(summary = "Get tour geometry", description = "Retrieves only the encoded route polyline of a tour, optionally decoded as [longitude, latitude] pairs", responses = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved tour geometry", content = @Content(schema = @Schema(implementation = TourGeometryDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Tour not found", content = @Content),
+    })
+    public ResponseEntity<?> getTourGeometry(
+            HttpServletRequest request,
+            @Parameter(description = "ID of the tour", required = true) @PathVariable String id,
+            @Parameter(description = "Also return the decoded coordinates") @RequestParam(defaultValue = "false") boolean decoded) {
+        Profil profil = (Profil) request.getAttribute("profil");
+        Optional<TourGeometryDTO> optGeometry = tourGeometryService.findTourGeometry(profil.getAccount(), id, decoded);
+        if (optGeometry.isEmpty()) {
+            return MAPIR.notFound();
+        }
+        return MAPIR.ok(optGeometry.get());
+    }
+
     @GetMapping("/history/{id}")
     @Operation(summary = "Get tour history", description = "Retrieves the complete history of status changes for a specific tour", responses = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved tour history", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, array = @ArraySchema(schema = @Schema(implementation = TourStatusDTO.class)))),
@@ -104,7 +124,8 @@ public class TourController {
     })
     public ResponseEntity<?> getToursByDate(
             HttpServletRequest request,
-            @Parameter(description = "Date to retrieve tours for (format: yyyy-MM-dd)", required = true, schema = @Schema(type = "string", format = "date")) @Pattern(regexp = PATTERNS.REG_DATE, message = GLOBAL.PATH_INVALID_FORMAT_DATE) @PathVariable String date) {
+            @Parameter(description = "Date to retrieve tours for (format: yyyy-MM-dd)", required = true, schema = @Schema(type = "string", format = "date")) @Pattern(regexp = PATTERNS.REG_DATE, message = GLOBAL.PATH_INVALID_FORMAT_DATE) @PathVariable String date,
+            @Parameter(description = "Include route geometry (use /tours/{id}/geometry when false)") @RequestParam(defaultValue = "true") boolean withGeometry) {
         Profil profil = (Profil) request.getAttribute("profil");
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern(PATTERNS.DATE);
         LocalDate localDate = LocalDate.parse(date, formatter);
@@ -112,6 +133,9 @@ public class TourController {
         List<TourDTO> tourDTOs = tours.stream()
                 .map(tourMapper::toDto)
                 .collect(Collectors.toList());
+        if (!withGeometry) {
+            tourDTOs.forEach(tourDTO -> tourDTO.setGeometry(null));
+        }
 
         List<String> tourIds = tours.stream().map(Tour::getId).collect(Collectors.toList());
         Map<String, Double> loadingTimes = tourService.getLoadingTimesByTourIds(tourIds);
@@ -0,0 +1,24 @@
+package bzh.stack.apimovix.dto.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Réponse après envoi d'un lot de commandes")
+public class BulkSendCommandResponseDTO {
+
+    @Schema(description = "Nombre de commandes lues", example = "1200")
+    private int total;
+
+    @Schema(description = "Nombre de commandes importées", example = "1198")
+    private int succeeded;
+
+    @Schema(description = "Nombre de commandes en erreur", example = "2")
+    private int failed;
+
+    @Schema(description = "Résultat par commande, dans l'ordre du lot")
+    private List<BulkSendCommandResultDTO> results = new ArrayList<>();
+}
@@ -0,0 +1,29 @@
+package bzh.stack.apimovix.dto.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import bzh.stack.apimovix.dto.packageentity.PackageDTO;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Résultat de l'import d'une commande d'un lot")
+public class BulkSendCommandResultDTO {
+
+    @Schema(description = "Position de la commande dans le lot (à partir de 0)", example = "0")
+    private Integer index;
+
+    @Schema(description = "Statut de l'import", example = "success")
+    private String status;
+
+    @Schema(description = "Message descriptif", example = "Commande envoyée avec succès")
+    private String message;
+
+    @Schema(description = "Identifiant de la commande créée ou complétée")
+    private UUID id_command;
+
+    @Schema(description = "Colis créés avec leurs codes-barres")
+    private List<PackageDTO> packages = new ArrayList<>();
+}
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import bzh.stack.apimovix.util.GLOBAL;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
@@ -28,4 +29,8 @@ public class SendCommandRequestDTO {
     @NotNull(message = GLOBAL.REQUIRED)
     @Schema(description = "Détails de la commande et des colis")
     private CommandImporterDTO command;
+
+    @Size(max = 200, message = "La clé d'idempotence ne peut pas dépasser 200 caractères")
+    @Schema(description = "Clé d'idempotence optionnelle : un nouvel envoi avec la même clé renvoie la réponse du premier envoi sans rien recréer. Sur /command/send, le header Idempotency-Key est prioritaire.", example = "BLC_251224516-f-20251205")
+    private String idempotency_key;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package bzh.stack.apimovix.dto.logs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogChunkDTO {
+    private String path;
+    private String content;
+    /** Offset (octets) du début du morceau : valeur de 'before' pour remonter dans le fichier */
+    private long startOffset;
+    /** Offset (octets) de fin du morceau : valeur de 'offset' pour lire la suite */
+    private long endOffset;
+    private long fileSize;
+    private boolean hasMoreBefore;
+    private boolean hasMoreAfter;
+}
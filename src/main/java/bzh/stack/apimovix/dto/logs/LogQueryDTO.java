@@ -0,0 +1,37 @@
+package bzh.stack.apimovix.dto.logs;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+public class LogQueryDTO {
+    @Schema(description = "First day to search (inclusive), defaults to today", example = "2025-10-22")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @Schema(description = "Last day to search (inclusive), defaults to 'from'", example = "2025-10-22")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    @Schema(description = "Token (as used in log file names)")
+    private String token;
+
+    @Schema(description = "Exact HTTP status", example = "500")
+    private Integer status;
+
+    @Schema(description = "Minimum HTTP status", example = "400")
+    private Integer minStatus;
+
+    @Schema(description = "URI prefix", example = "/commands")
+    private String uriPrefix;
+
+    @Schema(description = "Page number (0-based)", example = "0")
+    private Integer page = 0;
+
+    @Schema(description = "Page size (max 500)", example = "50")
+    private Integer size = 50;
+}
@@ -0,0 +1,19 @@
+package bzh.stack.apimovix.dto.logs;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogQueryResultDTO {
+    private long total;
+    private int page;
+    private int size;
+    private List<JsonNode> records;
+}
@@ -33,6 +33,7 @@ public class TourDTO {
     private Double estimateMins;
     private Double estimateKm;
     private String geometry;
+    private Boolean routePending;
 
     private Double loadingTimeMinutes;
 
@@ -0,0 +1,25 @@
+package bzh.stack.apimovix.dto.tour;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TourGeometryDTO {
+    private String id;
+    private String geometry;
+    private Boolean routePending;
+    private Integer points;
+    private List<List<Double>> coordinates;
+
+    public TourGeometryDTO(String id, String geometry, Boolean routePending) {
+        this.id = id;
+        this.geometry = geometry;
+        this.routePending = Boolean.TRUE.equals(routePending);
+    }
+}
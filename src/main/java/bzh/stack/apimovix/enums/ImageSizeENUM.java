@@ -0,0 +1,21 @@
+package bzh.stack.apimovix.enums;
+
+public enum ImageSizeENUM {
+    Thumbnail, Medium, Original;
+
+    /**
+     * Valeur du paramètre ?size= (insensible à la casse), Original si absent
+     * @return la variante, ou null si la valeur est inconnue
+     */
+    public static ImageSizeENUM fromParam(String size) {
+        if (size == null || size.isBlank()) {
+            return Original;
+        }
+        for (ImageSizeENUM value : values()) {
+            if (value.name().equalsIgnoreCase(size.trim())) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,21 @@
+package bzh.stack.apimovix.enums;
+
+public enum OptimizeEngineENUM {
+    Remote, Local, Auto;
+
+    /**
+     * Valeur du paramètre ?engine= (insensible à la casse), defaultEngine si absent
+     * @return le moteur, ou null si la valeur est inconnue
+     */
+    public static OptimizeEngineENUM fromParam(String engine, OptimizeEngineENUM defaultEngine) {
+        if (engine == null || engine.isBlank()) {
+            return defaultEngine;
+        }
+        for (OptimizeEngineENUM value : values()) {
+            if (value.name().equalsIgnoreCase(engine.trim())) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
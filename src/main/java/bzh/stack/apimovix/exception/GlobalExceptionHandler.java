@@ -3,6 +3,7 @@ package bzh.stack.apimovix.exception;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.method.annotation.HandlerMethodValidationException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 
@@ -29,7 +31,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> handleValidationExceptions(MethodArgumentNotValidException ex) {
-        logException(ex);
+        logException(ex, HttpStatus.BAD_REQUEST);
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
@@ -53,7 +55,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(HandlerMethodValidationException.class)
     public ResponseEntity<?> handleHandlerMethodValidationException(HandlerMethodValidationException ex) {
-        logException(ex);
+        logException(ex, HttpStatus.BAD_REQUEST);
         String message = ex.getAllValidationResults().stream()
             .flatMap(result -> result.getResolvableErrors().stream())
             .map(error -> error.getDefaultMessage())
@@ -65,7 +67,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<?> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
-        logException(ex);
+        logException(ex, HttpStatus.BAD_REQUEST);
         if (ex.getCause() instanceof InvalidFormatException) {
             InvalidFormatException invalidFormatEx = (InvalidFormatException) ex.getCause();
             String fieldName = invalidFormatEx.getPath().get(0).getFieldName();
@@ -89,23 +91,35 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(FieldAlreadyUsed.class)
     public ResponseEntity<?> handleFieldAlreadyUsed(FieldAlreadyUsed ex) {
-        logException(ex);
+        logException(ex, HttpStatus.CONFLICT);
         return MAPIR.conflict(ex.getField() + " " + GLOBAL.ALREADY_USED);
     }
 
+    @ExceptionHandler(ImageTooLargeException.class)
+    public ResponseEntity<?> handleImageTooLarge(ImageTooLargeException ex) {
+        logException(ex, HttpStatus.PAYLOAD_TOO_LARGE);
+        return MAPIR.payloadTooLarge(ex.getMessage());
+    }
+
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<?> handleMaxUploadSizeExceeded(MaxUploadSizeExceededException ex) {
+        logException(ex, HttpStatus.PAYLOAD_TOO_LARGE);
+        return MAPIR.payloadTooLarge(ex.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleAllUncaughtExceptions(Exception ex) {
-        logException(ex);
+        logException(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         return MAPIR.internalServerError();
     }
 
-    private void logException(Exception ex) {
+    private void logException(Exception ex, HttpStatus status) {
         try {
             ServletRequestAttributes attributes =
                 (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
             if (attributes != null) {
                 HttpServletRequest request = attributes.getRequest();
-                errorLogService.logException(request, ex);
+                errorLogService.logException(request, ex, status.value());
             }
         } catch (Exception e) {
             // Silently ignore logging errors
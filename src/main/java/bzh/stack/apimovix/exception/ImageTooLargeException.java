@@ -0,0 +1,11 @@
+package bzh.stack.apimovix.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class ImageTooLargeException extends RuntimeException {
+    public ImageTooLargeException(long maxBytes) {
+        super(String.format("Image trop volumineuse: %d octets maximum", maxBytes));
+    }
+}
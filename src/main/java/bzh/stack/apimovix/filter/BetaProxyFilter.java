@@ -0,0 +1,76 @@
+package bzh.stack.apimovix.filter;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import bzh.stack.apimovix.service.PrincipalCacheService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Relaie vers l'API beta les requêtes portant un token importer isBetaProxy=true
+ * (seulement en prod et pas sur l'API beta elle-même).
+ * Placé avant les filtres de capture pour que les corps ne soient jamais mis en mémoire.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class BetaProxyFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private PrincipalCacheService principalCacheService;
+
+    @Autowired
+    private BetaProxyForwarder betaProxyForwarder;
+
+    @Value("${server.address}")
+    private String serverAddress;
+
+    private boolean isProduction() {
+        return !serverAddress.contains("192.168.")
+            && !serverAddress.contains("127.0.")
+            && !serverAddress.contains("localhost")
+            && !serverAddress.contains("0.0.0.0");
+    }
+
+    private boolean isBetaApi() {
+        return serverAddress.contains("api.beta.movix.fr") || serverAddress.contains("beta");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String token = request.getHeader("Authorization");
+        return token == null || token.isEmpty() || !isProduction() || isBetaApi();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        String token = request.getHeader("Authorization");
+        String cleanToken = token.startsWith("Bearer ") ? token.substring(7) : token;
+
+        if (!principalCacheService.isBetaProxyToken(cleanToken)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            betaProxyForwarder.forward(request, response);
+        } catch (IOException e) {
+            log.error("Erreur lors du relais vers l'API beta: {}", e.getMessage());
+            if (!response.isCommitted()) {
+                response.sendError(HttpStatus.BAD_GATEWAY.value());
+            }
+        }
+    }
+}
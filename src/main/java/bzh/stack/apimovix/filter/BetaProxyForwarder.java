@@ -0,0 +1,169 @@
+package bzh.stack.apimovix.filter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.InputStreamEntity;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Relais en streaming vers l'API beta : les corps de requête et de réponse sont
+ * copiés par blocs de taille fixe, la mémoire utilisée ne dépend pas de la taille du payload.
+ */
+@Component
+public class BetaProxyForwarder {
+
+    private static final String BETA_API_URL = "https://api.beta.movix.fr";
+    private static final long READ_TIMEOUT_MS = 60000;
+    private static final int BUFFER_SIZE = 8192;
+
+    // Headers hop-by-hop à ne pas relayer
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+        "host", "connection", "keep-alive", "content-length", "transfer-encoding",
+        "te", "trailer", "upgrade", "proxy-connection", "proxy-authenticate", "proxy-authorization");
+
+    private final CloseableHttpClient outboundHttpClient;
+    private final RequestConfig requestConfig;
+    private final Timer latencyTimer;
+    private final DistributionSummary requestBytes;
+    private final DistributionSummary responseBytes;
+
+    public BetaProxyForwarder(CloseableHttpClient outboundHttpClient, RequestConfig outboundRequestConfig,
+            MeterRegistry meterRegistry) {
+        this.outboundHttpClient = outboundHttpClient;
+        // Configuration par défaut du client (attente de connexion du pool...), avec un délai de réponse plus long
+        this.requestConfig = RequestConfig.copy(outboundRequestConfig)
+            .setResponseTimeout(Timeout.ofMilliseconds(READ_TIMEOUT_MS))
+            .build();
+        this.latencyTimer = Timer.builder("beta.proxy.latency")
+            .description("Durée des requêtes relayées vers l'API beta")
+            .register(meterRegistry);
+        this.requestBytes = DistributionSummary.builder("beta.proxy.request.bytes")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.responseBytes = DistributionSummary.builder("beta.proxy.response.bytes")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    public void forward(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long start = System.nanoTime();
+
+        // Construire l'URL cible
+        String targetUrl = BETA_API_URL + request.getRequestURI();
+        String queryString = request.getQueryString();
+        if (queryString != null && !queryString.isEmpty()) {
+            targetUrl += "?" + queryString;
+        }
+
+        ClassicRequestBuilder proxyRequest = ClassicRequestBuilder.create(request.getMethod()).setUri(targetUrl);
+
+        Collections.list(request.getHeaderNames()).forEach(headerName -> {
+            if (!HOP_BY_HOP_HEADERS.contains(headerName.toLowerCase())) {
+                Collections.list(request.getHeaders(headerName))
+                    .forEach(value -> proxyRequest.addHeader(headerName, value));
+            }
+        });
+
+        // Corps envoyé en flux : longueur connue -> Content-Length, sinon chunked
+        CountingInputStream requestBody = null;
+        if ("POST".equalsIgnoreCase(request.getMethod())
+            || "PUT".equalsIgnoreCase(request.getMethod())
+            || "PATCH".equalsIgnoreCase(request.getMethod())) {
+            requestBody = new CountingInputStream(request.getInputStream());
+            proxyRequest.setEntity(new InputStreamEntity(requestBody, request.getContentLengthLong(), null));
+        }
+
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(requestConfig);
+
+        try {
+            long copied = outboundHttpClient.execute(proxyRequest.build(), context, proxyResponse -> {
+                response.setStatus(proxyResponse.getCode());
+
+                for (Header header : proxyResponse.getHeaders()) {
+                    if (!HOP_BY_HOP_HEADERS.contains(header.getName().toLowerCase())) {
+                        response.addHeader(header.getName(), header.getValue());
+                    }
+                }
+
+                HttpEntity entity = proxyResponse.getEntity();
+                if (entity == null) {
+                    return 0L;
+                }
+                if (entity.getContentLength() >= 0) {
+                    response.setContentLengthLong(entity.getContentLength());
+                }
+                try (InputStream in = entity.getContent()) {
+                    return copy(in, response.getOutputStream());
+                }
+            });
+            responseBytes.record(copied);
+        } finally {
+            if (requestBody != null) {
+                requestBytes.record(requestBody.getCount());
+            }
+            latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        out.flush();
+        return total;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package bzh.stack.apimovix.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.function.Predicate;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Wrapper de réponse qui écrit directement vers le client et ne conserve
+ * qu'une copie bornée du corps, si la règle de capture l'autorise.
+ * La décision de capture est prise à la première écriture (statut et Content-Type connus).
+ */
+public class CapturingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final int maxCaptureBytes;
+    private final Predicate<HttpServletResponse> captureRule;
+
+    private ByteArrayOutputStream captured;
+    private boolean decided;
+    private boolean truncated;
+    private TeeOutputStream outputStream;
+    private PrintWriter writer;
+
+    public CapturingResponseWrapper(HttpServletResponse response, int maxCaptureBytes,
+            Predicate<HttpServletResponse> captureRule) {
+        super(response);
+        this.maxCaptureBytes = maxCaptureBytes;
+        this.captureRule = captureRule;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() a déjà été appelé pour cette réponse");
+        }
+        return teeOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() a déjà été appelé pour cette réponse");
+            }
+            writer = new PrintWriter(new OutputStreamWriter(teeOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    /**
+     * Vide le writer éventuel ; à appeler en fin de traitement
+     */
+    public void flushWriter() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    public byte[] getCapturedBody() {
+        return captured != null ? captured.toByteArray() : new byte[0];
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    private TeeOutputStream teeOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new TeeOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        if (!decided) {
+            decided = true;
+            if (captureRule.test(this)) {
+                captured = new ByteArrayOutputStream(Math.min(maxCaptureBytes, 1024));
+            }
+        }
+        if (captured == null || truncated) {
+            return;
+        }
+        int remaining = maxCaptureBytes - captured.size();
+        if (len > remaining) {
+            captured.write(b, off, remaining);
+            truncated = true;
+        } else {
+            captured.write(b, off, len);
+        }
+    }
+
+    private class TeeOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        TeeOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            if (!decided || (captured != null && !truncated)) {
+                capture(new byte[] { (byte) b }, 0, 1);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
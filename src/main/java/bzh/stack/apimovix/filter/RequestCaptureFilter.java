@@ -0,0 +1,100 @@
+package bzh.stack.apimovix.filter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Capture bornée des corps de requête/réponse pour RequestLoggingInterceptor et ErrorLogService.
+ * - chemins exclus : aucun wrapper, la réponse part directement au client
+ * - types de contenu exclus (images, PDF, APK...) : réponse transmise sans copie
+ * - au plus app.logging.capture.max-bytes octets conservés par corps
+ * - app.logging.capture.response-body : ALWAYS, ON_ERROR (statut >= 400) ou NEVER
+ * Placé après BetaProxyFilter.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestCaptureFilter extends OncePerRequestFilter {
+
+    public enum ResponseCaptureMode {
+        ALWAYS, ON_ERROR, NEVER
+    }
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Value("${app.logging.capture.exclude-paths:/images/**,/updates/download/**,/swagger-ui/**,/v3/api-docs/**}")
+    private String[] excludedPaths;
+
+    @Value("${app.logging.capture.exclude-content-types:image/*,video/*,application/pdf,application/octet-stream,application/vnd.android.package-archive}")
+    private String[] excludedContentTypes;
+
+    @Value("${app.logging.capture.max-bytes:65536}")
+    private int maxCaptureBytes;
+
+    @Value("${app.logging.capture.response-body:ALWAYS}")
+    private ResponseCaptureMode responseCaptureMode;
+
+    private List<MediaType> excludedMediaTypes;
+
+    @Override
+    protected void initFilterBean() {
+        excludedMediaTypes = Arrays.stream(excludedContentTypes)
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .map(MediaType::parseMediaType)
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return Arrays.stream(excludedPaths).anyMatch(pattern -> pathMatcher.match(pattern.trim(), path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request, maxCaptureBytes);
+        CapturingResponseWrapper wrappedResponse = new CapturingResponseWrapper(response, maxCaptureBytes,
+                this::shouldCaptureResponse);
+
+        try {
+            filterChain.doFilter(wrappedRequest, wrappedResponse);
+        } finally {
+            wrappedResponse.flushWriter();
+        }
+    }
+
+    private boolean shouldCaptureResponse(HttpServletResponse response) {
+        if (responseCaptureMode == ResponseCaptureMode.NEVER) {
+            return false;
+        }
+        if (responseCaptureMode == ResponseCaptureMode.ON_ERROR && response.getStatus() < 400) {
+            return false;
+        }
+        String contentType = response.getContentType();
+        if (contentType == null) {
+            return true;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return excludedMediaTypes.stream().noneMatch(excluded -> excluded.includes(mediaType));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
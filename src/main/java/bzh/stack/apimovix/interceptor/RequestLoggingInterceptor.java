@@ -1,31 +1,35 @@
 package bzh.stack.apimovix.interceptor;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
+import bzh.stack.apimovix.filter.CapturingResponseWrapper;
+import bzh.stack.apimovix.service.logs.AccessLogRecord;
+import bzh.stack.apimovix.service.logs.AccessLogWriter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 
+/**
+ * Journal d'accès : l'entrée est construite ici puis confiée à AccessLogWriter,
+ * le formatage et l'écriture disque se font hors du thread de la requête.
+ */
 @Component
+@RequiredArgsConstructor
 public class RequestLoggingInterceptor implements HandlerInterceptor {
 
-    private static final String LOG_DIRECTORY = "logs/api";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final ZoneId LOG_ZONE = ZoneId.of("Europe/Paris");
+
+    private final AccessLogWriter accessLogWriter;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
@@ -48,88 +52,39 @@ public class RequestLoggingInterceptor implements HandlerInterceptor {
             // Sanitize token to prevent directory traversal and filesystem issues
             token = token.replaceAll("[/\\\\:*?\"<>|]", "_");
 
-            String logPath = String.format("%s/%s/%s",
-                LOG_DIRECTORY,
-                LocalDateTime.now().format(DATE_FORMATTER),
-                token);
-
-            File logFile = new File(logPath);
-            File parentDir = logFile.getParentFile();
-            if (parentDir != null && !parentDir.exists()) {
-                boolean created = parentDir.mkdirs();
-                if (!created && !parentDir.exists()) {
-                    // Failed to create directory, silently skip logging
-                    return;
-                }
-            }
-
             Long startTime = (Long) request.getAttribute("startTime");
             long duration = startTime != null ? System.currentTimeMillis() - startTime : 0;
 
-            try (FileWriter writer = new FileWriter(logFile, true)) {
-                writer.write(String.format("========================================\n"));
-                writer.write(String.format("=== REQUEST at %s ===\n", ZonedDateTime.now(ZoneId.of("Europe/Paris")).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
-                writer.write(String.format("Duration: %d ms\n", duration));
-                writer.write(String.format("IP: %s\n", getClientIpAddress(request)));
-                writer.write(String.format("User-Agent: %s\n", request.getHeader("User-Agent")));
-                writer.write(String.format("Method: %s\n", request.getMethod()));
-                writer.write(String.format("URI: %s\n", request.getRequestURI()));
-
-                // Query parameters
-                if (request.getQueryString() != null) {
-                    writer.write(String.format("Query String: %s\n", request.getQueryString()));
-                }
-
-                // Request headers
-                writer.write("REQUEST HEADERS:\n");
-                Map<String, String> headers = getRequestHeaders(request);
-                for (Map.Entry<String, String> header : headers.entrySet()) {
-                    // Mask sensitive headers
-                    String value = header.getKey().toLowerCase().contains("auth") ? "[MASKED]" : header.getValue();
-                    writer.write(String.format("  %s: %s\n", header.getKey(), value));
-                }
-
-                // Request body
-                if (request instanceof ContentCachingRequestWrapper) {
-                    ContentCachingRequestWrapper requestWrapper = (ContentCachingRequestWrapper) request;
-                    byte[] contentAsByteArray = requestWrapper.getContentAsByteArray();
-                    if (contentAsByteArray.length > 0) {
-                        String body = new String(contentAsByteArray, StandardCharsets.UTF_8);
-                        writer.write(String.format("REQUEST BODY: %s\n", body));
-                    }
-                }
-
-                writer.write(String.format("\n=== RESPONSE ===\n"));
-                writer.write(String.format("Status: %d\n", response.getStatus()));
-                writer.write(String.format("Content-Type: %s\n", response.getContentType()));
-
-                // Response headers
-                writer.write("RESPONSE HEADERS:\n");
-                for (String headerName : response.getHeaderNames()) {
-                    writer.write(String.format("  %s: %s\n", headerName, response.getHeader(headerName)));
-                }
-
-                // Response body
-                if (response instanceof ContentCachingResponseWrapper) {
-                    ContentCachingResponseWrapper responseWrapper = (ContentCachingResponseWrapper) response;
-                    byte[] contentAsByteArray = responseWrapper.getContentAsByteArray();
-                    if (contentAsByteArray.length > 0) {
-                        String body = new String(contentAsByteArray, StandardCharsets.UTF_8);
-                        writer.write(String.format("RESPONSE BODY: %s\n", body));
-                    }
-                }
-
-                // Exception information
-                if (ex != null) {
-                    writer.write(String.format("EXCEPTION: %s - %s\n", ex.getClass().getSimpleName(), ex.getMessage()));
-                }
+            AccessLogRecord.AccessLogRecordBuilder record = AccessLogRecord.builder()
+                .timestamp(ZonedDateTime.now(LOG_ZONE))
+                .token(token)
+                .durationMs(duration)
+                .ip(getClientIpAddress(request))
+                .userAgent(request.getHeader("User-Agent"))
+                .method(request.getMethod())
+                .uri(uri)
+                .queryString(request.getQueryString())
+                .requestHeaders(getRequestHeaders(request))
+                .status(response.getStatus())
+                .contentType(response.getContentType())
+                .responseHeaders(getResponseHeaders(response));
+
+            // Corps déjà bornés par RequestCaptureFilter
+            if (request instanceof ContentCachingRequestWrapper requestWrapper) {
+                record.requestBody(requestWrapper.getContentAsByteArray());
+            }
+            if (response instanceof CapturingResponseWrapper responseWrapper) {
+                record.responseBody(responseWrapper.getCapturedBody())
+                    .responseTruncated(responseWrapper.isTruncated());
+            }
 
-                writer.write("========================================\n\n");
+            if (ex != null) {
+                record.exception(ex.getClass().getSimpleName() + " - " + ex.getMessage());
             }
+
+            accessLogWriter.submit(record.build());
         } catch (Exception e) {
             // Silently ignore logging errors to prevent them from breaking the application
-            // You can optionally log to System.err if you want to debug
-            // System.err.println("Failed to write request log: " + e.getMessage());
         }
     }
     
@@ -147,16 +102,26 @@ public class RequestLoggingInterceptor implements HandlerInterceptor {
         return request.getRemoteAddr();
     }
     
-    private Map<String, String> getRequestHeaders(HttpServletRequest request) {
-        Map<String, String> headers = new HashMap<>();
+    private List<String> getRequestHeaders(HttpServletRequest request) {
+        List<String> headers = new ArrayList<>();
         Enumeration<String> headerNames = request.getHeaderNames();
         
         if (headerNames != null) {
             for (String headerName : Collections.list(headerNames)) {
-                headers.put(headerName, request.getHeader(headerName));
+                // Mask sensitive headers
+                String value = headerName.toLowerCase().contains("auth") ? "[MASKED]" : request.getHeader(headerName);
+                headers.add(headerName + ": " + value);
             }
         }
         
         return headers;
     }
-} 
\ No newline at end of file
+
+    private List<String> getResponseHeaders(HttpServletResponse response) {
+        List<String> headers = new ArrayList<>();
+        for (String headerName : response.getHeaderNames()) {
+            headers.add(headerName + ": " + response.getHeader(headerName));
+        }
+        return headers;
+    }
+}
@@ -1,15 +1,8 @@
 package bzh.stack.apimovix.interceptor;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.util.Collections;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
@@ -22,48 +15,25 @@ import bzh.stack.apimovix.annotation.MobileRequired;
 import bzh.stack.apimovix.annotation.TokenNotRequired;
 import bzh.stack.apimovix.annotation.TokenRequired;
 import bzh.stack.apimovix.model.Profil;
-import bzh.stack.apimovix.repository.ProfileRepository;
 import bzh.stack.apimovix.service.ImporterTokenService;
+import bzh.stack.apimovix.service.PrincipalCacheService;
+import bzh.stack.apimovix.service.PrincipalCacheService.ProfilPrincipal;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 @Component
 public class TokenInterceptor implements HandlerInterceptor {
 
-    private static final String BETA_API_URL = "https://api.beta.movix.fr";
-
     @Autowired
-    private ProfileRepository profilRepository;
+    private PrincipalCacheService principalCacheService;
 
     @Autowired
     private ImporterTokenService importerTokenService;
 
-    @Value("${server.address}")
-    private String serverAddress;
-
-    private boolean isProduction() {
-        return !serverAddress.contains("192.168.")
-            && !serverAddress.contains("127.0.")
-            && !serverAddress.contains("localhost")
-            && !serverAddress.contains("0.0.0.0");
-    }
-
-    private boolean isBetaApi() {
-        return serverAddress.contains("api.beta.movix.fr") || serverAddress.contains("beta");
-    }
-
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        // Vérifier si on doit proxifier vers beta (seulement en prod et pas sur l'API beta elle-même)
+        // Le relais vers l'API beta des tokens isBetaProxy est fait en amont par BetaProxyFilter
         String token = request.getHeader("Authorization");
-        if (token != null && !token.isEmpty()) {
-            String cleanToken = token.startsWith("Bearer ") ? token.substring(7) : token;
-            // Si c'est un token importer avec isBetaProxy=true et qu'on est en prod (pas beta), on proxy vers beta
-            if (isProduction() && !isBetaApi() && importerTokenService.isBetaProxyToken(cleanToken)) {
-                proxyToBeta(request, response);
-                return false;
-            }
-        }
 
         if (!(handler instanceof HandlerMethod)) {
             return true;
@@ -116,7 +86,7 @@ public class TokenInterceptor implements HandlerInterceptor {
 
         // Vérification spéciale pour ImporterRequired
         if (importerRequired != null) {
-            var importerToken = importerTokenService.findActiveByToken(cleanToken);
+            var importerToken = principalCacheService.findActiveImporterToken(cleanToken);
             if (importerToken.isPresent()) {
                 // Mettre à jour la date de dernière utilisation
                 importerTokenService.updateLastUsed(cleanToken);
@@ -128,22 +98,22 @@ public class TokenInterceptor implements HandlerInterceptor {
             return false;
         }
 
-        Optional<Profil> profilOpt = profilRepository.findByToken(cleanToken);
-        if (profilOpt.isEmpty()) {
+        Optional<ProfilPrincipal> principalOpt = principalCacheService.findProfilByToken(cleanToken);
+        if (principalOpt.isEmpty()) {
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
             return false;
         }
 
-        Profil profil = profilOpt.get();
+        ProfilPrincipal principal = principalOpt.get();
 
         // Vérifier que le profil est actif
-        if (Boolean.FALSE.equals(profil.getIsActive())) {
+        if (!principal.active()) {
             response.setStatus(HttpStatus.FORBIDDEN.value());
             return false;
         }
 
         // Vérifier que l'account associé est actif
-        if (profil.getAccount() != null && Boolean.FALSE.equals(profil.getAccount().getIsActive())) {
+        if (!principal.accountActive()) {
             response.setStatus(HttpStatus.FORBIDDEN.value());
             return false;
         }
@@ -151,86 +121,34 @@ public class TokenInterceptor implements HandlerInterceptor {
         // Vérifier les autorisations selon la hiérarchie
         if (adminRequired != null) {
             // Pour AdminRequired, seul isAdmin est accepté
-            if (!profil.getIsAdmin()) {
+            if (!principal.admin()) {
                 response.setStatus(HttpStatus.FORBIDDEN.value());
                 return false;
             }
         } else if (tokenRequired != null) {
             // Pour TokenRequired, isAdmin ou isWeb sont acceptés
-            if (!profil.getIsAdmin() && !profil.getIsWeb()) {
+            if (!principal.admin() && !principal.web()) {
                 response.setStatus(HttpStatus.FORBIDDEN.value());
                 return false;
             }
         } else if (mobileRequired != null) {
             // Pour MobileRequired, tous les niveaux sont acceptés
-            if (!profil.getIsAdmin() && !profil.getIsWeb() && !profil.getIsMobile()) {
+            if (!principal.admin() && !principal.web() && !principal.mobile()) {
                 response.setStatus(HttpStatus.FORBIDDEN.value());
                 return false;
             }
         }
 
+        // Profil propre à la requête (lectures paresseuses et modifications non partagées entre requêtes)
+        Optional<Profil> profilOpt = principalCacheService.loadProfil(principal);
+        if (profilOpt.isEmpty()) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            return false;
+        }
+        Profil profil = profilOpt.get();
+
         // Ajouter le profil à la requête
         request.setAttribute("profil", profil);
         return true;
     }
-
-    /**
-     * Proxy la requête vers l'API beta (api.beta.movix.fr)
-     */
-    private void proxyToBeta(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        // Construire l'URL cible
-        String targetUrl = BETA_API_URL + request.getRequestURI();
-        String queryString = request.getQueryString();
-        if (queryString != null && !queryString.isEmpty()) {
-            targetUrl += "?" + queryString;
-        }
-
-        // Créer la connexion
-        HttpURLConnection connection = (HttpURLConnection) URI.create(targetUrl).toURL().openConnection();
-        connection.setRequestMethod(request.getMethod());
-        connection.setConnectTimeout(30000);
-        connection.setReadTimeout(60000);
-
-        // Copier les headers de la requête originale
-        Collections.list(request.getHeaderNames()).forEach(headerName -> {
-            // Ne pas copier les headers de connexion/host
-            if (!"host".equalsIgnoreCase(headerName)
-                && !"connection".equalsIgnoreCase(headerName)
-                && !"content-length".equalsIgnoreCase(headerName)) {
-                connection.setRequestProperty(headerName, request.getHeader(headerName));
-            }
-        });
-
-        // Si la requête a un body (POST, PUT, PATCH)
-        if ("POST".equalsIgnoreCase(request.getMethod())
-            || "PUT".equalsIgnoreCase(request.getMethod())
-            || "PATCH".equalsIgnoreCase(request.getMethod())) {
-            connection.setDoOutput(true);
-            try (InputStream requestBody = request.getInputStream();
-                 OutputStream connectionOutput = connection.getOutputStream()) {
-                requestBody.transferTo(connectionOutput);
-            }
-        }
-
-        // Récupérer la réponse
-        int responseCode = connection.getResponseCode();
-        response.setStatus(responseCode);
-
-        // Copier les headers de réponse
-        connection.getHeaderFields().forEach((key, values) -> {
-            if (key != null && !"transfer-encoding".equalsIgnoreCase(key)) {
-                values.forEach(value -> response.addHeader(key, value));
-            }
-        });
-
-        // Copier le body de la réponse
-        try (InputStream responseStream = responseCode >= 400
-                ? connection.getErrorStream()
-                : connection.getInputStream();
-             OutputStream responseOutput = response.getOutputStream()) {
-            if (responseStream != null) {
-                responseStream.transferTo(responseOutput);
-            }
-        }
-    }
-} 
\ No newline at end of file
+}
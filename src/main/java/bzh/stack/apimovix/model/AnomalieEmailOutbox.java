@@ -0,0 +1,64 @@
+package bzh.stack.apimovix.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Email de notification d'anomalie à envoyer (un enregistrement par destinataire).
+ * Inséré dans la transaction de création de l'anomalie, traité par AnomalieEmailDispatcher.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "anomalie_email_outbox", indexes = {
+    @Index(name = "idx_anomalie_email_outbox_status_next", columnList = "status, next_attempt_at")
+})
+public class AnomalieEmailOutbox {
+
+    public enum Status {
+        PENDING, SENT, FAILED
+    }
+
+    @EqualsAndHashCode.Include
+    @Id
+    @Column(name = "id", nullable = false)
+    private UUID id;
+
+    @Column(name = "anomalie_id", nullable = false)
+    private UUID anomalieId;
+
+    @Column(name = "account_id", nullable = false)
+    private UUID accountId;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
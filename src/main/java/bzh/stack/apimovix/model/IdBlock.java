@@ -0,0 +1,26 @@
+package bzh.stack.apimovix.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Compteur hi/lo d'un générateur d'identifiants (codes-barres par préfixe, tournées).
+ * nextValue est la première valeur non encore réservée.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "id_block")
+public class IdBlock {
+    @EqualsAndHashCode.Include
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,34 @@
+package bzh.stack.apimovix.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Clé d'idempotence d'une commande importée et réponse renvoyée au premier envoi.
+ * Insérée par ImporterIdempotencyKeyRepository.insertIfAbsent, jamais mise à jour.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "importer_idempotency_key", indexes = {
+    @Index(name = "idx_importer_idempotency_created_at", columnList = "created_at")
+})
+public class ImporterIdempotencyKey {
+    @EqualsAndHashCode.Include
+    @Id
+    @Column(name = "id", length = 300)
+    private String id;
+
+    @Column(name = "response", nullable = false, columnDefinition = "TEXT")
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,49 @@
+package bzh.stack.apimovix.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Distance routière mise en cache entre deux points (coordonnées arrondies).
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "route_distance_cache", indexes = {
+    @Index(name = "idx_route_distance_from", columnList = "from_lat, from_lon"),
+    @Index(name = "idx_route_distance_to", columnList = "to_lat, to_lon")
+})
+public class RouteDistance {
+    @EqualsAndHashCode.Include
+    @Id
+    @Column(name = "pair_key")
+    private String pairKey;
+
+    @Column(name = "from_lat", nullable = false)
+    private Double fromLat;
+
+    @Column(name = "from_lon", nullable = false)
+    private Double fromLon;
+
+    @Column(name = "to_lat", nullable = false)
+    private Double toLat;
+
+    @Column(name = "to_lon", nullable = false)
+    private Double toLon;
+
+    @Column(name = "distance_km", nullable = false)
+    private Double distanceKm;
+
+    @Column(name = "duration_min")
+    private Double durationMin;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
@@ -71,6 +71,14 @@ public class Tour {
     @Column(name = "geometry", columnDefinition = "TEXT")
     private String geometry;
 
+    // Itinéraire à recalculer (TourRouteService) : geometry et estimations pas encore à jour
+    @Column(name = "route_pending")
+    private Boolean routePending;
+
+    // Incrémenté à chaque demande de recalcul ; écrit seulement par TourRepository.markRoutePending
+    @Column(name = "route_version", insertable = false, updatable = false)
+    private Long routeVersion;
+
     @ManyToOne
     @JoinColumn(name = "id_account")
     private Account account;
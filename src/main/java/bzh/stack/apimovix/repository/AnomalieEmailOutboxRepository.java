@@ -0,0 +1,50 @@
+package bzh.stack.apimovix.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import bzh.stack.apimovix.model.AnomalieEmailOutbox;
+import bzh.stack.apimovix.model.AnomalieEmailOutbox.Status;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface AnomalieEmailOutboxRepository extends JpaRepository<AnomalieEmailOutbox, UUID> {
+
+    /**
+     * Emails à envoyer, verrouillés (FOR UPDATE SKIP LOCKED) : plusieurs instances peuvent dépiler en parallèle
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM AnomalieEmailOutbox o WHERE o.status = :status AND o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt")
+    public List<AnomalieEmailOutbox> findDueForUpdate(@Param("status") Status status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    public long countByStatus(Status status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE AnomalieEmailOutbox o SET o.status = :status, o.sentAt = :sentAt, o.lastError = null WHERE o.id = :id")
+    public int markSent(@Param("id") UUID id, @Param("status") Status status, @Param("sentAt") LocalDateTime sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE AnomalieEmailOutbox o SET o.status = :status, o.nextAttemptAt = :nextAttemptAt, o.lastError = :error WHERE o.id = :id")
+    public int markFailedAttempt(@Param("id") UUID id, @Param("status") Status status,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AnomalieEmailOutbox o WHERE o.status = :status AND o.createdAt < :before")
+    public int deleteByStatusCreatedBefore(@Param("status") Status status, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,20 @@
+package bzh.stack.apimovix.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import bzh.stack.apimovix.model.IdBlock;
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface IdBlockRepository extends JpaRepository<IdBlock, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM IdBlock b WHERE b.name = :name")
+    public Optional<IdBlock> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,31 @@
+package bzh.stack.apimovix.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import bzh.stack.apimovix.model.ImporterIdempotencyKey;
+
+@Repository
+public interface ImporterIdempotencyKeyRepository extends JpaRepository<ImporterIdempotencyKey, String> {
+
+    /**
+     * Insère la clé dans la transaction en cours ; 0 si elle est déjà enregistrée
+     * (attend la fin d'une transaction concurrente qui insère la même clé)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO importer_idempotency_key (id, response, created_at) VALUES (:id, :response, :createdAt) " +
+                   "ON CONFLICT (id) DO NOTHING", nativeQuery = true)
+    public int insertIfAbsent(@Param("id") String id, @Param("response") String response,
+                              @Param("createdAt") LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ImporterIdempotencyKey k WHERE k.createdAt < :before")
+    public int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,9 +1,14 @@
 package bzh.stack.apimovix.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import bzh.stack.apimovix.model.ImporterToken;
 
@@ -15,4 +20,9 @@ public interface ImporterTokenRepository extends JpaRepository<ImporterToken, UU
     Optional<ImporterToken> findByTokenAndIsActiveTrueAndIsBetaProxyTrue(String token);
 
     boolean existsByToken(String token);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImporterToken t SET t.lastUsedAt = :lastUsedAt WHERE t.token = :token AND (t.lastUsedAt IS NULL OR t.lastUsedAt < :lastUsedAt)")
+    int updateLastUsedAt(@Param("token") String token, @Param("lastUsedAt") LocalDateTime lastUsedAt);
 }
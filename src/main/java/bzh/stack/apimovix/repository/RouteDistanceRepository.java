@@ -0,0 +1,37 @@
+package bzh.stack.apimovix.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import bzh.stack.apimovix.model.RouteDistance;
+
+@Repository
+public interface RouteDistanceRepository extends JpaRepository<RouteDistance, String> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RouteDistance rd WHERE (rd.fromLat = :lat AND rd.fromLon = :lon) OR (rd.toLat = :lat AND rd.toLon = :lon)")
+    public int deleteByPoint(@Param("lat") Double lat, @Param("lon") Double lon);
+
+    @Modifying
+    @Query(value = "INSERT INTO route_distance_cache (pair_key, from_lat, from_lon, to_lat, to_lon, distance_km, duration_min, computed_at) " +
+                   "VALUES (:pairKey, :fromLat, :fromLon, :toLat, :toLon, :distanceKm, :durationMin, :computedAt) " +
+                   "ON CONFLICT (pair_key) DO UPDATE SET distance_km = EXCLUDED.distance_km, duration_min = EXCLUDED.duration_min, " +
+                   "computed_at = EXCLUDED.computed_at", nativeQuery = true)
+    public int upsert(@Param("pairKey") String pairKey,
+                      @Param("fromLat") Double fromLat, @Param("fromLon") Double fromLon,
+                      @Param("toLat") Double toLat, @Param("toLon") Double toLon,
+                      @Param("distanceKm") Double distanceKm, @Param("durationMin") Double durationMin,
+                      @Param("computedAt") LocalDateTime computedAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RouteDistance rd WHERE rd.computedAt < :before")
+    public int deleteComputedBefore(@Param("before") LocalDateTime before);
+}
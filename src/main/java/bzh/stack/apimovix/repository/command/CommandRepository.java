@@ -1,6 +1,7 @@
 package bzh.stack.apimovix.repository.command;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -26,6 +27,14 @@ public interface CommandRepository extends JpaRepository<Command, UUID> {
            "ORDER BY c.expDate DESC LIMIT 1")
     public Command findPharmacyCommandByDate(@Param("account") Account account, @Param("cip") String cip, @Param("date") LocalDateTime date);
 
+    @Query("SELECT c FROM Command c " +
+           "LEFT JOIN FETCH c.pharmacy p " +
+           "WHERE c.pharmacy.cip IN :cips AND c.sender.account = :account " +
+           "AND (c.lastHistoryStatus IS NULL OR c.lastHistoryStatus.status.id = 1) " +
+           "AND c.expDate >= :startDate AND c.expDate < :endDate " +
+           "ORDER BY c.expDate DESC")
+    public List<Command> findPharmacyCommandsByDates(@Param("account") Account account, @Param("cips") Collection<String> cips, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
 
     @Query("SELECT DISTINCT c FROM Command c " +
            "LEFT JOIN FETCH c.tour t " +
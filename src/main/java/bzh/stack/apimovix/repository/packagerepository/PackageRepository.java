@@ -1,5 +1,6 @@
 package bzh.stack.apimovix.repository.packagerepository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -23,6 +24,12 @@ public interface PackageRepository extends JpaRepository<PackageEntity, String>
     @Query("SELECT p FROM PackageEntity p WHERE p.command.sender.account = :account AND p.barcode IN :barcodes")
     List<PackageEntity> findAllByIdIn(@Param("account") Account account, @Param("barcodes") List<String> barcodes);
 
+    @Query("SELECT p.barcode FROM PackageEntity p WHERE p.barcode IN :barcodes")
+    List<String> findExistingBarcodes(@Param("barcodes") Collection<String> barcodes);
+
+    @Query("SELECT p.barcode FROM PackageEntity p WHERE p.barcode BETWEEN :from AND :to")
+    List<String> findBarcodesBetween(@Param("from") String from, @Param("to") String to);
+
     @Query("SELECT DISTINCT p FROM PackageEntity p LEFT JOIN FETCH p.command c LEFT JOIN FETCH c.pharmacy ph WHERE p.barcode LIKE %:barcodePattern%")
     List<PackageEntity> findByBarcodeContaining(@Param("barcodePattern") String barcodePattern);
 } 
\ No newline at end of file
@@ -1,5 +1,6 @@
 package bzh.stack.apimovix.repository.pharmacy;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -67,6 +68,9 @@ public interface PharmacyRepository extends JpaRepository<Pharmacy, String> {
     @Query("SELECT p FROM Pharmacy p WHERE p.cip = :cip")
     Pharmacy findPharmacyByCipOnly(@Param("cip") String cip);
 
+    @Query("SELECT DISTINCT p FROM Pharmacy p LEFT JOIN FETCH p.pharmacyInformationsList WHERE p.cip IN :cips")
+    List<Pharmacy> findPharmaciesByCips(@Param("cips") Collection<String> cips);
+
     @Query(value = "SELECT p.cip FROM pharmacy p " +
            "WHERE (:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) " +
            "AND (:city IS NULL OR LOWER(p.city) LIKE LOWER(CONCAT('%', :city, '%'))) " +
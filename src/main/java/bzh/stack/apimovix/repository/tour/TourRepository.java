@@ -1,13 +1,17 @@
 package bzh.stack.apimovix.repository.tour;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import bzh.stack.apimovix.dto.tour.TourGeometryDTO;
 import bzh.stack.apimovix.model.Account;
 import bzh.stack.apimovix.model.Profil;
 import bzh.stack.apimovix.model.Tour;
@@ -55,6 +59,29 @@ public interface TourRepository extends JpaRepository<Tour, String> {
            "ORDER BY t.name, c.tourOrder")
     Tour findTour(@Param("account") Account account, @Param("id") String id);
 
+    @Query("SELECT new bzh.stack.apimovix.dto.tour.TourGeometryDTO(t.id, t.geometry, t.routePending) FROM Tour t " +
+           "WHERE t.id = :id AND t.account = :account")
+    TourGeometryDTO findTourGeometry(@Param("account") Account account, @Param("id") String id);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE tour SET route_pending = true, route_version = COALESCE(route_version, 0) + 1 " +
+                   "WHERE id IN (:ids)", nativeQuery = true)
+    int markRoutePending(@Param("ids") Collection<String> ids);
+
+    /**
+     * Écrit l'itinéraire seulement si aucun recalcul n'a été demandé depuis la lecture de routeVersion ; 0 sinon
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Tour t SET t.geometry = :geometry, t.estimateKm = :estimateKm, t.estimateMins = :estimateMins, " +
+           "t.routePending = false WHERE t.id = :id AND COALESCE(t.routeVersion, 0) = :routeVersion")
+    int updateRoute(@Param("id") String id, @Param("routeVersion") long routeVersion, @Param("geometry") String geometry,
+            @Param("estimateKm") Double estimateKm, @Param("estimateMins") Double estimateMins);
+
+    @Query("SELECT t FROM Tour t WHERE t.routePending = true")
+    List<Tour> findRoutePending();
+
     @Query("SELECT DISTINCT t FROM Tour t " +
            "LEFT JOIN FETCH t.profil " +
            "LEFT JOIN FETCH t.lastHistoryStatus " +
@@ -2,6 +2,7 @@ package bzh.stack.apimovix.service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,6 +15,7 @@ import bzh.stack.apimovix.model.Account;
 import bzh.stack.apimovix.model.Picture.AccountLogo;
 import bzh.stack.apimovix.repository.AccountLogoRepository;
 import bzh.stack.apimovix.repository.AccountRepository;
+import bzh.stack.apimovix.service.pdfGenerator.PdfAssetCache;
 import bzh.stack.apimovix.service.picture.PictureService;
 import lombok.RequiredArgsConstructor;
 
@@ -24,6 +26,10 @@ public class AccountService {
     private final AccountRepository accountRepository;
     private final AccountLogoRepository accountLogoRepository;
     private final PictureService pictureService;
+    private final PrincipalCacheService principalCacheService;
+    private final RouteDistanceCacheService routeDistanceCacheService;
+    private final SmtpSenderPool smtpSenderPool;
+    private final PdfAssetCache pdfAssetCache;
     
     @Transactional(readOnly = true)
     public Optional<Account> findAccountById(UUID id) {
@@ -34,6 +40,8 @@ public class AccountService {
     public Account updateAccount(UUID accountId, AccountUpdateDTO updateDTO) {
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> new RuntimeException("Compte non trouvé"));
+        Double previousLatitude = account.getLatitude();
+        Double previousLongitude = account.getLongitude();
         
         // Mise à jour des champs autorisés (seulement si non-null)
         if (updateDTO.getSociete() != null) {
@@ -137,8 +145,19 @@ public class AccountService {
                     }
                 }
             }
+            // Logo en niveaux de gris des PDF calculé depuis l'ancien fichier
+            pdfAssetCache.invalidateLogo(accountId);
         }
 
+        // Les distances calculées depuis l'ancien dépôt ne sont plus valables
+        if (!Objects.equals(previousLatitude, account.getLatitude())
+                || !Objects.equals(previousLongitude, account.getLongitude())) {
+            routeDistanceCacheService.invalidatePoint(previousLatitude, previousLongitude);
+        }
+
+        principalCacheService.evictAccount(accountId);
+        // Connexion SMTP ouverte avec l'ancienne configuration
+        smtpSenderPool.invalidate(accountId);
         return accountRepository.save(account);
     }
 
@@ -182,6 +201,7 @@ public class AccountService {
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> new RuntimeException("Compte non trouvé"));
         accountRepository.delete(account);
+        principalCacheService.evictAccount(accountId);
     }
 
     @Transactional(readOnly = true)
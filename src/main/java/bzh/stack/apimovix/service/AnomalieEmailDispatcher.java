@@ -0,0 +1,276 @@
+package bzh.stack.apimovix.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import bzh.stack.apimovix.model.Anomalie;
+import bzh.stack.apimovix.model.AnomalieEmailOutbox;
+import bzh.stack.apimovix.model.AnomalieEmailOutbox.Status;
+import bzh.stack.apimovix.repository.AnomalieEmailOutboxRepository;
+import bzh.stack.apimovix.service.pdfGenerator.PdfGeneratorService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Envoi des emails d'anomalie en file (table anomalie_email_outbox) :
+ * - les enregistrements dus sont réservés par lot (FOR UPDATE SKIP LOCKED) en repoussant next_attempt_at
+ *   de app.anomalie.email.lease-seconds : une instance arrêtée en cours d'envoi laisse l'email repartir ensuite
+ * - un pool dédié charge l'anomalie (transaction courte), puis génère le PDF une fois par anomalie et envoie
+ *   à chaque destinataire hors transaction
+ * - échec : nouvel essai avec délai exponentiel, abandon (FAILED) après app.anomalie.email.max-attempts
+ * Métriques : anomalie.email.outbox.pending, anomalie.email.outbox.in_flight,
+ * anomalie.email.send (outcome=success|failure), anomalie.email.pdf, anomalie.email.abandoned.
+ */
+@Slf4j
+@Service
+public class AnomalieEmailDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final AnomalieEmailOutboxRepository outboxRepository;
+    private final AnomalieService anomalieService;
+    private final AccountService accountService;
+    private final PdfGeneratorService pdfGeneratorService;
+    private final EmailService emailService;
+    private final TransactionTemplate claimTransaction;
+    private final TransactionTemplate deliveryTransaction;
+    private final ThreadPoolTaskExecutor executor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseSeconds;
+    private final long initialBackoffSeconds;
+    private final long maxBackoffSeconds;
+    private final long retentionDays;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer sendSuccessTimer;
+    private final Timer sendFailureTimer;
+    private final Timer pdfTimer;
+    private final Counter abandonedCounter;
+
+    public AnomalieEmailDispatcher(
+            AnomalieEmailOutboxRepository outboxRepository,
+            AnomalieService anomalieService,
+            AccountService accountService,
+            PdfGeneratorService pdfGeneratorService,
+            EmailService emailService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.anomalie.email.workers:2}") int workers,
+            @Value("${app.anomalie.email.batch-size:20}") int batchSize,
+            @Value("${app.anomalie.email.max-attempts:8}") int maxAttempts,
+            @Value("${app.anomalie.email.lease-seconds:300}") long leaseSeconds,
+            @Value("${app.anomalie.email.initial-backoff-seconds:30}") long initialBackoffSeconds,
+            @Value("${app.anomalie.email.max-backoff-seconds:3600}") long maxBackoffSeconds,
+            @Value("${app.anomalie.email.retention-days:30}") long retentionDays) {
+        this.outboxRepository = outboxRepository;
+        this.anomalieService = anomalieService;
+        this.accountService = accountService;
+        this.pdfGeneratorService = pdfGeneratorService;
+        this.emailService = emailService;
+        this.claimTransaction = new TransactionTemplate(transactionManager);
+        this.deliveryTransaction = new TransactionTemplate(transactionManager);
+        this.deliveryTransaction.setReadOnly(true);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.leaseSeconds = leaseSeconds;
+        this.initialBackoffSeconds = initialBackoffSeconds;
+        this.maxBackoffSeconds = maxBackoffSeconds;
+        this.retentionDays = retentionDays;
+
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(workers);
+        this.executor.setMaxPoolSize(workers);
+        this.executor.setQueueCapacity(batchSize);
+        this.executor.setThreadNamePrefix("AnomalieEmail-");
+        this.executor.initialize();
+
+        Gauge.builder("anomalie.email.outbox.pending", pending, AtomicLong::get)
+                .description("Emails d'anomalie en attente d'envoi")
+                .register(meterRegistry);
+        Gauge.builder("anomalie.email.outbox.in_flight", inFlight, AtomicInteger::get)
+                .description("Emails d'anomalie en cours d'envoi sur cette instance")
+                .register(meterRegistry);
+        this.sendSuccessTimer = Timer.builder("anomalie.email.send").tag("outcome", "success").register(meterRegistry);
+        this.sendFailureTimer = Timer.builder("anomalie.email.send").tag("outcome", "failure").register(meterRegistry);
+        this.pdfTimer = Timer.builder("anomalie.email.pdf").register(meterRegistry);
+        this.abandonedCounter = Counter.builder("anomalie.email.abandoned").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${app.anomalie.email.poll-interval-ms:2000}")
+    public void dispatchDueEmails() {
+        pending.set(outboxRepository.countByStatus(Status.PENDING));
+        int capacity = batchSize - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+
+        List<AnomalieEmailOutbox> claimed = claim(capacity);
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        // Un PDF par anomalie, partagé entre ses destinataires
+        Map<UUID, List<AnomalieEmailOutbox>> byAnomalie = new LinkedHashMap<>();
+        claimed.forEach(entry -> byAnomalie.computeIfAbsent(entry.getAnomalieId(), id -> new ArrayList<>()).add(entry));
+
+        byAnomalie.values().forEach(entries -> {
+            inFlight.addAndGet(entries.size());
+            try {
+                executor.execute(() -> {
+                    try {
+                        deliver(entries);
+                    } finally {
+                        inFlight.addAndGet(-entries.size());
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                // Réservation conservée : l'envoi repartira à l'expiration du bail
+                inFlight.addAndGet(-entries.size());
+                log.warn("File d'envoi des emails d'anomalie saturee, {} emails reportes", entries.size());
+            }
+        });
+    }
+
+    @Scheduled(cron = "0 15 3 * * *")
+    public void purgeSentEmails() {
+        int deleted = outboxRepository.deleteByStatusCreatedBefore(Status.SENT, LocalDateTime.now().minusDays(retentionDays));
+        log.info("Nettoyage de la file des emails d'anomalie : {} envois supprimes", deleted);
+    }
+
+    private List<AnomalieEmailOutbox> claim(int limit) {
+        return claimTransaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<AnomalieEmailOutbox> due = outboxRepository.findDueForUpdate(Status.PENDING, now, PageRequest.of(0, limit));
+            for (AnomalieEmailOutbox entry : due) {
+                entry.setAttempts(entry.getAttempts() + 1);
+                entry.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return due;
+        });
+    }
+
+    /**
+     * Charge l'anomalie dans une transaction courte, puis génère le PDF et envoie à chaque destinataire
+     * hors transaction ; les résultats sont enregistrés après coup
+     */
+    private void deliver(List<AnomalieEmailOutbox> entries) {
+        AnomalieEmailOutbox first = entries.get(0);
+        Map<AnomalieEmailOutbox, Exception> failures = new HashMap<>();
+        try {
+            Optional<Anomalie> anomalieOpt = loadDetached(first);
+            if (anomalieOpt.isEmpty()) {
+                entries.forEach(entry -> abandon(entry, "Anomalie introuvable"));
+                return;
+            }
+            Anomalie anomalie = anomalieOpt.get();
+            byte[] pdfBytes = renderPdf(anomalie);
+            for (AnomalieEmailOutbox entry : entries) {
+                long start = System.nanoTime();
+                try {
+                    emailService.deliverAnomalieNotificationEmail(anomalie, pdfBytes, entry.getRecipient());
+                    sendSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } catch (Exception e) {
+                    sendFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    failures.put(entry, e);
+                }
+            }
+        } catch (Exception e) {
+            // Chargement ou PDF en erreur : tous les destinataires sont replanifiés
+            log.warn("Preparation de l'email de l'anomalie {} en erreur : {}", first.getAnomalieId(), e.getMessage());
+            entries.forEach(entry -> retry(entry, e));
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (AnomalieEmailOutbox entry : entries) {
+            Exception failure = failures.get(entry);
+            if (failure == null) {
+                outboxRepository.markSent(entry.getId(), Status.SENT, now);
+            } else {
+                retry(entry, failure);
+            }
+        }
+    }
+
+    /**
+     * Anomalie avec tout ce que lisent le PDF et l'email (colis, photos, pharmacie, profil, type, compte),
+     * détachée à la fin de la transaction : aucune connexion n'est gardée pendant le rendu et l'envoi SMTP
+     */
+    private Optional<Anomalie> loadDetached(AnomalieEmailOutbox entry) {
+        return deliveryTransaction.execute(status -> {
+            Optional<Anomalie> anomalie = accountService.findAccountById(entry.getAccountId())
+                    .flatMap(account -> anomalieService.findAnomalie(account, entry.getAnomalieId()));
+            anomalie.ifPresent(a -> {
+                Hibernate.initialize(a.getPackages());
+                Hibernate.initialize(a.getPictures());
+            });
+            return anomalie;
+        });
+    }
+
+    private byte[] renderPdf(Anomalie anomalie) {
+        Timer.Sample sample = Timer.start();
+        try {
+            return pdfGeneratorService.generateAnomaliePdf(anomalie);
+        } catch (IOException e) {
+            throw new RuntimeException("Erreur lors de la generation du PDF d'anomalie", e);
+        } finally {
+            sample.stop(pdfTimer);
+        }
+    }
+
+    private void retry(AnomalieEmailOutbox entry, Exception error) {
+        String message = errorMessage(error);
+        if (entry.getAttempts() >= maxAttempts) {
+            abandon(entry, message);
+            return;
+        }
+        long delay = Math.min(maxBackoffSeconds, initialBackoffSeconds << Math.min(entry.getAttempts() - 1, 20));
+        outboxRepository.markFailedAttempt(entry.getId(), Status.PENDING, LocalDateTime.now().plusSeconds(delay), message);
+        log.warn("Email d'anomalie {} vers {} en echec (essai {}), nouvel essai dans {}s : {}",
+                entry.getAnomalieId(), entry.getRecipient(), entry.getAttempts(), delay, message);
+    }
+
+    private void abandon(AnomalieEmailOutbox entry, String message) {
+        outboxRepository.markFailedAttempt(entry.getId(), Status.FAILED, entry.getNextAttemptAt(), message);
+        abandonedCounter.increment();
+        log.error("Email d'anomalie {} vers {} abandonne apres {} essais : {}",
+                entry.getAnomalieId(), entry.getRecipient(), entry.getAttempts(), message);
+    }
+
+    private static String errorMessage(Exception error) {
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
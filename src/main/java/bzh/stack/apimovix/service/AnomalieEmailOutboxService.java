@@ -0,0 +1,65 @@
+package bzh.stack.apimovix.service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import bzh.stack.apimovix.model.Account;
+import bzh.stack.apimovix.model.Anomalie;
+import bzh.stack.apimovix.model.AnomalieEmailOutbox;
+import bzh.stack.apimovix.repository.AnomalieEmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Mise en file des emails de notification d'anomalie : un enregistrement par destinataire,
+ * écrit dans la transaction de création de l'anomalie. L'envoi est fait par AnomalieEmailDispatcher.
+ */
+@Service
+@RequiredArgsConstructor
+public class AnomalieEmailOutboxService {
+
+    private final AnomalieEmailOutboxRepository outboxRepository;
+
+    @Transactional
+    public int enqueue(Anomalie anomalie) {
+        Account account = anomalie.getAccount();
+        List<String> recipients = recipients(account.getAnomaliesEmails());
+        if (recipients.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<AnomalieEmailOutbox> entries = recipients.stream().map(recipient -> {
+            AnomalieEmailOutbox entry = new AnomalieEmailOutbox();
+            entry.setId(UUID.randomUUID());
+            entry.setAnomalieId(anomalie.getId());
+            entry.setAccountId(account.getId());
+            entry.setRecipient(recipient);
+            entry.setStatus(AnomalieEmailOutbox.Status.PENDING);
+            entry.setAttempts(0);
+            entry.setNextAttemptAt(now);
+            entry.setCreatedAt(now);
+            return entry;
+        }).toList();
+        outboxRepository.saveAll(entries);
+        return entries.size();
+    }
+
+    /**
+     * Adresses séparées par des virgules ou points-virgules, sans doublon
+     */
+    private static List<String> recipients(String anomaliesEmails) {
+        if (anomaliesEmails == null || anomaliesEmails.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(anomaliesEmails.split("[;,]"))
+                .map(String::trim)
+                .filter(email -> !email.isEmpty())
+                .distinct()
+                .toList();
+    }
+}
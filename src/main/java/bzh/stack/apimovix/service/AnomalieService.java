@@ -12,9 +12,9 @@ import java.util.stream.Collectors;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
 import bzh.stack.apimovix.dto.anomalie.AnomalieCreateDTO;
 import bzh.stack.apimovix.dto.anomalie.AnomalieEmailDTO;
@@ -52,6 +52,7 @@ public class AnomalieService {
     private final PackageService packageService;
     private final PictureService pictureService;
     private final EmailService emailService;
+    private final AnomalieEmailOutboxService anomalieEmailOutboxService;
     private final NotificationService notificationService;
     private final PdfGeneratorService pdfGeneratorService;
 
@@ -233,27 +234,14 @@ public class AnomalieService {
             log.error("Error creating notification for anomalie: {}", e.getMessage(), e);
         }
 
-        // Envoyer l'email de notification de manière asynchrone seulement si l'envoi automatique est activé
+        // Email de notification mis en file dans la même transaction, envoyé par AnomalieEmailDispatcher
         if (profil.getAccount().getAutoSendAnomalieEmails() != null && profil.getAccount().getAutoSendAnomalieEmails()) {
-            sendAnomalieEmailAsync(finalAnomalie);
+            anomalieEmailOutboxService.enqueue(finalAnomalie);
         }
 
         return Optional.of(finalAnomalie);
     }
 
-    /**
-     * Envoie l'email d'anomalie de manière asynchrone pour ne pas bloquer la transaction
-     */
-    @Async("taskExecutor")
-    public void sendAnomalieEmailAsync(Anomalie anomalie) {
-        try {
-            byte[] pdfBytes = pdfGeneratorService.generateAnomaliePdf(anomalie);
-            emailService.sendAnomalieNotificationEmail(anomalie, pdfBytes);
-        } catch (Exception e) {
-            // Erreur silencieuse pour ne pas bloquer la création de l'anomalie
-        }
-    }
-
     @Transactional
     public Optional<Anomalie> updateAnomalie(Account account, UUID id, AnomalieUpdateDTO updateDTO) {
         Optional<Anomalie> anomalieOpt = findAnomalie(account, id);
@@ -299,6 +287,22 @@ public class AnomalieService {
     @Transactional
     public Optional<AnomaliePicture> createAnomaliePicture(Anomalie anomalie, String base64Image) {
         String fileName = pictureService.saveAnomalieImage(anomalie, base64Image);
+        return buildAnomaliePicture(anomalie, fileName);
+    }
+
+    @Transactional
+    public Optional<AnomaliePicture> addUploadedPicture(Anomalie anomalie, MultipartFile file) {
+        String fileName = pictureService.saveAnomalieImage(anomalie, file);
+        Optional<AnomaliePicture> picture = buildAnomaliePicture(anomalie, fileName);
+        picture.ifPresent(p -> {
+            anomaliePictureRepository.save(p);
+            anomalie.getPictures().add(p);
+            anomalieRepository.save(anomalie);
+        });
+        return picture;
+    }
+
+    private Optional<AnomaliePicture> buildAnomaliePicture(Anomalie anomalie, String fileName) {
         if (fileName == null) {
             return Optional.empty();
         }
@@ -0,0 +1,273 @@
+package bzh.stack.apimovix.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import bzh.stack.apimovix.dto.importer.BulkSendCommandResponseDTO;
+import bzh.stack.apimovix.dto.importer.BulkSendCommandResultDTO;
+import bzh.stack.apimovix.dto.importer.SendCommandRequestDTO;
+import bzh.stack.apimovix.dto.importer.SendCommandResponseDTO;
+import bzh.stack.apimovix.service.PrincipalCacheService.ImporterPrincipal;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Import en masse de commandes (tableau JSON ou NDJSON) :
+ * - le corps est lu en flux, commande par commande
+ * - chaque commande est validée comme sur /command/send (contraintes, code expéditeur du token)
+ * - les commandes valides sont importées par lots de app.importer.bulk.chunk-size via ImporterService.sendCommandBatch
+ * - si un lot échoue, ses commandes sont rejouées une par une pour isoler l'erreur
+ * - les commandes portant une clé d'idempotence déjà traitée ou en cours ne sont pas réimportées
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkImporterService {
+
+    private static final String STATUS_SUCCESS = "success";
+    private static final String STATUS_ERROR = "error";
+
+    private final ImporterService importerService;
+    private final ImporterIdempotencyService importerIdempotencyService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${app.importer.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    public BulkSendCommandResponseDTO sendCommands(InputStream body, boolean ndjson, ImporterPrincipal token) throws IOException {
+        BulkImport bulkImport = new BulkImport(token);
+        ObjectReader reader = objectMapper.readerFor(SendCommandRequestDTO.class);
+
+        if (ndjson) {
+            BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    bulkImport.add(reader.readValue(line));
+                } catch (JsonProcessingException e) {
+                    bulkImport.reject("JSON invalide : " + e.getOriginalMessage());
+                }
+            }
+        } else {
+            // Tableau JSON : les éléments sont désérialisés un à un
+            try (MappingIterator<SendCommandRequestDTO> iterator = reader.readValues(body)) {
+                while (iterator.hasNextValue()) {
+                    try {
+                        bulkImport.add(iterator.nextValue());
+                    } catch (JsonParseException e) {
+                        throw e;
+                    } catch (JsonProcessingException e) {
+                        bulkImport.reject("JSON invalide : " + e.getOriginalMessage());
+                    }
+                }
+            } catch (JsonParseException e) {
+                // Syntaxe invalide : impossible de reprendre la lecture, les commandes déjà lues sont importées
+                bulkImport.reject("JSON invalide, lecture interrompue : " + e.getOriginalMessage());
+            }
+        }
+
+        bulkImport.flush();
+        return bulkImport.response();
+    }
+
+    /**
+     * État d'un import : commandes en attente du prochain lot et résultats
+     */
+    private class BulkImport {
+        private final ImporterPrincipal token;
+        private final List<Integer> pendingIndexes = new ArrayList<>();
+        private final List<SendCommandRequestDTO> pendingBodies = new ArrayList<>();
+        private final List<BulkSendCommandResultDTO> results = new ArrayList<>();
+        private int nextIndex;
+
+        BulkImport(ImporterPrincipal token) {
+            this.token = token;
+        }
+
+        void add(SendCommandRequestDTO body) {
+            int index = nextIndex++;
+            String error = validate(body);
+            if (error != null) {
+                results.add(error(index, error));
+                return;
+            }
+            pendingIndexes.add(index);
+            pendingBodies.add(body);
+            if (pendingBodies.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(String message) {
+            results.add(error(nextIndex++, message));
+        }
+
+        void flush() {
+            if (pendingBodies.isEmpty()) {
+                return;
+            }
+
+            List<String> ids = pendingBodies.stream()
+                .map(body -> ImporterIdempotencyService.storageKey(token, body, body.getIdempotency_key()))
+                .toList();
+            Map<String, SendCommandResponseDTO> processed = importerIdempotencyService.findProcessed(
+                ids.stream().filter(Objects::nonNull).toList());
+
+            // Positions (dans pending) à importer, et celles qui attendent un envoi de la même clé déjà en cours
+            List<Integer> toImport = new ArrayList<>();
+            Map<Integer, CompletableFuture<SendCommandResponseDTO>> waiting = new LinkedHashMap<>();
+            for (int i = 0; i < pendingBodies.size(); i++) {
+                String id = ids.get(i);
+                if (id == null) {
+                    toImport.add(i);
+                } else if (processed.containsKey(id)) {
+                    results.add(success(pendingIndexes.get(i), processed.get(id)));
+                } else {
+                    CompletableFuture<SendCommandResponseDTO> running = importerIdempotencyService.claim(id);
+                    if (running == null) {
+                        toImport.add(i);
+                    } else {
+                        waiting.put(i, running);
+                    }
+                }
+            }
+
+            importPending(toImport, ids);
+
+            // Attendre seulement après avoir libéré nos propres clés (doublons dans ce lot, autres envois)
+            waiting.forEach((i, running) -> {
+                try {
+                    results.add(success(pendingIndexes.get(i), importerIdempotencyService.await(running)));
+                } catch (Exception e) {
+                    results.add(error(pendingIndexes.get(i), e.getMessage()));
+                }
+            });
+
+            pendingIndexes.clear();
+            pendingBodies.clear();
+        }
+
+        private void importPending(List<Integer> positions, List<String> ids) {
+            if (positions.isEmpty()) {
+                return;
+            }
+            // Positions dont ce lot détient encore la clé : importClaimed libère la sienne dans tous les cas,
+            // importClaimedBatch seulement en cas de succès
+            Set<Integer> owned = new HashSet<>();
+            for (int i : positions) {
+                if (ids.get(i) != null) {
+                    owned.add(i);
+                }
+            }
+            try {
+                List<SendCommandResponseDTO> responses = importerIdempotencyService.importClaimedBatch(
+                    positions.stream().map(ids::get).toList(),
+                    () -> importerService.sendCommandBatch(positions.stream().map(pendingBodies::get).toList()));
+                owned.clear();
+                for (int k = 0; k < positions.size(); k++) {
+                    results.add(success(pendingIndexes.get(positions.get(k)), responses.get(k)));
+                }
+            } catch (Exception e) {
+                log.warn("Échec de l'import par lot ({} commandes), reprise commande par commande : {}",
+                    positions.size(), e.getMessage());
+                for (int i : positions) {
+                    String id = ids.get(i);
+                    SendCommandRequestDTO body = pendingBodies.get(i);
+                    try {
+                        SendCommandResponseDTO response;
+                        if (id != null) {
+                            owned.remove(i);
+                            response = importerIdempotencyService.importClaimed(id, () -> importerService.sendCommand(body));
+                        } else {
+                            response = importerService.sendCommand(body);
+                        }
+                        results.add(success(pendingIndexes.get(i), response));
+                    } catch (Exception itemException) {
+                        results.add(error(pendingIndexes.get(i), itemException.getMessage()));
+                    }
+                }
+            } finally {
+                // Clés encore détenues (erreur inattendue) : libérées pour ne pas bloquer les envois suivants.
+                // Une clé déjà libérée a pu être réservée par un autre envoi : elle n'est pas touchée.
+                for (int i : owned) {
+                    importerIdempotencyService.fail(ids.get(i), new IllegalStateException("Import interrompu"));
+                }
+            }
+        }
+
+        BulkSendCommandResponseDTO response() {
+            results.sort(Comparator.comparing(BulkSendCommandResultDTO::getIndex));
+            BulkSendCommandResponseDTO response = new BulkSendCommandResponseDTO();
+            response.setTotal(results.size());
+            response.setSucceeded((int) results.stream().filter(r -> STATUS_SUCCESS.equals(r.getStatus())).count());
+            response.setFailed(response.getTotal() - response.getSucceeded());
+            response.setResults(results);
+            return response;
+        }
+
+        private String validate(SendCommandRequestDTO body) {
+            if (body == null) {
+                return "Commande vide";
+            }
+            Set<ConstraintViolation<SendCommandRequestDTO>> violations = validator.validate(body);
+            if (!violations.isEmpty()) {
+                return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("\n"));
+            }
+            // Même règle que /command/send : le sender.code doit correspondre au expCode du token
+            String expCode = token != null ? token.expCode() : null;
+            if (expCode != null && !expCode.isEmpty() && !expCode.equals(body.getSender().getCode())) {
+                return "Le code expéditeur ne correspond pas au token utilisé";
+            }
+            return null;
+        }
+    }
+
+    private BulkSendCommandResultDTO success(int index, SendCommandResponseDTO response) {
+        BulkSendCommandResultDTO result = new BulkSendCommandResultDTO();
+        result.setIndex(index);
+        result.setStatus(STATUS_SUCCESS);
+        result.setMessage(response.getMessage());
+        result.setId_command(response.getId_command());
+        result.setPackages(response.getPackages());
+        return result;
+    }
+
+    private BulkSendCommandResultDTO error(int index, String message) {
+        BulkSendCommandResultDTO result = new BulkSendCommandResultDTO();
+        result.setIndex(index);
+        result.setStatus(STATUS_ERROR);
+        result.setMessage(message);
+        return result;
+    }
+}
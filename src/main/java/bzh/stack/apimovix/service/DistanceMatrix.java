@@ -0,0 +1,81 @@
+package bzh.stack.apimovix.service;
+
+import java.util.Arrays;
+
+/**
+ * Matrice NxN des distances (km) et durées (min) entre points, stockée à plat : [from * size + to].
+ * Durée NaN si inconnue.
+ */
+public final class DistanceMatrix {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final int size;
+    private final double[] distanceKm;
+    private final double[] durationMin;
+
+    public DistanceMatrix(int size) {
+        this.size = size;
+        this.distanceKm = new double[size * size];
+        this.durationMin = new double[size * size];
+        Arrays.fill(durationMin, Double.NaN);
+    }
+
+    /**
+     * Approximation à vol d'oiseau : distance haversine × roadFactor, durée à averageSpeedKmh
+     *
+     * @param latLng coordonnées à plat [lat0, lon0, lat1, lon1, ...]
+     */
+    public static DistanceMatrix approximate(double[] latLng, double roadFactor, double averageSpeedKmh) {
+        int size = latLng.length / 2;
+        DistanceMatrix matrix = new DistanceMatrix(size);
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                double km = haversineKm(latLng[2 * i], latLng[2 * i + 1], latLng[2 * j], latLng[2 * j + 1]) * roadFactor;
+                double minutes = km / averageSpeedKmh * 60.0;
+                matrix.set(i, j, km, minutes);
+                matrix.set(j, i, km, minutes);
+            }
+        }
+        return matrix;
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Sous-matrice dans l'ordre demandé : ligne/colonne k = ligne/colonne indexes[k] de cette matrice
+     */
+    public DistanceMatrix select(int[] indexes) {
+        DistanceMatrix selected = new DistanceMatrix(indexes.length);
+        for (int i = 0; i < indexes.length; i++) {
+            int row = indexes[i] * size;
+            for (int j = 0; j < indexes.length; j++) {
+                selected.set(i, j, distanceKm[row + indexes[j]], durationMin[row + indexes[j]]);
+            }
+        }
+        return selected;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double distanceKm(int from, int to) {
+        return distanceKm[from * size + to];
+    }
+
+    public double durationMin(int from, int to) {
+        return durationMin[from * size + to];
+    }
+
+    public void set(int from, int to, double km, double minutes) {
+        distanceKm[from * size + to] = km;
+        durationMin[from * size + to] = minutes;
+    }
+}
@@ -1,18 +1,17 @@
 package bzh.stack.apimovix.service;
 
 import java.util.List;
-import java.util.Properties;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import bzh.stack.apimovix.dto.common.EmailDTO;
 import bzh.stack.apimovix.model.Account;
 import bzh.stack.apimovix.model.Anomalie;
+import bzh.stack.apimovix.util.HtmlTemplate;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +21,7 @@ import lombok.RequiredArgsConstructor;
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final SmtpSenderPool smtpSenderPool;
 
     @Value("${spring.mail.username}")
     private String fromEmail;
@@ -31,72 +31,16 @@ public class EmailService {
     private static final String MOVIX_LIGHT_BG = "#F8F9FA";
     private static final String MOVIX_DARK_TEXT = "#2C3E50";
 
-    /**
-     * Crée un JavaMailSender personnalisé avec les paramètres SMTP du compte
-     */
-    private JavaMailSender createCustomMailSender(Account account) {
-        JavaMailSenderImpl customMailSender = new JavaMailSenderImpl();
-        
-        // Vérification des champs obligatoires
-        if (account.getSmtpHost() == null || account.getSmtpHost().trim().isEmpty()) {
-            throw new RuntimeException("Host SMTP non configuré");
-        }
-        if (account.getSmtpPort() == null) {
-            throw new RuntimeException("Port SMTP non configuré");
-        }
-        if (account.getSmtpUsername() == null || account.getSmtpUsername().trim().isEmpty()) {
-            throw new RuntimeException("Nom d'utilisateur SMTP non configuré");
-        }
-        if (account.getSmtpPassword() == null || account.getSmtpPassword().trim().isEmpty()) {
-            throw new RuntimeException("Mot de passe SMTP non configuré");
-        }
-        
-        // Configuration de base
-        customMailSender.setHost(account.getSmtpHost().trim());
-        customMailSender.setPort(account.getSmtpPort());
-        customMailSender.setUsername(account.getSmtpUsername().trim());
-        customMailSender.setPassword(account.getSmtpPassword());
-        
-        // Configuration des propriétés
-        Properties props = customMailSender.getJavaMailProperties();
-        props.put("mail.transport.protocol", "smtp");
-        props.put("mail.smtp.auth", "true");
-        
-        if (account.getSmtpUseTls() != null && account.getSmtpUseTls()) {
-            props.put("mail.smtp.starttls.enable", "true");
-            props.put("mail.smtp.starttls.required", "true");
-        }
-        
-        if (account.getSmtpUseSsl() != null && account.getSmtpUseSsl()) {
-            props.put("mail.smtp.socketFactory.port", account.getSmtpPort());
-            props.put("mail.smtp.socketFactory.class", "javax.net.ssl.SSLSocketFactory");
-        }
-        
-        props.put("mail.smtp.connectiontimeout", "5000");
-        props.put("mail.smtp.timeout", "5000");
-        props.put("mail.smtp.writetimeout", "5000");
-        
-        return customMailSender;
-    }
-
-    /**
-     * Génère le header HTML pour les emails Movix
-     */
-    private String generateMovixHeader() {
-        return """
+    // Blocs Movix fixes : couleurs appliquées une fois au chargement de la classe
+    private static final String MOVIX_HEADER = """
             <div style="background-color: %s; padding: 20px; text-align: center; border-bottom: 2px solid %s;">
                 <h1 style="color: %s; margin: 0; font-size: 24px; font-weight: 600;">
                     Movix
                 </h1>
             </div>
             """.formatted(MOVIX_LIGHT_BG, MOVIX_PRIMARY_COLOR, MOVIX_DARK_TEXT);
-    }
 
-    /**
-     * Génère le footer HTML pour les emails Movix avec avertissement noreply
-     */
-    private String generateMovixFooter() {
-        return """
+    private static final String MOVIX_FOOTER = """
             <div style="background-color: %s; padding: 15px; border-top: 1px solid #E9ECEF; margin-top: 20px;">
                 <div style="max-width: 600px; margin: 0 auto;">
                     <!-- Avertissement noreply simple -->
@@ -116,13 +60,11 @@ public class EmailService {
                 </div>
             </div>
             """.formatted(MOVIX_LIGHT_BG, MOVIX_DARK_TEXT, MOVIX_PRIMARY_COLOR);
-    }
 
     /**
-     * Génère le contenu principal de l'email avec style Movix
+     * Contenu principal avec style Movix ; emplacements {{title}} et {{message}}
      */
-    private String generateMovixContent(String title, String message) {
-        return """
+    private static final String MOVIX_CONTENT = """
             <div style="background-color: white; padding: 25px 20px;">
                 <div style="max-width: 600px; margin: 0 auto;">
                     <h2 style="color: %s; margin: 0 0 15px; font-size: 20px; font-weight: 600;">
@@ -133,8 +75,59 @@ public class EmailService {
                     </div>
                 </div>
             </div>
-            """.formatted(MOVIX_DARK_TEXT, title, MOVIX_DARK_TEXT, message);
-    }
+            """.formatted(MOVIX_DARK_TEXT, "{{title}}", MOVIX_DARK_TEXT, "{{message}}");
+
+    // Contenu personnalisé sur sa propre ligne, au niveau du message : sans contenu, la page reste identique
+    private static final String CUSTOM_CONTENT_LINE = "\n            ";
+
+    // Page complète compilée une fois : seuls le titre, le message et le contenu personnalisé (vide par défaut) varient
+    private static final HtmlTemplate NOTIFICATION_PAGE = HtmlTemplate.compile("""
+            <!DOCTYPE html>
+            <html>
+            <head>
+                <meta charset="UTF-8">
+                <meta name="viewport" content="width=device-width, initial-scale=1.0">
+                <title>%s - Movix</title>
+                <style>
+                    body { 
+                        font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; 
+                        line-height: 1.6; 
+                        color: #333; 
+                        margin: 0; 
+                        padding: 0; 
+                        background-color: #f4f6f8;
+                    }
+                    .email-container { 
+                        max-width: 600px; 
+                        margin: 20px auto; 
+                        background-color: white; 
+                        border-radius: 8px; 
+                        box-shadow: 0 4px 20px rgba(0,0,0,0.1); 
+                        overflow: hidden;
+                    }
+                    .content-wrapper {
+                        background-color: white;
+                    }
+                    @media only screen and (max-width: 600px) {
+                        .email-container { 
+                            margin: 10px; 
+                            border-radius: 4px; 
+                        }
+                    }
+                </style>
+            </head>
+            <body>
+                <div class="email-container">
+                    %s
+                    <div class="content-wrapper">
+                        %s{{custom}}
+                    </div>
+                    %s
+                </div>
+            </body>
+            </html>
+            """.formatted("{{title}}", MOVIX_HEADER, MOVIX_CONTENT, MOVIX_FOOTER),
+            "title", "message", "custom");
 
     /**
      * Envoie un email simple (texte)
@@ -248,52 +241,7 @@ public class EmailService {
      * Envoie un email de notification générique avec design Movix
      */
     public void sendNotificationEmail(String to, String title, String message) {
-        String htmlContent = """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                <title>%s - Movix</title>
-                <style>
-                    body { 
-                        font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; 
-                        line-height: 1.6; 
-                        color: #333; 
-                        margin: 0; 
-                        padding: 0; 
-                        background-color: #f4f6f8;
-                    }
-                    .email-container { 
-                        max-width: 600px; 
-                        margin: 20px auto; 
-                        background-color: white; 
-                        border-radius: 8px; 
-                        box-shadow: 0 4px 20px rgba(0,0,0,0.1); 
-                        overflow: hidden;
-                    }
-                    .content-wrapper {
-                        background-color: white;
-                    }
-                    @media only screen and (max-width: 600px) {
-                        .email-container { 
-                            margin: 10px; 
-                            border-radius: 4px; 
-                        }
-                    }
-                </style>
-            </head>
-            <body>
-                <div class="email-container">
-                    %s
-                    <div class="content-wrapper">
-                        %s
-                    </div>
-                    %s
-                </div>
-            </body>
-            </html>
-            """.formatted(title, generateMovixHeader(), generateMovixContent(title, message), generateMovixFooter());
+        String htmlContent = notificationPage(title, message);
         
         sendHtmlEmail(to, title, htmlContent);
     }
@@ -302,53 +250,7 @@ public class EmailService {
      * Envoie un email de notification avec contenu personnalisé et design Movix
      */
     public void sendCustomNotificationEmail(String to, String title, String message, String customContent) {
-        String htmlContent = """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                <title>%s - Movix</title>
-                <style>
-                    body { 
-                        font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; 
-                        line-height: 1.6; 
-                        color: #333; 
-                        margin: 0; 
-                        padding: 0; 
-                        background-color: #f4f6f8;
-                    }
-                    .email-container { 
-                        max-width: 600px; 
-                        margin: 20px auto; 
-                        background-color: white; 
-                        border-radius: 8px; 
-                        box-shadow: 0 4px 20px rgba(0,0,0,0.1); 
-                        overflow: hidden;
-                    }
-                    .content-wrapper {
-                        background-color: white;
-                    }
-                    @media only screen and (max-width: 600px) {
-                        .email-container { 
-                            margin: 10px; 
-                            border-radius: 4px; 
-                        }
-                    }
-                </style>
-            </head>
-            <body>
-                <div class="email-container">
-                    %s
-                    <div class="content-wrapper">
-                        %s
-                        %s
-                    </div>
-                    %s
-                </div>
-            </body>
-            </html>
-            """.formatted(title, generateMovixHeader(), generateMovixContent(title, message), customContent, generateMovixFooter());
+        String htmlContent = notificationPage(title, message, customContent);
         
         sendHtmlEmail(to, title, htmlContent);
     }
@@ -371,96 +273,40 @@ public class EmailService {
             if (account == null) {
                 throw new RuntimeException("Compte utilisateur manquant");
             }
-            
-            JavaMailSender customMailSender = createCustomMailSender(account);
-            
-            String htmlContent = """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                    <title>%s - Movix</title>
-                    <style>
-                        body { 
-                            font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; 
-                            line-height: 1.6; 
-                            color: #333; 
-                            margin: 0; 
-                            padding: 0; 
-                            background-color: #f4f6f8;
-                        }
-                        .email-container { 
-                            max-width: 600px; 
-                            margin: 20px auto; 
-                            background-color: white; 
-                            border-radius: 8px; 
-                            box-shadow: 0 4px 20px rgba(0,0,0,0.1); 
-                            overflow: hidden;
-                        }
-                        .content-wrapper {
-                            background-color: white;
-                        }
-                        @media only screen and (max-width: 600px) {
-                            .email-container { 
-                                margin: 10px; 
-                                border-radius: 4px; 
-                            }
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="email-container">
-                        %s
-                        <div class="content-wrapper">
-                            %s
-                        </div>
-                        %s
-                    </div>
-                </body>
-                </html>
-                """.formatted(title, generateMovixHeader(), generateMovixContent(title, message), generateMovixFooter());
-            
-            MimeMessage mimeMessage = customMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            
-            helper.setFrom(account.getSmtpUsername().trim());
-            helper.setTo(to.trim());
-            helper.setSubject(title);
-            helper.setText(htmlContent, true);
-            
-            customMailSender.send(mimeMessage);
-            
+
+            MimeMessage mimeMessage = buildNotificationMessage(account, to, title, notificationPage(title, message));
+            smtpSenderPool.send(account, mimeMessage);
+
         } catch (MessagingException e) {
             throw new RuntimeException("Erreur lors de l'envoi de l'email avec SMTP personnalisé : " + e.getMessage(), e);
-        } catch (RuntimeException e) {
-            throw e;
         }
     }
 
+    static String notificationPage(String title, String message) {
+        return NOTIFICATION_PAGE.render(title, message, "");
+    }
+
     /**
-     * Envoie un email de notification d'anomalie avec le PDF en pièce jointe
+     * Page de notification suivie d'un contenu personnalisé, sur sa propre ligne sous le message
      */
-    public void sendAnomalieNotificationEmail(Anomalie anomalie, byte[] pdfBytes) {
-        try {
-            Account account = anomalie.getAccount();
-
-            // Vérifier si des emails sont configurés pour les anomalies
-            if (account.getAnomaliesEmails() == null || account.getAnomaliesEmails().trim().isEmpty()) {
-                return;
-            }
-
-            // Diviser les emails (séparés par des virgules ou points-virgules)
-            String[] emailList = account.getAnomaliesEmails().split("[;,]");
-            List<String> emails = List.of(emailList);
+    static String notificationPage(String title, String message, String customContent) {
+        return NOTIFICATION_PAGE.render(title, message, CUSTOM_CONTENT_LINE + customContent);
+    }
 
-            sendAnomalieNotificationEmail(anomalie, pdfBytes, emails);
+    private MimeMessage buildNotificationMessage(Account account, String to, String title, String htmlContent) throws MessagingException {
+        MimeMessage mimeMessage = smtpSenderPool.createMimeMessage(account);
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
 
-        } catch (Exception e) {
-            // Erreur silencieuse
-        }
+        helper.setFrom(account.getSmtpUsername().trim());
+        helper.setTo(to.trim());
+        helper.setSubject(title);
+        helper.setText(htmlContent, true);
+        return mimeMessage;
     }
 
+    /**
+     * Envoie un email de notification d'anomalie avec le PDF en pièce jointe à chaque adresse de customEmails
+     */
     public void sendAnomalieNotificationEmail(Anomalie anomalie, byte[] pdfBytes, List<String> customEmails) {
         try {
             Account account = anomalie.getAccount();
@@ -489,61 +335,30 @@ public class EmailService {
         }
     }
 
+    /**
+     * Envoie l'email d'anomalie à un seul destinataire, sans masquer les erreurs :
+     * utilisé par la file d'envoi pour replanifier les échecs
+     */
+    public void deliverAnomalieNotificationEmail(Anomalie anomalie, byte[] pdfBytes, String email) {
+        Account account = anomalie.getAccount();
+        String title = "Nouvelle anomalie signalée - " + anomalie.getTypeAnomalie().getName();
+        String message = generateAnomalieEmailMessage(anomalie);
+
+        if (account.getSmtpEnable() != null && account.getSmtpEnable()) {
+            sendAnomalieEmailWithCustomSmtp(email, title, message, account, anomalie, pdfBytes);
+        } else {
+            sendAnomalieEmailWithDefaultSmtp(email, title, message, anomalie, pdfBytes);
+        }
+    }
+
     /**
      * Envoie un email d'anomalie avec SMTP personnalisé et PDF en pièce jointe
      */
     private void sendAnomalieEmailWithCustomSmtp(String to, String title, String message, Account account, Anomalie anomalie, byte[] pdfBytes) {
         try {
-            JavaMailSender customMailSender = createCustomMailSender(account);
+            String htmlContent = notificationPage(title, message);
             
-            String htmlContent = """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                    <title>%s - Movix</title>
-                    <style>
-                        body { 
-                            font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; 
-                            line-height: 1.6; 
-                            color: #333; 
-                            margin: 0; 
-                            padding: 0; 
-                            background-color: #f4f6f8;
-                        }
-                        .email-container { 
-                            max-width: 600px; 
-                            margin: 20px auto; 
-                            background-color: white; 
-                            border-radius: 8px; 
-                            box-shadow: 0 4px 20px rgba(0,0,0,0.1); 
-                            overflow: hidden;
-                        }
-                        .content-wrapper {
-                            background-color: white;
-                        }
-                        @media only screen and (max-width: 600px) {
-                            .email-container { 
-                                margin: 10px; 
-                                border-radius: 4px; 
-                            }
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="email-container">
-                        %s
-                        <div class="content-wrapper">
-                            %s
-                        </div>
-                        %s
-                    </div>
-                </body>
-                </html>
-                """.formatted(title, generateMovixHeader(), generateMovixContent(title, message), generateMovixFooter());
-            
-            MimeMessage mimeMessage = customMailSender.createMimeMessage();
+            MimeMessage mimeMessage = smtpSenderPool.createMimeMessage(account);
             MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
             
             helper.setFrom(account.getSmtpUsername().trim());
@@ -555,7 +370,7 @@ public class EmailService {
             String filename = "anomalie_" + anomalie.getId() + ".pdf";
             helper.addAttachment(filename, new jakarta.mail.util.ByteArrayDataSource(pdfBytes, "application/pdf"));
             
-            customMailSender.send(mimeMessage);
+            smtpSenderPool.send(account, mimeMessage);
             
         } catch (MessagingException e) {
             throw new RuntimeException("Erreur lors de l'envoi de l'email d'anomalie avec SMTP personnalisé : " + e.getMessage(), e);
@@ -569,52 +384,7 @@ public class EmailService {
      */
     private void sendAnomalieEmailWithDefaultSmtp(String to, String title, String message, Anomalie anomalie, byte[] pdfBytes) {
         try {
-            String htmlContent = """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                    <title>%s - Movix</title>
-                    <style>
-                        body { 
-                            font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; 
-                            line-height: 1.6; 
-                            color: #333; 
-                            margin: 0; 
-                            padding: 0; 
-                            background-color: #f4f6f8;
-                        }
-                        .email-container { 
-                            max-width: 600px; 
-                            margin: 20px auto; 
-                            background-color: white; 
-                            border-radius: 8px; 
-                            box-shadow: 0 4px 20px rgba(0,0,0,0.1); 
-                            overflow: hidden;
-                        }
-                        .content-wrapper {
-                            background-color: white;
-                        }
-                        @media only screen and (max-width: 600px) {
-                            .email-container { 
-                                margin: 10px; 
-                                border-radius: 4px; 
-                            }
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="email-container">
-                        %s
-                        <div class="content-wrapper">
-                            %s
-                        </div>
-                        %s
-                    </div>
-                </body>
-                </html>
-                """.formatted(title, generateMovixHeader(), generateMovixContent(title, message), generateMovixFooter());
+            String htmlContent = notificationPage(title, message);
             
             MimeMessage mimeMessage = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
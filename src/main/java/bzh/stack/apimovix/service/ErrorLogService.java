@@ -1,11 +1,9 @@
 package bzh.stack.apimovix.service;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -24,8 +22,14 @@ import java.util.stream.Stream;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import bzh.stack.apimovix.dto.logs.LogChunkDTO;
 import bzh.stack.apimovix.dto.logs.LogContentDTO;
 import bzh.stack.apimovix.dto.logs.LogFileDTO;
+import bzh.stack.apimovix.service.logs.LogFileReader;
+import bzh.stack.apimovix.service.logs.LogSegment;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
@@ -33,72 +37,59 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ErrorLogService {
 
-    private static final String ERROR_LOGS_DIR = "logs/errors";
+    public static final String ERROR_LOGS_DIR = "logs/errors";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
     private static final DateTimeFormatter DISPLAY_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    private final ObjectMapper objectMapper;
+
     /**
-     * Log an exception with full request context
+     * Log an exception with full request context, as one NDJSON entry in
+     * logs/errors/yyyy/MM/dd/<token>.ndjson (indexed in <token>.idx with the response status)
      */
-    public void logException(HttpServletRequest request, Exception exception) {
+    public void logException(HttpServletRequest request, Exception exception, int status) {
         try {
             String authorization = request.getHeader("Authorization");
             String token = authorization != null ? authorization.replace("Bearer ", "") : "no-token";
             // Sanitize token to prevent directory traversal and filesystem issues
             token = token.replaceAll("[/\\\\:*?\"<>|]", "_");
 
-            String logPath = String.format("%s/%s/%s",
-                ERROR_LOGS_DIR,
-                LocalDateTime.now().format(DATE_FORMATTER),
-                token);
-
-            File logFile = new File(logPath);
-            File parentDir = logFile.getParentFile();
-            if (parentDir != null && !parentDir.exists()) {
-                boolean created = parentDir.mkdirs();
-                if (!created && !parentDir.exists()) {
-                    return;
+            ZonedDateTime now = ZonedDateTime.now(ZoneId.of("Europe/Paris"));
+            Path logPath = Paths.get(ERROR_LOGS_DIR, now.format(DATE_FORMATTER), token + LogSegment.DATA_EXTENSION);
+
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put("timestamp", now.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+            node.put("ip", getClientIpAddress(request));
+            node.put("userAgent", request.getHeader("User-Agent"));
+            node.put("method", request.getMethod());
+            node.put("uri", request.getRequestURI());
+            node.put("queryString", request.getQueryString());
+            node.put("status", status);
+
+            // Request body if available
+            if (request instanceof ContentCachingRequestWrapper) {
+                ContentCachingRequestWrapper requestWrapper = (ContentCachingRequestWrapper) request;
+                byte[] contentAsByteArray = requestWrapper.getContentAsByteArray();
+                if (contentAsByteArray.length > 0) {
+                    node.put("requestBody", new String(contentAsByteArray, StandardCharsets.UTF_8));
                 }
             }
 
-            try (FileWriter writer = new FileWriter(logFile, true)) {
-                writer.write("========================================\n");
-                writer.write(String.format("=== ERROR at %s ===\n",
-                    ZonedDateTime.now(ZoneId.of("Europe/Paris"))
-                        .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+            // Exception information
+            node.put("exceptionType", exception.getClass().getName());
+            node.put("message", exception.getMessage());
+            StringWriter sw = new StringWriter();
+            exception.printStackTrace(new PrintWriter(sw));
+            node.put("stackTrace", sw.toString());
 
-                // Request information
-                writer.write(String.format("IP: %s\n", getClientIpAddress(request)));
-                writer.write(String.format("User-Agent: %s\n", request.getHeader("User-Agent")));
-                writer.write(String.format("Method: %s\n", request.getMethod()));
-                writer.write(String.format("URI: %s\n", request.getRequestURI()));
-
-                if (request.getQueryString() != null) {
-                    writer.write(String.format("Query String: %s\n", request.getQueryString()));
-                }
+            LogSegment.Line line = new LogSegment.Line(objectMapper.writeValueAsBytes(node),
+                now.toInstant().toEpochMilli(), status, request.getRequestURI());
 
-                // Request body if available
-                if (request instanceof ContentCachingRequestWrapper) {
-                    ContentCachingRequestWrapper requestWrapper = (ContentCachingRequestWrapper) request;
-                    byte[] contentAsByteArray = requestWrapper.getContentAsByteArray();
-                    if (contentAsByteArray.length > 0) {
-                        String body = new String(contentAsByteArray, StandardCharsets.UTF_8);
-                        writer.write(String.format("REQUEST BODY:\n%s\n", body));
-                    }
+            // Les erreurs sont rares : segment ouvert et fermé à chaque écriture
+            synchronized (this) {
+                try (LogSegment segment = LogSegment.open(logPath)) {
+                    segment.append(List.of(line));
                 }
-
-                // Exception information
-                writer.write("\n=== EXCEPTION ===\n");
-                writer.write(String.format("Type: %s\n", exception.getClass().getName()));
-                writer.write(String.format("Message: %s\n", exception.getMessage()));
-
-                // Full stack trace
-                writer.write("Stack Trace:\n");
-                StringWriter sw = new StringWriter();
-                exception.printStackTrace(new PrintWriter(sw));
-                writer.write(sw.toString());
-
-                writer.write("========================================\n\n");
             }
         } catch (Exception e) {
             // Silently ignore logging errors
@@ -116,6 +107,7 @@ public class ErrorLogService {
         try (Stream<Path> paths = Files.walk(logsPath)) {
             logFiles = paths
                 .filter(Files::isRegularFile)
+                .filter(path -> !path.toString().endsWith(LogSegment.INDEX_EXTENSION))
                 .map(this::convertToLogFileDTO)
                 .collect(Collectors.toList());
         }
@@ -135,19 +127,42 @@ public class ErrorLogService {
             throw new IOException("Fichier non trouve");
         }
 
-        String content;
-        try {
-            content = Files.readString(logPath, StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            byte[] bytes = Files.readAllBytes(logPath);
-            content = new String(bytes, Charset.defaultCharset());
-        }
+        // Une seule lecture ; les octets invalides en UTF-8 sont remplacés au lieu de tout relire
+        String content = new String(Files.readAllBytes(logPath), StandardCharsets.UTF_8);
 
         long sizeBytes = Files.size(logPath);
 
         return new LogContentDTO(content, relativePath, sizeBytes);
     }
 
+    /**
+     * Lit un morceau borné du fichier à partir d'un offset (voir LogFileReader)
+     */
+    public LogChunkDTO readErrorLogFileRange(String relativePath, long offset, int length) throws IOException {
+        return LogFileReader.readRange(resolveExisting(relativePath), relativePath, offset, length);
+    }
+
+    /**
+     * Lit les dernières lignes du fichier, avant l'offset before s'il est fourni
+     */
+    public LogChunkDTO tailErrorLogFile(String relativePath, int lines, Long before) throws IOException {
+        return LogFileReader.tail(resolveExisting(relativePath), relativePath, lines, before);
+    }
+
+    private Path resolveExisting(String relativePath) throws IOException {
+        Path logPath = Paths.get(ERROR_LOGS_DIR, relativePath);
+
+        // Vérifier que le fichier est bien dans le répertoire logs (sécurité)
+        if (!logPath.normalize().startsWith(Paths.get(ERROR_LOGS_DIR).normalize())) {
+            throw new SecurityException("Acces non autorise au fichier");
+        }
+
+        if (!Files.isRegularFile(logPath)) {
+            throw new IOException("Fichier non trouve");
+        }
+        return logPath;
+    }
+
     public void deleteErrorLogFile(String relativePath) throws IOException {
         Path logPath = Paths.get(ERROR_LOGS_DIR, relativePath);
 
@@ -160,6 +175,7 @@ public class ErrorLogService {
         }
 
         Files.delete(logPath);
+        Files.deleteIfExists(LogSegment.indexPathFor(logPath));
     }
 
     public void deleteAllErrorLogFiles() throws IOException {
@@ -0,0 +1,163 @@
+package bzh.stack.apimovix.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import bzh.stack.apimovix.model.IdBlock;
+import bzh.stack.apimovix.repository.IdBlockRepository;
+import bzh.stack.apimovix.repository.packagerepository.PackageRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Attribution des codes-barres et identifiants de tournée par blocs (hi/lo) :
+ * - la table id_block réserve des plages de valeurs par compteur, sous verrou, dans une transaction dédiée
+ * - les valeurs d'une plage sont distribuées depuis la mémoire, sans requête d'existence par identifiant
+ * - codes-barres : un compteur par préfixe (code postal), 12 chiffres + chiffre de contrôle comme avant.
+ *   Les codes aléatoires historiques présents dans une plage sont lus en une requête à la réservation et sautés ;
+ *   les codes imposés ensuite par un client dans une plage réservée sont écartés par l'appelant (PackageService).
+ * - tournées : 12 caractères hexadécimaux issus du compteur + 8 aléatoires (20 caractères comme avant)
+ * Les valeurs d'une plage non distribuées avant un redémarrage sont perdues (trous sans conséquence).
+ */
+@Slf4j
+@Service
+public class IdAllocationService {
+
+    private static final String BARCODE_COUNTER_PREFIX = "barcode:";
+    private static final String TOUR_COUNTER = "tour";
+    private static final long BARCODE_MAX_VALUE = 1_000_000_000_000L;
+    private static final int RESERVE_ATTEMPTS = 3;
+
+    private final IdBlockRepository idBlockRepository;
+    private final PackageRepository packageRepository;
+    private final TransactionTemplate reserveTransaction;
+    private final int barcodeBlockSize;
+    private final int tourBlockSize;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public IdAllocationService(
+            IdBlockRepository idBlockRepository,
+            PackageRepository packageRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.ids.barcode-block-size:1000}") int barcodeBlockSize,
+            @Value("${app.ids.tour-block-size:20}") int tourBlockSize) {
+        this.idBlockRepository = idBlockRepository;
+        this.packageRepository = packageRepository;
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.barcodeBlockSize = barcodeBlockSize;
+        this.tourBlockSize = tourBlockSize;
+    }
+
+    /**
+     * count codes-barres consécutifs pour ce préfixe : préfixe + 12 chiffres + chiffre de contrôle
+     */
+    public List<String> nextBarcodes(String base, int count) {
+        String prefix = String.valueOf(base);
+        Block block = blocks.computeIfAbsent(BARCODE_COUNTER_PREFIX + prefix, name -> new Block());
+        List<String> barcodes = new ArrayList<>(count);
+        synchronized (block) {
+            while (barcodes.size() < count) {
+                if (block.next >= block.end) {
+                    reserveBarcodeBlock(block, prefix);
+                }
+                String barcode = barcode(prefix, block.next++);
+                if (!block.skip.contains(barcode)) {
+                    barcodes.add(barcode);
+                }
+            }
+        }
+        return barcodes;
+    }
+
+    public String nextTourId() {
+        Block block = blocks.computeIfAbsent(TOUR_COUNTER, name -> new Block());
+        long value;
+        synchronized (block) {
+            if (block.next >= block.end) {
+                reserve(block, TOUR_COUNTER, tourBlockSize);
+            }
+            value = block.next++;
+        }
+        return String.format("%012x%08x", value, ThreadLocalRandom.current().nextInt());
+    }
+
+    /**
+     * Chiffre de contrôle EAN calculé sur les 12 chiffres (poids 1 et 3 alternés)
+     */
+    public static int checkDigit(String digits) {
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            int digit = Character.getNumericValue(digits.charAt(i));
+            sum += (i % 2 == 0) ? digit : digit * 3;
+        }
+        return (10 - (sum % 10)) % 10;
+    }
+
+    private static String barcode(String prefix, long value) {
+        String digits = String.format("%012d", value);
+        return prefix + digits + checkDigit(digits);
+    }
+
+    private void reserveBarcodeBlock(Block block, String prefix) {
+        reserve(block, BARCODE_COUNTER_PREFIX + prefix, barcodeBlockSize);
+        if (block.end > BARCODE_MAX_VALUE) {
+            throw new IllegalStateException("Plus de code-barres disponible pour le préfixe " + prefix);
+        }
+        // Codes aléatoires générés avant l'attribution par blocs : une requête par plage
+        block.skip = new HashSet<>(packageRepository.findBarcodesBetween(
+                barcode(prefix, block.next), barcode(prefix, block.end - 1)));
+        if (!block.skip.isEmpty()) {
+            log.info("{} codes-barres existants ignores dans la plage {} - {} du prefixe {}",
+                    block.skip.size(), block.next, block.end - 1, prefix);
+        }
+    }
+
+    private void reserve(Block block, String name, int size) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                long start = reserveTransaction.execute(status -> {
+                    IdBlock idBlock = idBlockRepository.findForUpdate(name).orElse(null);
+                    if (idBlock == null) {
+                        idBlock = new IdBlock();
+                        idBlock.setName(name);
+                        idBlock.setNextValue(0L);
+                    }
+                    long first = idBlock.getNextValue();
+                    idBlock.setNextValue(first + size);
+                    idBlockRepository.save(idBlock);
+                    return first;
+                });
+                block.next = start;
+                block.end = start + size;
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Compteur créé en parallèle par une autre instance : relire sous verrou
+                if (attempt >= RESERVE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Plage réservée en cours de distribution ; accès sous synchronized(block)
+     */
+    private static class Block {
+        private long next;
+        private long end;
+        private Set<String> skip = Set.of();
+    }
+}
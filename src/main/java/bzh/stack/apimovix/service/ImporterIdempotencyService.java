@@ -0,0 +1,277 @@
+package bzh.stack.apimovix.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import bzh.stack.apimovix.dto.importer.SendCommandRequestDTO;
+import bzh.stack.apimovix.dto.importer.SendCommandResponseDTO;
+import bzh.stack.apimovix.model.ImporterIdempotencyKey;
+import bzh.stack.apimovix.repository.ImporterIdempotencyKeyRepository;
+import bzh.stack.apimovix.service.PrincipalCacheService.ImporterPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Idempotence des envois importer.
+ * - une clé déjà traitée renvoie la réponse enregistrée, sans toucher aux expéditeurs, pharmacies ni colis
+ * - table importer_idempotency_key (conservée app.importer.idempotency.retention-hours) précédée d'un cache mémoire court
+ * - les envois simultanés d'une même clé attendent le calcul en cours au lieu de le refaire
+ * - la clé est insérée (ON CONFLICT DO NOTHING) dans la transaction de l'import : un import validé a toujours sa clé,
+ *   et une clé validée entre-temps par une autre instance annule l'import au profit de la réponse enregistrée
+ * Seuls les succès sont enregistrés : un envoi en erreur peut être rejoué avec la même clé.
+ */
+@Slf4j
+@Service
+public class ImporterIdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private final ImporterIdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate importTransaction;
+    private final Cache<String, SendCommandResponseDTO> responses;
+    private final Map<String, CompletableFuture<SendCommandResponseDTO>> inFlight = new ConcurrentHashMap<>();
+    private final long retentionHours;
+
+    public ImporterIdempotencyService(
+            ImporterIdempotencyKeyRepository repository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.importer.idempotency.cache-size:10000}") long cacheSize,
+            @Value("${app.importer.idempotency.cache-ttl-seconds:600}") long cacheTtlSeconds,
+            @Value("${app.importer.idempotency.retention-hours:72}") long retentionHours) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.importTransaction = new TransactionTemplate(transactionManager);
+        this.retentionHours = retentionHours;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "importer.idempotency");
+    }
+
+    /**
+     * Clé stockée pour un envoi : préfixée par le token importer (ou le code expéditeur sans token).
+     * Retourne null si l'envoi n'a pas de clé d'idempotence.
+     */
+    public static String storageKey(ImporterPrincipal token, SendCommandRequestDTO body, String key) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        String scope = token != null ? token.id().toString() : body.getSender().getCode();
+        return scope + ":" + key;
+    }
+
+    /**
+     * Exécute computation une seule fois par clé : réponse enregistrée, calcul en cours ou nouveau calcul
+     */
+    public SendCommandResponseDTO execute(String id, Supplier<SendCommandResponseDTO> computation) {
+        SendCommandResponseDTO known = findProcessed(List.of(id)).get(id);
+        if (known != null) {
+            return known;
+        }
+
+        CompletableFuture<SendCommandResponseDTO> running = claim(id);
+        if (running != null) {
+            return await(running);
+        }
+
+        return importClaimed(id, computation);
+    }
+
+    /**
+     * Import d'une clé réservée par claim, clé enregistrée dans la même transaction.
+     * Si la clé a été enregistrée entre-temps, l'import est annulé et la réponse enregistrée est renvoyée.
+     * La clé est libérée dans tous les cas (les envois en attente reçoivent la réponse ou l'erreur).
+     */
+    public SendCommandResponseDTO importClaimed(String id, Supplier<SendCommandResponseDTO> computation) {
+        try {
+            SendCommandResponseDTO response;
+            try {
+                response = importTransaction.execute(status -> {
+                    SendCommandResponseDTO computed = computation.get();
+                    record(Map.of(id, computed));
+                    return computed;
+                });
+            } catch (KeyAlreadyRecordedException e) {
+                response = findProcessed(List.of(id)).get(id);
+                if (response == null) {
+                    throw new IllegalStateException("Réponse enregistrée illisible pour la clé " + id, e);
+                }
+            }
+            release(Map.of(id, response));
+            return response;
+        } catch (Throwable e) {
+            fail(id, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Import groupé : ids alignés sur les réponses de computation (null pour un envoi sans clé), toutes les clés
+     * enregistrées dans la même transaction que l'import puis libérées.
+     * KeyAlreadyRecordedException (import annulé) si l'une est déjà enregistrée ; en cas d'erreur les clés
+     * restent réservées, l'appelant reprend alors envoi par envoi avec importClaimed.
+     */
+    public List<SendCommandResponseDTO> importClaimedBatch(List<String> ids, Supplier<List<SendCommandResponseDTO>> computation) {
+        Map<String, SendCommandResponseDTO> keyed = new HashMap<>();
+        List<SendCommandResponseDTO> responses = importTransaction.execute(status -> {
+            List<SendCommandResponseDTO> computed = computation.get();
+            for (int i = 0; i < ids.size(); i++) {
+                if (ids.get(i) != null) {
+                    keyed.put(ids.get(i), computed.get(i));
+                }
+            }
+            record(keyed);
+            return computed;
+        });
+        release(keyed);
+        return responses;
+    }
+
+    /**
+     * Réponses déjà enregistrées pour ces clés : cache mémoire puis une requête IN pour les absentes
+     */
+    public Map<String, SendCommandResponseDTO> findProcessed(Collection<String> ids) {
+        Map<String, SendCommandResponseDTO> found = new HashMap<>(responses.getAllPresent(ids));
+        List<String> missing = ids.stream()
+                .filter(id -> !found.containsKey(id))
+                .distinct()
+                .toList();
+        if (!missing.isEmpty()) {
+            for (ImporterIdempotencyKey stored : repository.findAllById(missing)) {
+                SendCommandResponseDTO response = deserialize(stored);
+                if (response != null) {
+                    responses.put(stored.getId(), response);
+                    found.put(stored.getId(), response);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Réserve une clé pour l'appelant.
+     * Retourne null si la clé est réservée (l'appelant doit ensuite appeler importClaimed, importClaimedBatch ou fail),
+     * sinon le calcul déjà en cours à attendre avec await.
+     */
+    public CompletableFuture<SendCommandResponseDTO> claim(String id) {
+        CompletableFuture<SendCommandResponseDTO> future = new CompletableFuture<>();
+        CompletableFuture<SendCommandResponseDTO> running = inFlight.putIfAbsent(id, future);
+        if (running != null) {
+            return running;
+        }
+        // Un calcul a pu se terminer entre la recherche et la réservation
+        SendCommandResponseDTO known = responses.getIfPresent(id);
+        if (known != null) {
+            inFlight.remove(id, future);
+            future.complete(known);
+            return future;
+        }
+        return null;
+    }
+
+    /**
+     * Insère les clés dans la transaction en cours, une par une (ON CONFLICT DO NOTHING)
+     */
+    private void record(Map<String, SendCommandResponseDTO> completed) {
+        LocalDateTime now = LocalDateTime.now();
+        completed.forEach((id, response) -> {
+            String json = serialize(response);
+            if (json != null && repository.insertIfAbsent(id, json, now) == 0) {
+                throw new KeyAlreadyRecordedException(id);
+            }
+        });
+    }
+
+    /**
+     * Met en cache les réponses des clés enregistrées et libère les envois en attente
+     */
+    private void release(Map<String, SendCommandResponseDTO> completed) {
+        // Cache alimenté avant la libération : un nouvel envoi trouve la réponse dans claim
+        completed.forEach((id, response) -> {
+            responses.put(id, response);
+            CompletableFuture<SendCommandResponseDTO> future = inFlight.remove(id);
+            if (future != null) {
+                future.complete(response);
+            }
+        });
+    }
+
+    /**
+     * Libère une clé réservée après un échec : les envois en attente reçoivent la même erreur
+     */
+    public void fail(String id, Throwable error) {
+        CompletableFuture<SendCommandResponseDTO> future = inFlight.remove(id);
+        if (future != null) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    public SendCommandResponseDTO await(CompletableFuture<SendCommandResponseDTO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    @Scheduled(cron = "0 45 2 * * *")
+    public void purgeExpiredKeys() {
+        int deleted = repository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        log.info("Nettoyage des cles d'idempotence importer : {} supprimees", deleted);
+    }
+
+    private String serialize(SendCommandResponseDTO response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            log.error("Impossible de serialiser la reponse d'import", e);
+            return null;
+        }
+    }
+
+    /**
+     * Clé déjà enregistrée par un autre envoi : la transaction d'import est annulée
+     */
+    public static class KeyAlreadyRecordedException extends RuntimeException {
+        KeyAlreadyRecordedException(String id) {
+            super("Clé d'idempotence déjà enregistrée : " + id);
+        }
+    }
+
+    private SendCommandResponseDTO deserialize(ImporterIdempotencyKey stored) {
+        try {
+            return objectMapper.readValue(stored.getResponse(), SendCommandResponseDTO.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Reponse d'import illisible pour la cle {}", stored.getId());
+            return null;
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package bzh.stack.apimovix.service;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import bzh.stack.apimovix.dto.importer.PackageImporterDTO;
 import bzh.stack.apimovix.dto.importer.SendCommandRequestDTO;
 import bzh.stack.apimovix.dto.importer.SendCommandResponseDTO;
 import bzh.stack.apimovix.dto.packageentity.PackageDTO;
@@ -22,11 +31,21 @@ import bzh.stack.apimovix.model.Pharmacy;
 import bzh.stack.apimovix.model.PharmacyInformations;
 import bzh.stack.apimovix.model.Sender;
 import bzh.stack.apimovix.model.Tour;
+import bzh.stack.apimovix.model.Zone;
+import bzh.stack.apimovix.model.History.HistoryCommandStatus;
+import bzh.stack.apimovix.model.History.HistoryPackageStatus;
+import bzh.stack.apimovix.model.StatusType.CommandStatus;
+import bzh.stack.apimovix.model.StatusType.PackageStatus;
 import bzh.stack.apimovix.service.command.CommandService;
+import bzh.stack.apimovix.service.command.CommandStatusService;
+import bzh.stack.apimovix.service.command.HistoryCommandStatusService;
+import bzh.stack.apimovix.service.packageservices.HistoryPackageStatusService;
 import bzh.stack.apimovix.service.packageservices.PackageService;
+import bzh.stack.apimovix.service.packageservices.PackageStatusService;
 import bzh.stack.apimovix.service.pharmacy.PharmacyService;
 import bzh.stack.apimovix.service.tour.TourCommandService;
 import bzh.stack.apimovix.service.tour.TourService;
+import jakarta.persistence.EntityManager;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -42,6 +61,14 @@ public class ImporterService {
     private final TourService tourService;
     private final TourCommandService tourCommandService;
     private final PackageMapper packageMapper;
+    private final CommandStatusService commandStatusService;
+    private final PackageStatusService packageStatusService;
+    private final HistoryCommandStatusService historyCommandStatusService;
+    private final HistoryPackageStatusService historyPackageStatusService;
+    private final EntityManager entityManager;
+
+    @Value("${app.importer.bulk.jdbc-batch-size:100}")
+    private int bulkJdbcBatchSize;
 
     @Transactional
     public SendCommandResponseDTO sendCommand(@Valid SendCommandRequestDTO body) {
@@ -84,6 +111,190 @@ public class ImporterService {
         }
     }
 
+    /**
+     * Import d'un lot de commandes dans une seule transaction :
+     * - expéditeurs, pharmacies et commandes existantes chargés par requêtes IN
+     * - commandes, colis et historiques insérés table par table (batching JDBC)
+     * - une recherche de tournées par (compte, date) pour l'affectation par zone
+     * Les réponses sont dans l'ordre des requêtes. Toute erreur annule le lot entier.
+     */
+    @Transactional
+    public List<SendCommandResponseDTO> sendCommandBatch(List<SendCommandRequestDTO> bodies) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(bulkJdbcBatchSize);
+
+        // Expéditeurs
+        Map<String, Sender> senders = new HashMap<>(senderService.findSenders(bodies.stream()
+            .map(body -> body.getSender().getCode())
+            .collect(Collectors.toSet())));
+        for (SendCommandRequestDTO body : bodies) {
+            senders.computeIfAbsent(body.getSender().getCode(), code -> senderService.createSender(body.getSender()));
+        }
+
+        // Pharmacies (uniquement par CIP), créées sur le compte du premier expéditeur qui les référence
+        Map<String, Pharmacy> pharmacies = new HashMap<>(pharmacyService.findPharmaciesByCips(bodies.stream()
+            .map(body -> body.getRecipient().getCip())
+            .collect(Collectors.toSet())));
+        for (SendCommandRequestDTO body : bodies) {
+            pharmacies.computeIfAbsent(body.getRecipient().getCip(), cip -> pharmacyService.createPharmacy(
+                senders.get(body.getSender().getCode()).getAccount(), convertToPharmacyCreateDTO(body.getRecipient())));
+        }
+
+        Map<String, Command> openCommands = findOpenCommands(bodies, senders);
+
+        List<Command> newCommands = new ArrayList<>();
+        List<Command> itemCommands = new ArrayList<>(bodies.size());
+        List<List<PackageEntity>> itemPackages = new ArrayList<>(bodies.size());
+        List<PackageEntity> allPackages = new ArrayList<>();
+        List<String> barcodeBases = new ArrayList<>();
+        List<String> forceBarcodes = new ArrayList<>();
+
+        for (SendCommandRequestDTO body : bodies) {
+            Sender sender = senders.get(body.getSender().getCode());
+            Account account = sender.getAccount();
+            Pharmacy pharmacy = pharmacies.get(body.getRecipient().getCip());
+            String key = commandKey(account, pharmacy.getCip(), body.getExpedition_date().toLocalDate());
+
+            Command command = openCommands.get(key);
+            if (command == null) {
+                Boolean newPharmacy = markPharmacyOrdered(pharmacy, account);
+                command = commandService.buildCommand(pharmacy, sender, body.getCommand(),
+                    body.getExpedition_date(), newPharmacy);
+                entityManager.persist(command);
+                openCommands.put(key, command);
+                newCommands.add(command);
+            }
+            // PharmacyInformations du compte pour le nom de zone des colis
+            pharmacy.loadPharmacyInformationsForAccount(account.getId());
+
+            List<PackageEntity> packages = new ArrayList<>();
+            for (PackageImporterDTO packageDTO : body.getCommand().getPackages()) {
+                packages.add(packageService.buildPackage(command, packageDTO, body.getCommand().getNum_transport()));
+                barcodeBases.add(pharmacy.getPostalCode());
+                forceBarcodes.add(packageDTO != null ? packageDTO.getId() : null);
+            }
+            itemCommands.add(command);
+            itemPackages.add(packages);
+            allPackages.addAll(packages);
+        }
+
+        List<String> barcodes = packageService.generateNewBarcodes(barcodeBases, forceBarcodes);
+        for (int i = 0; i < allPackages.size(); i++) {
+            PackageEntity packageEntity = allPackages.get(i);
+            packageEntity.setBarcode(barcodes.get(i));
+            entityManager.persist(packageEntity);
+        }
+
+        // Historiques insérés après les commandes et colis (clés étrangères croisées)
+        CommandStatus commandStatus = commandStatusService.findCommandStatus(1).get();
+        LocalDateTime now = LocalDateTime.now();
+        for (Command command : newCommands) {
+            HistoryCommandStatus status = historyCommandStatusService.buildHistoryCommandStatus(command, null,
+                commandStatus, now);
+            entityManager.persist(status);
+            command.setLastHistoryStatus(status);
+        }
+        Optional<PackageStatus> optPackageStatus = packageStatusService.findPackageStatus(1);
+        if (optPackageStatus.isPresent()) {
+            for (PackageEntity packageEntity : allPackages) {
+                HistoryPackageStatus status = historyPackageStatusService.buildHistoryPackageStatus(packageEntity,
+                    null, optPackageStatus.get());
+                entityManager.persist(status);
+                packageEntity.setLastHistoryStatus(status);
+            }
+        }
+        entityManager.flush();
+
+        List<SendCommandResponseDTO> responses = new ArrayList<>(bodies.size());
+        for (int i = 0; i < bodies.size(); i++) {
+            responses.add(buildResponse(itemCommands.get(i), itemPackages.get(i)));
+        }
+
+        assignCommandsToToursByZone(newCommands);
+
+        return responses;
+    }
+
+    /**
+     * Commandes "à enlever" existantes indexées par (compte, CIP, jour) : une requête par compte
+     */
+    private Map<String, Command> findOpenCommands(List<SendCommandRequestDTO> bodies, Map<String, Sender> senders) {
+        Map<UUID, List<SendCommandRequestDTO>> bodiesByAccount = bodies.stream()
+            .collect(Collectors.groupingBy(body -> senders.get(body.getSender().getCode()).getAccount().getId()));
+
+        Map<String, Command> openCommands = new HashMap<>();
+        bodiesByAccount.values().forEach(accountBodies -> {
+            Account account = senders.get(accountBodies.get(0).getSender().getCode()).getAccount();
+            Set<String> cips = accountBodies.stream()
+                .map(body -> body.getRecipient().getCip())
+                .collect(Collectors.toSet());
+            LocalDate startDate = accountBodies.stream()
+                .map(body -> body.getExpedition_date().toLocalDate())
+                .min(LocalDate::compareTo)
+                .get();
+            LocalDate endDate = accountBodies.stream()
+                .map(body -> body.getExpedition_date().toLocalDate())
+                .max(LocalDate::compareTo)
+                .get();
+
+            // Triées par date d'expédition décroissante : la première rencontrée est retenue
+            commandService.findPharmacyCommandsByDates(account, cips, startDate.atStartOfDay(),
+                    endDate.plusDays(1).atStartOfDay())
+                .forEach(command -> openCommands.putIfAbsent(
+                    commandKey(account, command.getPharmacy().getCip(), command.getExpDate().toLocalDate()), command));
+        });
+        return openCommands;
+    }
+
+    private String commandKey(Account account, String cip, LocalDate date) {
+        return account.getId() + "|" + cip + "|" + date;
+    }
+
+    /**
+     * Affectation par zone des nouvelles commandes d'un lot : une recherche de tournées
+     * par (compte, date) et une réorganisation par tournée touchée
+     */
+    private void assignCommandsToToursByZone(List<Command> commands) {
+        Map<String, List<Tour>> toursByAccountAndDate = new HashMap<>();
+        Map<UUID, Account> accounts = new HashMap<>();
+        Map<UUID, List<Command>> assignedByAccount = new HashMap<>();
+
+        for (Command command : commands) {
+            if (command.getPharmacy() == null || command.getExpDate() == null) {
+                continue;
+            }
+            command.getPharmacy().loadPharmacyInformationsForAccount(command.getSender().getAccount().getId());
+            Zone zone = command.getPharmacy().getZone();
+            if (zone == null || zone.getAccount() == null) {
+                continue;
+            }
+
+            Account account = zone.getAccount();
+            LocalDate commandDate = command.getExpDate().toLocalDate();
+            List<Tour> tours = toursByAccountAndDate.computeIfAbsent(account.getId() + "|" + commandDate,
+                key -> tourService.findTours(account, commandDate));
+
+            tours.stream()
+                .filter(tour -> tour.getZone() != null)
+                .filter(tour -> tour.getZone().getId().equals(zone.getId()))
+                .findFirst()
+                .ifPresent(tour -> {
+                    command.setTour(tour);
+                    accounts.putIfAbsent(account.getId(), account);
+                    assignedByAccount.computeIfAbsent(account.getId(), id -> new ArrayList<>()).add(command);
+                });
+        }
+
+        assignedByAccount.forEach((accountId, accountCommands) -> {
+            try {
+                tourCommandService.addCommandsToTours(accounts.get(accountId), accountCommands);
+                log.info("{} commandes affectées automatiquement à une tournée selon leur zone", accountCommands.size());
+            } catch (Exception e) {
+                // Ne pas propager l'erreur pour ne pas bloquer la création des commandes
+                log.error("Error assigning commands to tours by zone", e);
+            }
+        });
+    }
+
     private PharmacyCreateDTO convertToPharmacyCreateDTO(RecipientImporterDTO recipient) {
         PharmacyCreateDTO dto = new PharmacyCreateDTO();
         dto.setCip(recipient.getCip());
@@ -112,32 +323,9 @@ public class ImporterService {
         Optional<Command> optCommand = commandService.findPharmacyCommandByDate(sender.getAccount(), pharmacy.getCip(), body.getExpedition_date());
 
         if (optCommand.isEmpty()) {
-            // Charger le PharmacyInformations pour ce compte
-            pharmacy.loadPharmacyInformationsForAccount(sender.getAccount().getId());
-
-            // Obtenir ou créer le PharmacyInformations pour ce compte
-            PharmacyInformations pharmacyInfo = pharmacy.getOrCreatePharmacyInformationsForAccount(sender.getAccount());
-
-            // Vérifier si c'est la première commande pour ce compte (neverOrdered est true par défaut)
-            Boolean newPharmacy = pharmacyInfo.getNeverOrdered();
-
-            // Marquer comme non nouvelle pharmacie maintenant qu'une commande est créée
-            pharmacyInfo.setNeverOrdered(false);
-            pharmacy.setPharmacyInformations(pharmacyInfo);
+            Boolean newPharmacy = markPharmacyOrdered(pharmacy, sender.getAccount());
             pharmacy = pharmacyService.save(pharmacy);
 
-            // Ajouter un commentaire dans PharmacyInformations si c'est une nouvelle pharmacie
-            if (newPharmacy) {
-                String comment = "Nouvelle pharmacie - Cle a avoir";
-                if (pharmacyInfo.getCommentaire() == null || pharmacyInfo.getCommentaire().isEmpty()) {
-                    pharmacyInfo.setCommentaire(comment);
-                } else if (!pharmacyInfo.getCommentaire().contains("Cle a avoir")) {
-                    pharmacyInfo.setCommentaire(pharmacyInfo.getCommentaire() + "\n" + comment);
-                }
-                pharmacy.setPharmacyInformations(pharmacyInfo);
-                pharmacy = pharmacyService.save(pharmacy);
-            }
-
             return commandService.createCommand(pharmacy, sender, null, body.getCommand(),
                 body.getExpedition_date(), newPharmacy);
         }
@@ -145,6 +333,36 @@ public class ImporterService {
         return optCommand.get();
     }
 
+    /**
+     * Passe neverOrdered à false pour le compte et ajoute le commentaire "Cle a avoir"
+     * s'il s'agit de la première commande. Retourne l'ancienne valeur de neverOrdered.
+     */
+    private Boolean markPharmacyOrdered(Pharmacy pharmacy, Account account) {
+        // Charger le PharmacyInformations pour ce compte
+        pharmacy.loadPharmacyInformationsForAccount(account.getId());
+
+        // Obtenir ou créer le PharmacyInformations pour ce compte
+        PharmacyInformations pharmacyInfo = pharmacy.getOrCreatePharmacyInformationsForAccount(account);
+
+        // Vérifier si c'est la première commande pour ce compte (neverOrdered est true par défaut)
+        Boolean newPharmacy = pharmacyInfo.getNeverOrdered();
+
+        // Marquer comme non nouvelle pharmacie maintenant qu'une commande est créée
+        pharmacyInfo.setNeverOrdered(false);
+
+        // Ajouter un commentaire dans PharmacyInformations si c'est une nouvelle pharmacie
+        if (newPharmacy) {
+            String comment = "Nouvelle pharmacie - Cle a avoir";
+            if (pharmacyInfo.getCommentaire() == null || pharmacyInfo.getCommentaire().isEmpty()) {
+                pharmacyInfo.setCommentaire(comment);
+            } else if (!pharmacyInfo.getCommentaire().contains("Cle a avoir")) {
+                pharmacyInfo.setCommentaire(pharmacyInfo.getCommentaire() + "\n" + comment);
+            }
+        }
+        pharmacy.setPharmacyInformations(pharmacyInfo);
+        return newPharmacy;
+    }
+
     @Transactional(propagation = Propagation.REQUIRED)
     protected List<PackageEntity> createPackagesInParallel(Command command, SendCommandRequestDTO body) {
         return body.getCommand().getPackages().stream()
@@ -19,6 +19,8 @@ import lombok.RequiredArgsConstructor;
 public class ImporterTokenService {
 
     private final ImporterTokenRepository importerTokenRepository;
+    private final PrincipalCacheService principalCacheService;
+    private final ImporterTokenUsageTracker importerTokenUsageTracker;
 
     @Transactional(readOnly = true)
     public List<ImporterToken> findAll() {
@@ -83,20 +85,22 @@ public class ImporterTokenService {
             importerToken.setExpCode(expCode);
         }
 
+        principalCacheService.evictImporterToken(importerToken.getToken());
         return importerTokenRepository.save(importerToken);
     }
 
     @Transactional
     public void delete(UUID id) {
+        importerTokenRepository.findById(id)
+            .ifPresent(t -> principalCacheService.evictImporterToken(t.getToken()));
         importerTokenRepository.deleteById(id);
     }
 
-    @Transactional
+    /**
+     * Enregistre l'utilisation du token ; l'écriture en base est différée (voir ImporterTokenUsageTracker).
+     */
     public void updateLastUsed(String token) {
-        importerTokenRepository.findByToken(token).ifPresent(t -> {
-            t.setLastUsedAt(LocalDateTime.now());
-            importerTokenRepository.save(t);
-        });
+        importerTokenUsageTracker.record(token, LocalDateTime.now());
     }
 
     private String generateToken() {
@@ -0,0 +1,61 @@
+package bzh.stack.apimovix.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import bzh.stack.apimovix.repository.ImporterTokenRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Suivi différé de la date de dernière utilisation des tokens importer.
+ * Chaque requête enregistre l'horodatage en mémoire ; un flush périodique émet
+ * un seul UPDATE par token avec la date la plus récente.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImporterTokenUsageTracker {
+
+    private final ImporterTokenRepository importerTokenRepository;
+
+    private final ConcurrentMap<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void record(String token, LocalDateTime usedAt) {
+        pending.merge(token, usedAt, (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+    }
+
+    @Scheduled(fixedDelayString = "${app.importer.last-used.flush-interval-ms:30000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<String> tokens = new ArrayList<>(pending.keySet());
+        for (String token : tokens) {
+            LocalDateTime lastUsedAt = pending.remove(token);
+            if (lastUsedAt == null) {
+                continue;
+            }
+            try {
+                importerTokenRepository.updateLastUsedAt(token, lastUsedAt);
+            } catch (Exception e) {
+                // Remettre la date en attente pour le prochain flush
+                record(token, lastUsedAt);
+                log.error("Erreur lors de la mise a jour de lastUsedAt d'un token importer", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+}
@@ -2,7 +2,6 @@ package bzh.stack.apimovix.service;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -19,7 +18,10 @@ import java.util.stream.Stream;
 
 import org.springframework.stereotype.Service;
 
+import bzh.stack.apimovix.dto.logs.LogChunkDTO;
 import bzh.stack.apimovix.dto.logs.LogFileDTO;
+import bzh.stack.apimovix.service.logs.LogFileReader;
+import bzh.stack.apimovix.service.logs.LogSegment;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -40,6 +42,7 @@ public class LogService {
         try (Stream<Path> paths = Files.walk(logsPath)) {
             logFiles = paths
                 .filter(Files::isRegularFile)
+                .filter(path -> !path.toString().endsWith(LogSegment.INDEX_EXTENSION))
                 .map(this::convertToLogFileDTO)
                 .collect(Collectors.toList());
         }
@@ -59,14 +62,37 @@ public class LogService {
             throw new IOException("Fichier non trouvé");
         }
 
-        // Essayer de lire avec UTF-8, sinon avec ISO-8859-1 comme fallback
-        try {
-            return Files.readString(logPath, StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            // Tenter avec l'encodage par défaut du système
-            byte[] bytes = Files.readAllBytes(logPath);
-            return new String(bytes, Charset.defaultCharset());
+        // Une seule lecture ; les octets invalides en UTF-8 sont remplacés au lieu de tout relire.
+        // Pour les gros fichiers, préférer readLogFileRange / tailLogFile.
+        return new String(Files.readAllBytes(logPath), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lit un morceau borné du fichier à partir d'un offset (voir LogFileReader)
+     */
+    public LogChunkDTO readLogFileRange(String relativePath, long offset, int length) throws IOException {
+        return LogFileReader.readRange(resolveExisting(relativePath), relativePath, offset, length);
+    }
+
+    /**
+     * Lit les dernières lignes du fichier, avant l'offset before s'il est fourni
+     */
+    public LogChunkDTO tailLogFile(String relativePath, int lines, Long before) throws IOException {
+        return LogFileReader.tail(resolveExisting(relativePath), relativePath, lines, before);
+    }
+
+    private Path resolveExisting(String relativePath) throws IOException {
+        Path logPath = Paths.get(LOGS_DIR, relativePath);
+
+        // Vérifier que le fichier est bien dans le répertoire logs (sécurité)
+        if (!logPath.normalize().startsWith(Paths.get(LOGS_DIR).normalize())) {
+            throw new SecurityException("Accès non autorisé au fichier");
+        }
+
+        if (!Files.isRegularFile(logPath)) {
+            throw new IOException("Fichier non trouvé");
         }
+        return logPath;
     }
 
     public void deleteLogFile(String relativePath) throws IOException {
@@ -82,6 +108,7 @@ public class LogService {
         }
 
         Files.delete(logPath);
+        Files.deleteIfExists(LogSegment.indexPathFor(logPath));
     }
 
     public void deleteAllLogFiles() throws IOException {
@@ -1,7 +1,10 @@
 package bzh.stack.apimovix.service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -13,6 +16,7 @@ import java.util.concurrent.Executors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -32,8 +36,11 @@ import bzh.stack.apimovix.dto.ors.OptimizeResponseDTO;
 import bzh.stack.apimovix.dto.ors.RouteRequestDTO;
 import bzh.stack.apimovix.dto.ors.RouteResponseDTO;
 import bzh.stack.apimovix.dto.ors.RouteSegmentDTO;
+import bzh.stack.apimovix.enums.OptimizeEngineENUM;
 import bzh.stack.apimovix.model.Command;
 import bzh.stack.apimovix.model.Tour;
+import bzh.stack.apimovix.service.optimizer.LocalRouteOptimizer;
+import bzh.stack.apimovix.util.PolylineCodec;
 
 /**
  * Service pour interagir avec l'API OpenRouteService (ORS)
@@ -43,7 +50,6 @@ public class ORSService {
     private static final Logger logger = LoggerFactory.getLogger(ORSService.class);
     private static final String BASE_URL = "http://ors.stack.bzh/v2/directions/driving-car";
     private static final String OPTIMIZE_URL = "http://ors.stack.bzh/optimize";
-    private static final double POLYLINE_FACTOR = 1e5;
     private static final double DISTANCE_CONVERSION_FACTOR = 100.0;
     private static final double DURATION_CONVERSION_FACTOR = 60.0;
     private static final double ROUNDING_FACTOR = 10.0;
@@ -51,10 +57,29 @@ public class ORSService {
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
-
-    public ORSService(RestTemplate restTemplate) {
+    private final RouteDistanceCacheService routeDistanceCacheService;
+    private final int matrixMaxDestinations;
+    private final LocalRouteOptimizer localRouteOptimizer;
+    private final RouteMatrixService routeMatrixService;
+    private final OptimizeEngineENUM defaultOptimizeEngine;
+
+    public ORSService(RestTemplate restTemplate, RouteDistanceCacheService routeDistanceCacheService,
+            LocalRouteOptimizer localRouteOptimizer,
+            RouteMatrixService routeMatrixService,
+            @Value("${app.ors.matrix.max-destinations:100}") int matrixMaxDestinations,
+            @Value("${app.ors.optimize.engine:Auto}") String defaultOptimizeEngine) {
         this.restTemplate = restTemplate;
         this.objectMapper = new ObjectMapper();
+        this.routeDistanceCacheService = routeDistanceCacheService;
+        this.localRouteOptimizer = localRouteOptimizer;
+        this.routeMatrixService = routeMatrixService;
+        this.matrixMaxDestinations = Math.max(1, matrixMaxDestinations);
+        OptimizeEngineENUM engine = OptimizeEngineENUM.fromParam(defaultOptimizeEngine, OptimizeEngineENUM.Auto);
+        this.defaultOptimizeEngine = engine != null ? engine : OptimizeEngineENUM.Auto;
+    }
+
+    public OptimizeEngineENUM getDefaultOptimizeEngine() {
+        return defaultOptimizeEngine;
     }
 
     /**
@@ -64,48 +89,14 @@ public class ORSService {
      * @return Liste des coordonnées décodées
      */
     private List<List<Double>> decodePolyline(String encoded) {
-        if (encoded == null || encoded.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        List<List<Double>> points = new ArrayList<>();
-        int index = 0;
-        int lat = 0;
-        int lng = 0;
-        int length = encoded.length();
-
-        while (index < length) {
-            lat += decodePolylineValue(encoded, index);
-            index = getNextIndex(encoded, index);
-
-            lng += decodePolylineValue(encoded, index);
-            index = getNextIndex(encoded, index);
-
-            points.add(List.of(lng / POLYLINE_FACTOR, lat / POLYLINE_FACTOR));
+        double[] latLng = PolylineCodec.decode(encoded);
+        List<List<Double>> points = new ArrayList<>(latLng.length / 2);
+        for (int i = 0; i < latLng.length; i += 2) {
+            points.add(List.of(latLng[i + 1], latLng[i]));
         }
-
         return points;
     }
 
-    private int decodePolylineValue(String encoded, int index) {
-        int result = 1;
-        int shift = 0;
-        int b;
-        do {
-            b = encoded.charAt(index++) - 63 - 1;
-            result += b << shift;
-            shift += 5;
-        } while (b >= 0x1f);
-        return (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
-    }
-
-    private int getNextIndex(String encoded, int currentIndex) {
-        while (currentIndex < encoded.length() && encoded.charAt(currentIndex) - 63 - 1 >= 0x1f) {
-            currentIndex++;
-        }
-        return currentIndex + 1;
-    }
-
     /**
      * Récupère les informations d'itinéraire
      * 
@@ -149,9 +140,14 @@ public class ORSService {
 
             RouteResponseDTO routeResponse = createRouteResponse(routes.get(0), request.getReturnCoords());
 
-            // Calculer les segments entre chaque point si plus de 2 points
+            // Segments entre chaque point : lus dans la réponse (un par étape), sans autre appel ORS
             if (request.getCoordinates() != null && request.getCoordinates().size() > 1) {
-                routeResponse.setSegments(calculateSegments(request.getCoordinates()));
+                List<RouteSegmentDTO> segments = segmentsFromRoute(routes.get(0), request.getCoordinates());
+                if (segments == null) {
+                    logger.debug("Segments absents de la réponse ORS, calcul étape par étape");
+                    segments = calculateSegments(request.getCoordinates());
+                }
+                routeResponse.setSegments(segments);
             }
 
             return Optional.of(routeResponse);
@@ -223,7 +219,82 @@ public class ORSService {
     }
 
     /**
-     * Calcule les segments (durées et distances) entre chaque point consécutif
+     * Construit les segments à partir du tableau "segments" de l'itinéraire ORS
+     * (distance en mètres et durée en secondes pour chaque étape entre deux points consécutifs)
+     *
+     * @param route       L'itinéraire renvoyé par ORS
+     * @param coordinates Les coordonnées demandées
+     * @return Liste des segments, ou null si la réponse ne contient pas un segment par étape
+     */
+    private List<RouteSegmentDTO> segmentsFromRoute(Map<String, Object> route, List<CoordsDTO> coordinates) {
+        Object rawSegments = route.get("segments");
+        if (!(rawSegments instanceof List<?> legs) || legs.size() != coordinates.size() - 1) {
+            return null;
+        }
+
+        List<RouteSegmentDTO> segments = new ArrayList<>(coordinates.size());
+        double cumulativeDistance = 0.0;
+        double cumulativeDuration = 0.0;
+
+        // Premier segment (point de départ)
+        RouteSegmentDTO firstSegment = new RouteSegmentDTO();
+        firstSegment.setCoord(coordinates.get(0));
+        firstSegment.setDistance(0.0);
+        firstSegment.setDuration(0.0);
+        firstSegment.setCumulativeDistance(0.0);
+        firstSegment.setCumulativeDuration(0.0);
+        segments.add(firstSegment);
+
+        for (int i = 0; i < legs.size(); i++) {
+            if (!(legs.get(i) instanceof Map<?, ?> leg)) {
+                return null;
+            }
+            // ORS omet distance et durée d'une étape nulle (points identiques)
+            Double legDistance = toDouble(leg.get("distance"));
+            Double legDuration = toDouble(leg.get("duration"));
+            if (legDistance == null || legDuration == null) {
+                return null;
+            }
+
+            // Mêmes arrondis que l'itinéraire complet (km à 2 décimales, minutes à 1 décimale)
+            double segmentDistance = round(legDistance / 1000.0 * DISTANCE_CONVERSION_FACTOR) / DISTANCE_CONVERSION_FACTOR;
+            double segmentDuration = round(legDuration / DURATION_CONVERSION_FACTOR * ROUNDING_FACTOR) / ROUNDING_FACTOR;
+            cumulativeDistance += segmentDistance;
+            cumulativeDuration += segmentDuration;
+
+            RouteSegmentDTO segment = new RouteSegmentDTO();
+            segment.setCoord(coordinates.get(i + 1));
+            segment.setDistance(segmentDistance);
+            segment.setDuration(segmentDuration);
+            segment.setCumulativeDistance(cumulativeDistance);
+            segment.setCumulativeDuration(cumulativeDuration);
+            segments.add(segment);
+        }
+
+        return segments;
+    }
+
+    /**
+     * Valeur numérique d'un champ ORS : 0 si absent, null si illisible
+     */
+    private Double toDouble(Object value) {
+        if (value == null) {
+            return 0.0;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calcule les segments (durées et distances) entre chaque point consécutif quand la réponse
+     * de l'itinéraire ne contient pas les segments : lus dans la matrice des points (RouteMatrixService),
+     * sinon un appel ORS par étape
      *
      * @param coordinates Liste des coordonnées
      * @return Liste des segments avec durées et distances
@@ -235,6 +306,7 @@ public class ORSService {
             return segments;
         }
 
+        Optional<DistanceMatrix> matrix = matrixFor(coordinates, true);
         double cumulativeDistance = 0.0;
         double cumulativeDuration = 0.0;
 
@@ -255,12 +327,19 @@ public class ORSService {
             RouteSegmentDTO segment = new RouteSegmentDTO();
             segment.setCoord(to);
 
-            // Calculer la distance et durée depuis le point précédent
-            RouteRequestDTO segmentRequest = new RouteRequestDTO();
-            segmentRequest.setCoordinates(List.of(from, to));
-            segmentRequest.setReturnCoords(false);
-
-            Optional<RouteResponseDTO> segmentRoute = getSegmentRoute(segmentRequest);
+            // Distance et durée depuis le point précédent : matrice des points, sinon itinéraire de l'étape
+            Optional<RouteResponseDTO> segmentRoute;
+            if (matrix.isPresent()) {
+                RouteResponseDTO leg = new RouteResponseDTO();
+                leg.setDistance(matrix.get().distanceKm(i - 1, i));
+                leg.setDuration(matrix.get().durationMin(i - 1, i));
+                segmentRoute = Optional.of(leg);
+            } else {
+                RouteRequestDTO segmentRequest = new RouteRequestDTO();
+                segmentRequest.setCoordinates(List.of(from, to));
+                segmentRequest.setReturnCoords(false);
+                segmentRoute = getSegmentRoute(segmentRequest);
+            }
 
             if (segmentRoute.isPresent()) {
                 double segmentDistance = segmentRoute.get().getDistance();
@@ -329,12 +408,68 @@ public class ORSService {
     }
 
     /**
-     * Optimise l'ordre des points pour minimiser la distance totale
+     * Optimise l'ordre des points pour minimiser la distance totale, avec le moteur par défaut
+     * (app.ors.optimize.engine)
      * 
      * @param request Les points à optimiser
      * @return L'ordre optimisé des points
      */
     public Optional<OptimizeResponseDTO> optimizePoints(OptimizeRequestDTO request) {
+        return optimizePoints(request, defaultOptimizeEngine);
+    }
+
+    /**
+     * Optimise l'ordre des points avec le moteur demandé :
+     * Remote (service /optimize), Local (LocalRouteOptimizer) ou Auto (Remote, Local en cas d'échec)
+     */
+    public Optional<OptimizeResponseDTO> optimizePoints(OptimizeRequestDTO request, OptimizeEngineENUM engine) {
+        switch (engine) {
+            case Remote:
+                return optimizePointsRemote(request);
+            case Local:
+                return optimizePointsLocal(request, true);
+            default:
+                Optional<OptimizeResponseDTO> remote = optimizePointsRemote(request);
+                if (remote.isPresent()) {
+                    return remote;
+                }
+                logger.warn("Optimisation distante indisponible, repli sur l'optimisation locale");
+                // ORS probablement indisponible : matrice routière seulement si déjà en cache
+                return optimizePointsLocal(request, false);
+        }
+    }
+
+    /**
+     * Ordre calculé localement ; la géométrie est demandée à ORS directions et reste vide si le service ne répond pas
+     */
+    private Optional<OptimizeResponseDTO> optimizePointsLocal(OptimizeRequestDTO request, boolean fetchRoadMatrix) {
+        Optional<List<String>> order = localRouteOptimizer.optimizeOrder(request.getCoordinates(), fetchRoadMatrix);
+        if (order.isEmpty()) {
+            logger.warn("Optimisation locale impossible : point de départ sans coordonnées");
+            return Optional.empty();
+        }
+
+        OptimizeResponseDTO responseDTO = new OptimizeResponseDTO();
+        responseDTO.setOptimizedOrder(order.get());
+
+        Map<String, CoordsDTO> coordsById = new HashMap<>();
+        request.getCoordinates().forEach(coords -> coordsById.putIfAbsent(coords.getId(), coords));
+        List<CoordsDTO> routeCoordinates = new ArrayList<>();
+        for (String id : order.get()) {
+            CoordsDTO coords = coordsById.get(id);
+            if (coords != null && coords.getLat() != null && coords.getLon() != null) {
+                routeCoordinates.add(coords);
+            }
+        }
+        routeCoordinates.add(request.getCoordinates().get(0));
+        RouteRequestDTO routeRequest = new RouteRequestDTO();
+        routeRequest.setCoordinates(routeCoordinates);
+        routeRequest.setReturnCoords(false);
+        getRouteInfo(routeRequest).ifPresent(route -> responseDTO.setGeometry(route.getGeometry()));
+        return Optional.of(responseDTO);
+    }
+
+    private Optional<OptimizeResponseDTO> optimizePointsRemote(OptimizeRequestDTO request) {
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
@@ -384,11 +519,53 @@ public class ORSService {
     public Optional<DistanceResponseDTO> getDrivingDistancesFromPoint(DistanceRequestDTO request) {
         try {
             DistanceResponseDTO responseDTO = new DistanceResponseDTO();
-            List<RouteResponseDTO> distances = request.getCoordinates().stream()
-                    .map(coord -> calculateDistanceForCoordinate(coord, request.getStart()))
-                    .toList();
 
-            responseDTO.setDistances(distances);
+            // Ligne du point de départ dans la matrice des points si elle est déjà en cache
+            // (seule cette ligne est utile : pas de matrice complète demandée)
+            List<CoordsDTO> coordinates = request.getCoordinates();
+            List<CoordsDTO> points = new ArrayList<>(coordinates.size() + 1);
+            points.add(request.getStart());
+            points.addAll(coordinates);
+            Optional<DistanceMatrix> matrix = matrixFor(points, false);
+            if (matrix.isPresent()) {
+                List<RouteResponseDTO> distances = new ArrayList<>(coordinates.size());
+                for (int i = 0; i < coordinates.size(); i++) {
+                    distances.add(distanceResponse(coordinates.get(i),
+                            matrix.get().distanceKm(0, i + 1), matrix.get().durationMin(0, i + 1)));
+                }
+                responseDTO.setDistances(distances);
+                return Optional.of(responseDTO);
+            }
+
+            // Sinon une requête matrix ORS 1×N par tranche de app.ors.matrix.max-destinations,
+            // un itinéraire par coordonnée seulement pour les tranches en erreur
+            RouteResponseDTO[] distances = new RouteResponseDTO[coordinates.size()];
+            List<Integer> located = new ArrayList<>(coordinates.size());
+            for (int i = 0; i < coordinates.size(); i++) {
+                if (hasCoordinates(coordinates.get(i))) {
+                    located.add(i);
+                } else {
+                    distances[i] = calculateDistanceForCoordinate(coordinates.get(i), request.getStart());
+                }
+            }
+            double[] start = hasCoordinates(request.getStart())
+                    ? new double[] { request.getStart().getLat(), request.getStart().getLon() }
+                    : null;
+            for (int from = 0; from < located.size(); from += matrixMaxDestinations) {
+                List<Integer> chunk = located.subList(from, Math.min(from + matrixMaxDestinations, located.size()));
+                Optional<double[][]> row = start == null ? Optional.empty()
+                        : routeMatrixService.getMatrixFromSource(start, chunk.stream()
+                                .map(i -> new double[] { coordinates.get(i).getLat(), coordinates.get(i).getLon() })
+                                .toList());
+                for (int k = 0; k < chunk.size(); k++) {
+                    CoordsDTO coord = coordinates.get(chunk.get(k));
+                    distances[chunk.get(k)] = row.isPresent()
+                            ? distanceResponse(coord, row.get()[0][k], row.get()[1][k])
+                            : calculateDistanceForCoordinate(coord, request.getStart());
+                }
+            }
+
+            responseDTO.setDistances(Arrays.asList(distances));
             return Optional.of(responseDTO);
         } catch (Exception e) {
             logger.error("Erreur lors du calcul des distances: {}", e.getMessage(), e);
@@ -396,6 +573,17 @@ public class ORSService {
         }
     }
 
+    private RouteResponseDTO distanceResponse(CoordsDTO coord, double distanceKm, double durationMin) {
+        RouteResponseDTO distance = createZeroDistanceResponse(coord);
+        distance.setDistance(distanceKm);
+        distance.setDuration(durationMin);
+        return distance;
+    }
+
+    private static boolean hasCoordinates(CoordsDTO coords) {
+        return coords != null && coords.getLat() != null && coords.getLon() != null;
+    }
+
     private RouteResponseDTO calculateDistanceForCoordinate(CoordsDTO coord, CoordsDTO start) {
         if (isSameCoordinate(coord, start)) {
             return createZeroDistanceResponse(coord);
@@ -412,6 +600,21 @@ public class ORSService {
                 .orElseGet(() -> createEmptyRouteResponse(coord));
     }
 
+    /**
+     * Matrice de ces coordonnées (RouteMatrixService), vide si l'une n'a pas de coordonnées.
+     * fetch : demander la matrice à ORS si elle n'est pas en cache
+     */
+    private Optional<DistanceMatrix> matrixFor(List<CoordsDTO> coordinates, boolean fetch) {
+        List<double[]> points = new ArrayList<>(coordinates.size());
+        for (CoordsDTO coords : coordinates) {
+            if (coords == null || coords.getLat() == null || coords.getLon() == null) {
+                return Optional.empty();
+            }
+            points.add(new double[] { coords.getLat(), coords.getLon() });
+        }
+        return fetch ? routeMatrixService.getMatrix(points) : routeMatrixService.getCachedMatrix(points);
+    }
+
     private boolean isSameCoordinate(CoordsDTO coord1, CoordsDTO coord2) {
         return coord1.getLat().equals(coord2.getLat()) &&
                 coord1.getLon().equals(coord2.getLon());
@@ -433,6 +636,14 @@ public class ORSService {
     }
 
     public Optional<RouteResponseDTO> calculateTourRoute(Tour tour) {
+        return getRouteInfo(buildTourRouteRequest(tour));
+    }
+
+    /**
+     * Requête d'itinéraire d'une tournée (dépôt, commandes dans l'ordre, retour au dépôt).
+     * Séparée de l'appel ORS pour être construite pendant que les entités sont chargées.
+     */
+    public RouteRequestDTO buildTourRouteRequest(Tour tour) {
         RouteRequestDTO routeRequestDTO = new RouteRequestDTO();
 
         CoordsDTO startCoords = new CoordsDTO();
@@ -465,12 +676,14 @@ public class ORSService {
         routeRequestDTO.setCoordinates(allCoordinates);
         routeRequestDTO.setReturnCoords(false);
 
-        return getRouteInfo(routeRequestDTO);
+        return routeRequestDTO;
     }
 
     /**
-     * Calcule les distances pour une liste de commandes en parallele (jusqu'a 10 threads simultanes).
-     * Evite les appels HTTP sequentiels vers l'API ORS.
+     * Calcule les distances pour une liste de commandes.
+     * Les distances déjà en cache sont réutilisées, les autres sont calculées avec une requête
+     * matrix ORS par dépôt (1 source, N destinations, découpée selon app.ors.matrix.max-destinations). En cas d'erreur, repli sur un appel directions
+     * par commande (jusqu'a 10 threads simultanes).
      *
      * @param commands La liste des commandes
      * @return Map commandId -> distance en km
@@ -482,6 +695,59 @@ public class ORSService {
 
         Map<UUID, Double> distanceCache = new ConcurrentHashMap<>();
 
+        // Dépôt -> destination -> commandes, pour les distances absentes du cache
+        Map<List<Double>, Map<List<Double>, List<Command>>> missingByDepot = new LinkedHashMap<>();
+        for (Command command : commands) {
+            Optional<double[]> coords = getCommandCoordinates(command);
+            if (coords.isEmpty()) {
+                distanceCache.put(command.getId(), 0.0);
+                continue;
+            }
+            double[] c = coords.get();
+            Optional<Double> cachedDistance = routeDistanceCacheService.findDistanceKm(c[0], c[1], c[2], c[3]);
+            if (cachedDistance.isPresent()) {
+                distanceCache.put(command.getId(), cachedDistance.get());
+                continue;
+            }
+            missingByDepot
+                    .computeIfAbsent(List.of(c[0], c[1]), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(List.of(c[2], c[3]), k -> new ArrayList<>())
+                    .add(command);
+        }
+
+        missingByDepot.forEach((depot, commandsByDestination) -> {
+            List<List<Double>> destinations = new ArrayList<>(commandsByDestination.keySet());
+            for (int from = 0; from < destinations.size(); from += matrixMaxDestinations) {
+                List<List<Double>> chunk = destinations.subList(from,
+                        Math.min(from + matrixMaxDestinations, destinations.size()));
+
+                Optional<double[][]> matrix = routeMatrixService.getMatrixFromSource(
+                        new double[] { depot.get(0), depot.get(1) },
+                        chunk.stream().map(destination -> new double[] { destination.get(0), destination.get(1) }).toList());
+                if (matrix.isPresent()) {
+                    double[] distancesKm = matrix.get()[0];
+                    double[] durationsMin = matrix.get()[1];
+                    for (int i = 0; i < chunk.size(); i++) {
+                        List<Double> destination = chunk.get(i);
+                        routeDistanceCacheService.put(depot.get(0), depot.get(1), destination.get(0), destination.get(1),
+                                distancesKm[i], durationsMin[i]);
+                        for (Command command : commandsByDestination.get(destination)) {
+                            distanceCache.put(command.getId(), distancesKm[i]);
+                        }
+                    }
+                } else {
+                    List<Command> fallbackCommands = chunk.stream()
+                            .flatMap(destination -> commandsByDestination.get(destination).stream())
+                            .toList();
+                    calculateCommandDistancesPerPair(fallbackCommands, distanceCache);
+                }
+            }
+        });
+
+        return distanceCache;
+    }
+
+    private void calculateCommandDistancesPerPair(List<Command> commands, Map<UUID, Double> distanceCache) {
         List<CompletableFuture<Void>> futures = commands.stream()
             .map(command -> CompletableFuture.runAsync(() -> {
                 distanceCache.put(command.getId(),
@@ -490,8 +756,25 @@ public class ORSService {
             .toList();
 
         CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
 
-        return distanceCache;
+    /**
+     * Coordonnées {latCompte, lonCompte, latPharmacie, lonPharmacie} d'une commande
+     */
+    private Optional<double[]> getCommandCoordinates(Command command) {
+        if (command == null || command.getPharmacy() == null
+                || command.getSender() == null || command.getSender().getAccount() == null) {
+            return Optional.empty();
+        }
+        Double accountLatitude = command.getSender().getAccount().getLatitude();
+        Double accountLongitude = command.getSender().getAccount().getLongitude();
+        Double pharmacyLatitude = command.getPharmacy().getLatitude();
+        Double pharmacyLongitude = command.getPharmacy().getLongitude();
+        if (accountLatitude == null || accountLongitude == null
+                || pharmacyLatitude == null || pharmacyLongitude == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new double[] { accountLatitude, accountLongitude, pharmacyLatitude, pharmacyLongitude });
     }
 
     /**
@@ -523,6 +806,13 @@ public class ORSService {
                 return Optional.empty();
             }
 
+            // Distance déjà connue pour ce couple de coordonnées
+            Optional<Double> cachedDistance = routeDistanceCacheService.findDistanceKm(
+                    accountLatitude, accountLongitude, pharmacyLatitude, pharmacyLongitude);
+            if (cachedDistance.isPresent()) {
+                return cachedDistance;
+            }
+
             // Création des coordonnées
             CoordsDTO pharmacyCoords = new CoordsDTO();
             pharmacyCoords.setLat(pharmacyLatitude);
@@ -544,6 +834,8 @@ public class ORSService {
             
             if (routeResponse.isPresent()) {
                 double distanceInKm = routeResponse.get().getDistance();
+                routeDistanceCacheService.put(accountLatitude, accountLongitude, pharmacyLatitude, pharmacyLongitude,
+                        distanceInKm, routeResponse.get().getDuration());
                 logger.debug("Distance calculée entre pharmacie et compte pour la commande {}: {} km", 
                            command.getId(), distanceInKm);
                 return Optional.of(distanceInKm);
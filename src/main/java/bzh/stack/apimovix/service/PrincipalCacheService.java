@@ -0,0 +1,179 @@
+package bzh.stack.apimovix.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import bzh.stack.apimovix.model.ImporterToken;
+import bzh.stack.apimovix.model.Profil;
+import bzh.stack.apimovix.repository.ImporterTokenRepository;
+import bzh.stack.apimovix.repository.ProfileRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache mémoire des principaux authentifiés, indexé par token.
+ * Évite la recherche par token de TokenInterceptor (profil + compte, token importer) à chaque requête.
+ * Seuls des instantanés immuables (identifiants, rôles, états actifs) sont partagés entre requêtes,
+ * jamais les entités : l'entité Profil est chargée par identifiant dans la requête qui en a besoin.
+ * Les services qui modifient un profil, un compte ou un token importer doivent appeler
+ * les méthodes evict* correspondantes.
+ */
+@Service
+public class PrincipalCacheService {
+
+    private final ProfileRepository profileRepository;
+    private final ImporterTokenRepository importerTokenRepository;
+
+    private final Cache<String, ProfilPrincipal> profilsByToken;
+    private final Cache<String, Optional<ImporterPrincipal>> importerTokensByToken;
+
+    public PrincipalCacheService(
+            ProfileRepository profileRepository,
+            ImporterTokenRepository importerTokenRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.auth.principal-cache.max-size:10000}") long maxSize,
+            @Value("${app.auth.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.profileRepository = profileRepository;
+        this.importerTokenRepository = importerTokenRepository;
+
+        this.profilsByToken = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        // Les résultats négatifs sont aussi mis en cache : isBetaProxyToken est appelé
+        // pour chaque requête authentifiée, y compris avec un token de profil.
+        this.importerTokensByToken = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, profilsByToken, "auth.principal.profil");
+        CaffeineCacheMetrics.monitor(meterRegistry, importerTokensByToken, "auth.principal.importer");
+    }
+
+    /**
+     * Instantané du profil associé au token. Seuls les tokens valides sont mis en cache.
+     */
+    public Optional<ProfilPrincipal> findProfilByToken(String token) {
+        return Optional.ofNullable(profilsByToken.get(token,
+                t -> profileRepository.findByToken(t).map(ProfilPrincipal::of).orElse(null)));
+    }
+
+    /**
+     * Profil (avec son compte) de ce principal, chargé dans le contexte de persistance de la requête
+     */
+    public Optional<Profil> loadProfil(ProfilPrincipal principal) {
+        return profileRepository.findById(principal.profilId());
+    }
+
+    /**
+     * Instantané du token importer associé au token, actif ou non.
+     */
+    public Optional<ImporterPrincipal> findImporterToken(String token) {
+        return importerTokensByToken.get(token, t -> importerTokenRepository.findByToken(t).map(ImporterPrincipal::of));
+    }
+
+    public Optional<ImporterPrincipal> findActiveImporterToken(String token) {
+        return findImporterToken(token).filter(ImporterPrincipal::active);
+    }
+
+    public boolean isBetaProxyToken(String token) {
+        return findActiveImporterToken(token)
+                .map(ImporterPrincipal::betaProxy)
+                .orElse(false);
+    }
+
+    public void evictProfil(String token) {
+        if (token == null) {
+            return;
+        }
+        runNowAndAfterCommit(() -> profilsByToken.invalidate(token));
+    }
+
+    /**
+     * Invalide tous les profils en cache rattachés au compte (le compte est embarqué dans le profil).
+     */
+    public void evictAccount(UUID accountId) {
+        if (accountId == null) {
+            return;
+        }
+        runNowAndAfterCommit(() -> profilsByToken.asMap().values()
+                .removeIf(p -> accountId.equals(p.accountId())));
+    }
+
+    public void evictImporterToken(String token) {
+        if (token == null) {
+            return;
+        }
+        runNowAndAfterCommit(() -> importerTokensByToken.invalidate(token));
+    }
+
+    /**
+     * Invalide immédiatement, puis de nouveau après le commit pour éviter qu'une requête
+     * concurrente ne remette en cache l'état antérieur pendant la transaction.
+     */
+    private void runNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * État d'un profil utile à l'autorisation, sans référence aux entités
+     */
+    public record ProfilPrincipal(
+            UUID profilId,
+            UUID accountId,
+            boolean active,
+            boolean accountActive,
+            boolean admin,
+            boolean web,
+            boolean mobile) {
+
+        static ProfilPrincipal of(Profil profil) {
+            return new ProfilPrincipal(
+                    profil.getId(),
+                    profil.getAccount() != null ? profil.getAccount().getId() : null,
+                    !Boolean.FALSE.equals(profil.getIsActive()),
+                    profil.getAccount() == null || !Boolean.FALSE.equals(profil.getAccount().getIsActive()),
+                    Boolean.TRUE.equals(profil.getIsAdmin()),
+                    Boolean.TRUE.equals(profil.getIsWeb()),
+                    Boolean.TRUE.equals(profil.getIsMobile()));
+        }
+    }
+
+    /**
+     * État d'un token importer utile à l'autorisation et aux imports, sans référence à l'entité
+     */
+    public record ImporterPrincipal(
+            UUID id,
+            boolean active,
+            boolean betaProxy,
+            String expCode) {
+
+        static ImporterPrincipal of(ImporterToken token) {
+            return new ImporterPrincipal(
+                    token.getId(),
+                    Boolean.TRUE.equals(token.getIsActive()),
+                    Boolean.TRUE.equals(token.getIsBetaProxy()),
+                    token.getExpCode());
+        }
+    }
+}
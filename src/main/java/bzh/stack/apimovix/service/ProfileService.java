@@ -38,6 +38,7 @@ public class ProfileService {
     private final EmailService emailService;
     private final AccountRepository accountRepository;
     private final PictureService pictureService;
+    private final PrincipalCacheService principalCacheService;
 
     @Value("${app.site-url}")
     private String siteUrl;
@@ -139,6 +140,7 @@ public class ProfileService {
             profil.setProfilPicture(picturePath);
         }
 
+        principalCacheService.evictProfil(profil.getToken());
         return Optional.of(profileRepository.save(profil));
     }
 
@@ -186,6 +188,7 @@ public class ProfileService {
             profil.setProfilPicture(picturePath);
         }
 
+        principalCacheService.evictProfil(profil.getToken());
         return Optional.of(profileRepository.save(profil));
     }
 
@@ -197,6 +200,7 @@ public class ProfileService {
         }
         profil.setDeleted(true);
         profileRepository.save(profil);
+        principalCacheService.evictProfil(profil.getToken());
         return true;
     }
 
@@ -212,6 +216,7 @@ public class ProfileService {
         String hashedNewPassword = hashPassword(newPassword);
         profil.setPasswordHash(hashedNewPassword);
         profileRepository.save(profil);
+        principalCacheService.evictProfil(profil.getToken());
         
         return true;
     }
@@ -276,6 +281,7 @@ public class ProfileService {
         String hashedNewPassword = hashPassword(newPassword);
         profil.setPasswordHash(hashedNewPassword);
         profileRepository.save(profil);
+        principalCacheService.evictProfil(profil.getToken());
         
         return true;
     }
@@ -535,6 +541,7 @@ public class ProfileService {
             profil.setProfilPicture(picturePath);
         }
 
+        principalCacheService.evictProfil(profil.getToken());
         return Optional.of(profileRepository.save(profil));
     }
 
@@ -550,6 +557,7 @@ public class ProfileService {
         Profil profil = optProfil.get();
         profil.setDeleted(true);
         profileRepository.save(profil);
+        principalCacheService.evictProfil(profil.getToken());
         return true;
     }
 
@@ -604,6 +612,7 @@ public class ProfileService {
             profil.setProfilPicture(picturePath);
         }
 
+        principalCacheService.evictProfil(profil.getToken());
         return profileRepository.save(profil);
     }
 } 
\ No newline at end of file
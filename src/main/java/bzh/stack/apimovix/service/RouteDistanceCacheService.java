@@ -0,0 +1,150 @@
+package bzh.stack.apimovix.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import bzh.stack.apimovix.model.RouteDistance;
+import bzh.stack.apimovix.repository.RouteDistanceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache à deux niveaux des distances routières ORS : LRU en mémoire devant la table
+ * route_distance_cache. Les coordonnées sont arrondies à app.ors.distance-cache.precision
+ * décimales pour former la clé.
+ * Les écritures en base passent par une transaction dédiée (upsert) : elles ne dépendent pas de la
+ * transaction de l'appelant (lecture seule notamment) et un échec n'y remonte pas.
+ */
+@Service
+@Slf4j
+public class RouteDistanceCacheService {
+
+    private final RouteDistanceRepository routeDistanceRepository;
+    private final TransactionTemplate writeTransaction;
+    private final Cache<String, RouteDistance> localCache;
+    private final double precisionFactor;
+    private final Duration ttl;
+
+    public RouteDistanceCacheService(
+            RouteDistanceRepository routeDistanceRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.ors.distance-cache.precision:4}") int precision,
+            @Value("${app.ors.distance-cache.ttl-days:90}") long ttlDays,
+            @Value("${app.ors.distance-cache.max-size:50000}") long maxSize) {
+        this.routeDistanceRepository = routeDistanceRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.precisionFactor = Math.pow(10, precision);
+        this.ttl = Duration.ofDays(ttlDays);
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "ors.distance");
+    }
+
+    public Optional<RouteDistance> find(double fromLat, double fromLon, double toLat, double toLon) {
+        String key = pairKey(round(fromLat), round(fromLon), round(toLat), round(toLon));
+
+        RouteDistance cached = localCache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        try {
+            Optional<RouteDistance> stored = routeDistanceRepository.findById(key)
+                    .filter(rd -> rd.getComputedAt().isAfter(LocalDateTime.now().minus(ttl)));
+            stored.ifPresent(rd -> localCache.put(key, rd));
+            return stored;
+        } catch (Exception e) {
+            log.warn("Lecture du cache de distances impossible: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public Optional<Double> findDistanceKm(double fromLat, double fromLon, double toLat, double toLon) {
+        return find(fromLat, fromLon, toLat, toLon).map(RouteDistance::getDistanceKm);
+    }
+
+    /**
+     * Distance du cache mémoire uniquement, sans lecture en base (matrices de nombreux points)
+     */
+    public Optional<Double> findLocalDistanceKm(double fromLat, double fromLon, double toLat, double toLon) {
+        RouteDistance cached = localCache.getIfPresent(pairKey(round(fromLat), round(fromLon), round(toLat), round(toLon)));
+        return cached != null ? Optional.of(cached.getDistanceKm()) : Optional.empty();
+    }
+
+    public void put(double fromLat, double fromLon, double toLat, double toLon, double distanceKm, Double durationMin) {
+        RouteDistance routeDistance = new RouteDistance();
+        routeDistance.setFromLat(round(fromLat));
+        routeDistance.setFromLon(round(fromLon));
+        routeDistance.setToLat(round(toLat));
+        routeDistance.setToLon(round(toLon));
+        routeDistance.setPairKey(pairKey(routeDistance.getFromLat(), routeDistance.getFromLon(),
+                routeDistance.getToLat(), routeDistance.getToLon()));
+        routeDistance.setDistanceKm(distanceKm);
+        routeDistance.setDurationMin(durationMin);
+        routeDistance.setComputedAt(LocalDateTime.now());
+
+        localCache.put(routeDistance.getPairKey(), routeDistance);
+        try {
+            writeTransaction.executeWithoutResult(status -> routeDistanceRepository.upsert(routeDistance.getPairKey(),
+                    routeDistance.getFromLat(), routeDistance.getFromLon(), routeDistance.getToLat(), routeDistance.getToLon(),
+                    routeDistance.getDistanceKm(), routeDistance.getDurationMin(), routeDistance.getComputedAt()));
+        } catch (Exception e) {
+            log.warn("Ecriture du cache de distances impossible: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Supprime toutes les distances ayant ce point comme origine ou destination
+     * (à appeler quand une pharmacie ou un compte change de coordonnées).
+     */
+    public void invalidatePoint(Double lat, Double lon) {
+        if (lat == null || lon == null) {
+            return;
+        }
+        double roundedLat = round(lat);
+        double roundedLon = round(lon);
+
+        localCache.asMap().values().removeIf(rd ->
+                (rd.getFromLat() == roundedLat && rd.getFromLon() == roundedLon)
+                || (rd.getToLat() == roundedLat && rd.getToLon() == roundedLon));
+        routeDistanceRepository.deleteByPoint(roundedLat, roundedLon);
+    }
+
+    /**
+     * Purge quotidienne des distances expirées
+     */
+    @Scheduled(cron = "0 30 2 * * *")
+    public void purgeExpired() {
+        try {
+            int deleted = routeDistanceRepository.deleteComputedBefore(LocalDateTime.now().minus(ttl));
+            log.info("Cache de distances: {} entrees expirees supprimees", deleted);
+        } catch (Exception e) {
+            log.error("Erreur lors de la purge du cache de distances", e);
+        }
+    }
+
+    private double round(double value) {
+        return Math.round(value * precisionFactor) / precisionFactor;
+    }
+
+    private String pairKey(double fromLat, double fromLon, double toLat, double toLon) {
+        return fromLat + "," + fromLon + ">" + toLat + "," + toLon;
+    }
+}
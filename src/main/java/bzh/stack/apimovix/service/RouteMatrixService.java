@@ -0,0 +1,286 @@
+package bzh.stack.apimovix.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Matrices NxN distance/durée ORS par ensemble de points (tournée, optimisation...) :
+ * - clé : points arrondis à 1e-5 degré, dédoublonnés et triés ; un ordre différent des mêmes points réutilise la matrice
+ * - un point ajouté, retiré ou déplacé donne une autre clé : l'ancienne matrice n'est plus lue et expire
+ *   (app.ors.matrix-cache.ttl-minutes)
+ * - calcul par requêtes matrix ORS d'au plus app.ors.matrix.max-routes cellules (quelques sources × tous les points)
+ * - au plus app.ors.matrix-cache.max-points points ; au-delà, vide et les appelants gardent leurs calculs par paire
+ * - cache borné à app.ors.matrix-cache.max-cells cellules
+ * Seul appel matrix ORS du projet : getMatrixFromSource sert aussi les lignes 1×N sans cache (distances depuis un dépôt).
+ * Valeurs arrondies comme les itinéraires (km à 2 décimales, minutes à 1 décimale).
+ */
+@Slf4j
+@Service
+public class RouteMatrixService {
+
+    private static final String MATRIX_URL = "http://ors.stack.bzh/v2/matrix/driving-car";
+    private static final double COORDINATE_FACTOR = 1e5;
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<StopSet, DistanceMatrix> matrices;
+    private final int maxPoints;
+    private final int maxRoutes;
+
+    public RouteMatrixService(
+            RestTemplate restTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.ors.matrix.max-routes:2500}") int maxRoutes,
+            @Value("${app.ors.matrix-cache.max-points:150}") int maxPoints,
+            @Value("${app.ors.matrix-cache.max-cells:2000000}") long maxCells,
+            @Value("${app.ors.matrix-cache.ttl-minutes:720}") long ttlMinutes) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = new ObjectMapper();
+        this.maxRoutes = Math.max(1, maxRoutes);
+        this.maxPoints = maxPoints;
+        this.matrices = Caffeine.newBuilder()
+                .maximumWeight(maxCells)
+                .weigher((StopSet key, DistanceMatrix matrix) -> matrix.size() * matrix.size())
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, matrices, "ors.matrix");
+    }
+
+    /**
+     * Matrice des points dans l'ordre demandé (chaque point : {lat, lon}), depuis le cache ou ORS ;
+     * vide si trop de points ou si ORS ne renvoie pas une matrice complète
+     */
+    public Optional<DistanceMatrix> getMatrix(List<double[]> points) {
+        return lookup(points, true);
+    }
+
+    /**
+     * Comme getMatrix, sans appel ORS : vide si la matrice de cet ensemble n'est pas en cache
+     */
+    public Optional<DistanceMatrix> getCachedMatrix(List<double[]> points) {
+        return lookup(points, false);
+    }
+
+    private Optional<DistanceMatrix> lookup(List<double[]> points, boolean compute) {
+        if (points == null || points.isEmpty()) {
+            return Optional.empty();
+        }
+        long[] requested = new long[points.size()];
+        for (int i = 0; i < requested.length; i++) {
+            requested[i] = pack(points.get(i)[0], points.get(i)[1]);
+        }
+        long[] stops = Arrays.stream(requested).distinct().sorted().toArray();
+        if (stops.length > maxPoints) {
+            return Optional.empty();
+        }
+
+        StopSet key = new StopSet(stops);
+        DistanceMatrix matrix = matrices.getIfPresent(key);
+        if (matrix == null) {
+            if (!compute) {
+                return Optional.empty();
+            }
+            // Hors du cache pendant les appels ORS : deux demandes simultanées du même ensemble peuvent le calculer deux fois
+            matrix = fetch(stops);
+            if (matrix == null) {
+                return Optional.empty();
+            }
+            matrices.put(key, matrix);
+        }
+
+        int[] indexes = new int[requested.length];
+        for (int i = 0; i < requested.length; i++) {
+            indexes[i] = Arrays.binarySearch(stops, requested[i]);
+        }
+        return Optional.of(matrix.select(indexes));
+    }
+
+    /**
+     * Ligne de la source vers chaque destination (points {lat, lon}), sans cache : une seule requête matrix ORS,
+     * l'appelant découpe les destinations.
+     *
+     * @return {distances en km, durées en minutes} indexées comme destinations, ou vide en cas d'erreur
+     *         ou de destination non routable
+     */
+    public Optional<double[][]> getMatrixFromSource(double[] source, List<double[]> destinations) {
+        List<List<Double>> locations = new ArrayList<>(destinations.size() + 1);
+        locations.add(List.of(source[1], source[0]));
+        List<Integer> destinationIndexes = new ArrayList<>(destinations.size());
+        for (int i = 0; i < destinations.size(); i++) {
+            locations.add(List.of(destinations.get(i)[1], destinations.get(i)[0]));
+            destinationIndexes.add(i + 1);
+        }
+
+        try {
+            MatrixRows rows = request(locations, List.of(0), destinationIndexes);
+            if (rows == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new double[][] { rows.distancesKm()[0], rows.durationsMin()[0] });
+        } catch (Exception e) {
+            log.warn("Erreur lors de la requete matrix ORS ({} destinations): {}", destinations.size(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private DistanceMatrix fetch(long[] stops) {
+        int size = stops.length;
+        DistanceMatrix matrix = new DistanceMatrix(size);
+        if (size == 1) {
+            return matrix;
+        }
+
+        List<List<Double>> locations = new ArrayList<>(size);
+        for (long stop : stops) {
+            locations.add(List.of(longitude(stop), latitude(stop)));
+        }
+
+        int rowsPerRequest = Math.max(1, Math.min(size, maxRoutes / size));
+        try {
+            for (int from = 0; from < size; from += rowsPerRequest) {
+                int to = Math.min(from + rowsPerRequest, size);
+                List<Integer> sources = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    sources.add(i);
+                }
+
+                MatrixRows rows = request(locations, sources, null);
+                if (rows == null) {
+                    return null;
+                }
+                for (int r = 0; r < sources.size(); r++) {
+                    for (int j = 0; j < size; j++) {
+                        matrix.set(from + r, j, rows.distancesKm()[r][j], rows.durationsMin()[r][j]);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Erreur lors de la requete matrix ORS ({} points): {}", size, e.getMessage());
+            return null;
+        }
+        return matrix;
+    }
+
+    /**
+     * Requête matrix ORS (locations en {lon, lat}) : une ligne par source, une colonne par destination
+     * (tous les points si destinations est null), arrondies comme les itinéraires (km à 2 décimales, minutes à 1 décimale).
+     * Null si la réponse est incomplète ou si un point n'est pas routable : les appelants gardent leurs calculs par paire.
+     */
+    private MatrixRows request(List<List<Double>> locations, List<Integer> sources, List<Integer> destinations) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("locations", locations);
+        body.put("sources", sources);
+        if (destinations != null) {
+            body.put("destinations", destinations);
+        }
+        body.put("metrics", List.of("distance", "duration"));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        Map<String, Object> response = restTemplate.exchange(
+                MATRIX_URL,
+                HttpMethod.POST,
+                new HttpEntity<>(body, headers),
+                new ParameterizedTypeReference<Map<String, Object>>() {
+                }).getBody();
+
+        if (response == null || !response.containsKey("distances") || !response.containsKey("durations")) {
+            log.warn("Reponse matrix ORS incomplete pour {} points", locations.size());
+            return null;
+        }
+        List<List<Number>> distances = objectMapper.convertValue(response.get("distances"),
+                new TypeReference<List<List<Number>>>() {
+                });
+        List<List<Number>> durations = objectMapper.convertValue(response.get("durations"),
+                new TypeReference<List<List<Number>>>() {
+                });
+        if (distances.size() != sources.size() || durations.size() != sources.size()) {
+            log.warn("Dimensions de la matrice ORS inattendues pour {} points", locations.size());
+            return null;
+        }
+
+        int columns = destinations != null ? destinations.size() : locations.size();
+        double[][] distancesKm = new double[sources.size()][columns];
+        double[][] durationsMin = new double[sources.size()][columns];
+        for (int r = 0; r < sources.size(); r++) {
+            List<Number> distanceRow = distances.get(r);
+            List<Number> durationRow = durations.get(r);
+            if (distanceRow.size() != columns || durationRow.size() != columns) {
+                log.warn("Dimensions de la matrice ORS inattendues pour {} points", locations.size());
+                return null;
+            }
+            for (int j = 0; j < columns; j++) {
+                Number distance = distanceRow.get(j);
+                Number duration = durationRow.get(j);
+                if (distance == null || duration == null) {
+                    log.debug("Point non routable dans la matrice ORS ({} points)", locations.size());
+                    return null;
+                }
+                distancesKm[r][j] = Math.round(distance.doubleValue() / 1000.0 * 100.0) / 100.0;
+                durationsMin[r][j] = Math.round(duration.doubleValue() / 60.0 * 10.0) / 10.0;
+            }
+        }
+        return new MatrixRows(distancesKm, durationsMin);
+    }
+
+    private static long pack(double latitude, double longitude) {
+        long lat = Math.round(latitude * COORDINATE_FACTOR);
+        long lon = Math.round(longitude * COORDINATE_FACTOR);
+        return (lat << 32) | (lon & 0xffffffffL);
+    }
+
+    private static double latitude(long stop) {
+        return (int) (stop >> 32) / COORDINATE_FACTOR;
+    }
+
+    private static double longitude(long stop) {
+        return (int) stop / COORDINATE_FACTOR;
+    }
+
+    private record MatrixRows(double[][] distancesKm, double[][] durationsMin) {
+    }
+
+    /**
+     * Ensemble de points trié (latE5 << 32 | lonE5)
+     */
+    private record StopSet(long[] stops) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StopSet other && Arrays.equals(stops, other.stops);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(stops);
+        }
+
+        @Override
+        public String toString() {
+            return "StopSet[" + stops.length + "]";
+        }
+    }
+}
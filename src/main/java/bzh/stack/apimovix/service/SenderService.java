@@ -1,8 +1,12 @@
 package bzh.stack.apimovix.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,6 +36,12 @@ public class SenderService {
         return senderRepository.findById(code);
     }
 
+    @Transactional(readOnly = true)
+    public Map<String, Sender> findSenders(Collection<String> codes) {
+        return senderRepository.findAllById(codes).stream()
+                .collect(Collectors.toMap(Sender::getCode, Function.identity()));
+    }
+
     @Transactional(readOnly = true)
     public Optional<Sender> findFirstSenderByAccount(Account account) {
         return senderRepository.findFirstByAccount(account);
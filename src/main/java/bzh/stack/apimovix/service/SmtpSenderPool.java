@@ -0,0 +1,234 @@
+package bzh.stack.apimovix.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+
+import bzh.stack.apimovix.model.Account;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Expéditeurs SMTP personnalisés des comptes, conservés entre les envois :
+ * - une session et une connexion SMTP ouverte par compte, réutilisées d'un email à l'autre
+ *   (pas de nouvelle connexion ni de négociation TLS par email)
+ * - les envois d'un même compte passent l'un après l'autre sur cette connexion
+ * - connexion fermée après app.mail.smtp-pool.idle-seconds sans envoi
+ * - configuration SMTP du compte modifiée : l'expéditeur est recréé (comparaison des paramètres à chaque envoi)
+ */
+@Slf4j
+@Service
+public class SmtpSenderPool {
+
+    private final Cache<UUID, PooledSender> senders;
+
+    public SmtpSenderPool(
+            MeterRegistry meterRegistry,
+            @Value("${app.mail.smtp-pool.max-accounts:200}") long maxAccounts,
+            @Value("${app.mail.smtp-pool.idle-seconds:60}") long idleSeconds) {
+        this.senders = Caffeine.newBuilder()
+                .maximumSize(maxAccounts)
+                .expireAfterAccess(Duration.ofSeconds(idleSeconds))
+                .scheduler(Scheduler.systemScheduler())
+                .<UUID, PooledSender>removalListener((accountId, sender, cause) -> {
+                    if (sender != null) {
+                        sender.retire();
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, senders, "mail.smtp.senders");
+    }
+
+    public MimeMessage createMimeMessage(Account account) {
+        return sender(account).mailSender.createMimeMessage();
+    }
+
+    public void send(Account account, MimeMessage message) throws MessagingException {
+        MessagingException failure = sendAll(account, List.of(message)).get(0);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Envoie les messages sur une seule connexion.
+     * Retourne l'erreur de chaque message (null si envoyé), dans l'ordre de la liste.
+     */
+    public List<MessagingException> sendAll(Account account, List<MimeMessage> messages) {
+        return sender(account).send(messages);
+    }
+
+    /**
+     * Ferme la connexion du compte ; appelé à la modification de sa configuration SMTP
+     */
+    public void invalidate(UUID accountId) {
+        senders.invalidate(accountId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.invalidateAll();
+    }
+
+    private PooledSender sender(Account account) {
+        SmtpSettings settings = SmtpSettings.of(account);
+        return senders.asMap().compute(account.getId(), (accountId, current) -> {
+            if (current != null && current.settings.equals(settings)) {
+                return current;
+            }
+            // Nouvelle configuration : l'ancien expéditeur est fermé par le removalListener
+            return new PooledSender(settings);
+        });
+    }
+
+    /**
+     * Paramètres SMTP d'un compte, vérifiés ; sert aussi à détecter une modification de configuration
+     */
+    private record SmtpSettings(String host, int port, String username, String password, boolean tls, boolean ssl) {
+
+        static SmtpSettings of(Account account) {
+            if (account.getSmtpHost() == null || account.getSmtpHost().trim().isEmpty()) {
+                throw new RuntimeException("Host SMTP non configuré");
+            }
+            if (account.getSmtpPort() == null) {
+                throw new RuntimeException("Port SMTP non configuré");
+            }
+            if (account.getSmtpUsername() == null || account.getSmtpUsername().trim().isEmpty()) {
+                throw new RuntimeException("Nom d'utilisateur SMTP non configuré");
+            }
+            if (account.getSmtpPassword() == null || account.getSmtpPassword().trim().isEmpty()) {
+                throw new RuntimeException("Mot de passe SMTP non configuré");
+            }
+            return new SmtpSettings(
+                    account.getSmtpHost().trim(),
+                    account.getSmtpPort(),
+                    account.getSmtpUsername().trim(),
+                    account.getSmtpPassword(),
+                    Boolean.TRUE.equals(account.getSmtpUseTls()),
+                    Boolean.TRUE.equals(account.getSmtpUseSsl()));
+        }
+
+        @Override
+        public String toString() {
+            return username + "@" + host + ":" + port;
+        }
+    }
+
+    /**
+     * Session et connexion SMTP d'un compte ; accès sous synchronized
+     */
+    private static final class PooledSender {
+        private final SmtpSettings settings;
+        private final JavaMailSenderImpl mailSender;
+        private Transport transport;
+        private boolean retired;
+
+        PooledSender(SmtpSettings settings) {
+            this.settings = settings;
+            this.mailSender = new JavaMailSenderImpl();
+            mailSender.setHost(settings.host());
+            mailSender.setPort(settings.port());
+            mailSender.setUsername(settings.username());
+            mailSender.setPassword(settings.password());
+
+            Properties props = mailSender.getJavaMailProperties();
+            props.put("mail.transport.protocol", "smtp");
+            props.put("mail.smtp.auth", "true");
+
+            if (settings.tls()) {
+                props.put("mail.smtp.starttls.enable", "true");
+                props.put("mail.smtp.starttls.required", "true");
+            }
+
+            if (settings.ssl()) {
+                props.put("mail.smtp.socketFactory.port", settings.port());
+                props.put("mail.smtp.socketFactory.class", "javax.net.ssl.SSLSocketFactory");
+            }
+
+            props.put("mail.smtp.connectiontimeout", "5000");
+            props.put("mail.smtp.timeout", "5000");
+            props.put("mail.smtp.writetimeout", "5000");
+        }
+
+        synchronized List<MessagingException> send(List<MimeMessage> messages) {
+            List<MessagingException> failures = new ArrayList<>(messages.size());
+            try {
+                // Connexion vérifiée (NOOP) une fois par lot, pas à chaque message
+                boolean checked = false;
+                for (MimeMessage message : messages) {
+                    failures.add(sendOne(message, checked));
+                    checked = transport != null;
+                }
+            } finally {
+                if (retired) {
+                    closeTransport();
+                }
+            }
+            return failures;
+        }
+
+        synchronized void retire() {
+            retired = true;
+            closeTransport();
+        }
+
+        private MessagingException sendOne(MimeMessage message, boolean checked) {
+            try {
+                message.saveChanges();
+                try {
+                    (checked ? transport : connectedTransport()).sendMessage(message, message.getAllRecipients());
+                } catch (SendFailedException e) {
+                    // Destinataire refusé : la connexion reste utilisable
+                    throw e;
+                } catch (MessagingException e) {
+                    // Connexion fermée par le serveur entre deux envois : une reconnexion puis un nouvel essai
+                    log.debug("Connexion SMTP {} perdue, reconnexion : {}", settings, e.getMessage());
+                    closeTransport();
+                    connectedTransport().sendMessage(message, message.getAllRecipients());
+                }
+                return null;
+            } catch (MessagingException e) {
+                return e;
+            }
+        }
+
+        private Transport connectedTransport() throws MessagingException {
+            if (transport == null || !transport.isConnected()) {
+                closeTransport();
+                Transport newTransport = mailSender.getSession().getTransport();
+                newTransport.connect(settings.host(), settings.port(), settings.username(), settings.password());
+                transport = newTransport;
+            }
+            return transport;
+        }
+
+        private void closeTransport() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Fermeture de la connexion SMTP {} : {}", settings, e.getMessage());
+            }
+            transport = null;
+        }
+    }
+}
@@ -2,15 +2,16 @@ package bzh.stack.apimovix.service.command;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
 import bzh.stack.apimovix.dto.anomalie.AnomalieCreateDTO;
 import bzh.stack.apimovix.dto.command.CommandExpeditionDTO;
@@ -40,7 +41,7 @@ import bzh.stack.apimovix.service.packageservices.PackageService;
 import bzh.stack.apimovix.service.packageservices.PackageStatusService;
 import bzh.stack.apimovix.service.pharmacy.PharmacyService;
 import bzh.stack.apimovix.service.picture.PictureService;
-import bzh.stack.apimovix.service.tour.TourCommandService;
+import bzh.stack.apimovix.service.tour.TourRouteService;
 import bzh.stack.apimovix.util.GLOBAL;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -57,7 +58,7 @@ public class CommandService {
     private final PackageStatusService packageStatusService;
     private final HistoryPackageStatusService historyPackageStatusService;
     private final AnomalieService anomalieService;
-    private final TourCommandService tourCommandService;
+    private final TourRouteService tourRouteService;
 
     public CommandService(
             CommandRepository commandRepository,
@@ -70,7 +71,7 @@ public class CommandService {
             PackageStatusService packageStatusService,
             HistoryPackageStatusService historyPackageStatusService,
             AnomalieService anomalieService,
-            @Lazy TourCommandService tourCommandService) {
+            TourRouteService tourRouteService) {
         this.commandRepository = commandRepository;
         this.commandPictureRepository = commandPictureRepository;
         this.commandStatusService = commandStatusService;
@@ -81,7 +82,7 @@ public class CommandService {
         this.packageStatusService = packageStatusService;
         this.historyPackageStatusService = historyPackageStatusService;
         this.anomalieService = anomalieService;
-        this.tourCommandService = tourCommandService;
+        this.tourRouteService = tourRouteService;
     }
 
     @Transactional(readOnly = true)
@@ -94,6 +95,21 @@ public class CommandService {
         return Optional.ofNullable(command);
     }
 
+    /**
+     * Commandes "à enlever" des pharmacies données entre deux dates, les plus récentes d'abord
+     */
+    @Transactional(readOnly = true)
+    public List<Command> findPharmacyCommandsByDates(Account account, Collection<String> cips,
+            LocalDateTime startDate, LocalDateTime endDate) {
+        List<Command> commands = commandRepository.findPharmacyCommandsByDates(account, cips, startDate, endDate);
+        commands.forEach(command -> {
+            if (command.getPharmacy() != null) {
+                command.getPharmacy().loadPharmacyInformationsForAccount(account.getId());
+            }
+        });
+        return commands;
+    }
+
     @Transactional
     public Command save(Command command) {
         return commandRepository.save(command);
@@ -135,6 +151,22 @@ public class CommandService {
         if (sender == null || sender.getCode() == null)
             return null;
 
+        Command command = buildCommand(pharmacy, sender, commandDTO, expDate, newPharmacy);
+        command = commandRepository.save(command);
+
+        Optional<CommandStatus> commandStatus = commandStatusService.findCommandStatus(1);
+        HistoryCommandStatus status = historyCommandStatusService.createHistoryCommandStatus(command, profil,
+                commandStatus.get());
+
+        command.setLastHistoryStatus(status);
+        return commandRepository.save(command);
+    }
+
+    /**
+     * Construit une commande non persistée (identifiant attribué)
+     */
+    public Command buildCommand(Pharmacy pharmacy, Sender sender, CommandImporterDTO commandDTO,
+            LocalDateTime expDate, Boolean newPharmacy) {
         Command command = new Command();
 
         if (commandDTO != null) {
@@ -145,16 +177,7 @@ public class CommandService {
         command.setPharmacy(pharmacy);
         command.setId(UUID.randomUUID());
         command.setNewPharmacy(newPharmacy);
-        
-
-        command = commandRepository.save(command);
-
-        Optional<CommandStatus> commandStatus = commandStatusService.findCommandStatus(1);
-        HistoryCommandStatus status = historyCommandStatusService.createHistoryCommandStatus(command, profil,
-                commandStatus.get());
-
-        command.setLastHistoryStatus(status);
-        return commandRepository.save(command);
+        return command;
     }
 
     private Integer mapCommandStatusToPackageStatus(Integer commandStatusId) {
@@ -347,6 +370,16 @@ public class CommandService {
     @Transactional
     public CommandPicture createCommandPicture(Command command, String base64Image) {
         String fileName = pictureService.saveCommandImage(command, base64Image);
+        return attachCommandPicture(command, fileName);
+    }
+
+    @Transactional
+    public CommandPicture createCommandPicture(Command command, MultipartFile file) {
+        String fileName = pictureService.saveCommandImage(command, file);
+        return attachCommandPicture(command, fileName);
+    }
+
+    private CommandPicture attachCommandPicture(Command command, String fileName) {
         CommandPicture picture = null;
 
         if (fileName != null) {
@@ -521,7 +554,7 @@ public class CommandService {
             java.util.Set<String> tourIds = toursToRefresh.stream()
                 .map(Tour::getId)
                 .collect(java.util.stream.Collectors.toSet());
-            tourCommandService.updateTourRoutes(profil.getAccount(), tourIds);
+            tourRouteService.schedule(profil.getAccount(), tourIds);
         }
 
         return true;
@@ -25,13 +25,17 @@ public class HistoryCommandStatusService {
 
     @Transactional
     public HistoryCommandStatus createHistoryCommandStatus(Command command, Profil profil, CommandStatus status, LocalDateTime createdAt) {
+        return historyCommandStatusRepository.save(buildHistoryCommandStatus(command, profil, status, createdAt));
+    }
+
+    public HistoryCommandStatus buildHistoryCommandStatus(Command command, Profil profil, CommandStatus status, LocalDateTime createdAt) {
         HistoryCommandStatus historyCommandStatus = new HistoryCommandStatus();
         historyCommandStatus.setCommand(command);
         historyCommandStatus.setProfil(profil);
         historyCommandStatus.setId(UUID.randomUUID());
         historyCommandStatus.setStatus(status);
         historyCommandStatus.setCreatedAt(createdAt);
-        return historyCommandStatusRepository.save(historyCommandStatus);
+        return historyCommandStatus;
     }
 
     @Transactional
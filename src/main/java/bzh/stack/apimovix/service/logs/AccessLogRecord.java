@@ -0,0 +1,33 @@
+package bzh.stack.apimovix.service.logs;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Entrée du journal d'accès, construite sur le thread de la requête et formatée
+ * plus tard par AccessLogWriter. Les corps sont déjà bornés par RequestCaptureFilter.
+ */
+@Getter
+@Builder
+public class AccessLogRecord {
+    private final ZonedDateTime timestamp;
+    private final String token;
+    private final long durationMs;
+    private final String ip;
+    private final String userAgent;
+    private final String method;
+    private final String uri;
+    private final String queryString;
+    /** En-têtes de requête déjà formatés "nom: valeur" (valeurs sensibles masquées) */
+    private final List<String> requestHeaders;
+    private final byte[] requestBody;
+    private final int status;
+    private final String contentType;
+    private final List<String> responseHeaders;
+    private final byte[] responseBody;
+    private final boolean responseTruncated;
+    private final String exception;
+}
@@ -0,0 +1,276 @@
+package bzh.stack.apimovix.service.logs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Écriture asynchrone du journal d'accès en segments NDJSON indexés
+ * (logs/api/yyyy/MM/dd/<token>.ndjson + <token>.idx, voir LogSegment).
+ * - le thread de la requête dépose l'entrée dans une file bornée sans verrou
+ * - un thread unique regroupe les entrées par lot et par segment, garde les segments ouverts (LRU)
+ *   et fait tourner un segment quand il dépasse app.logging.access.max-file-bytes
+ * - file remplie aux 3/4 : seules les erreurs et 1 succès sur sample-rate sont gardés ; file pleine : rejet
+ * Les rejets sont comptés dans la métrique access.log.dropped.
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+
+    public static final String LOG_DIRECTORY = "logs/api";
+    private static final DateTimeFormatter DATE_DIRECTORY_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final DateTimeFormatter ROTATION_SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("HHmmssSSS");
+
+    @Value("${app.logging.access.queue-capacity:8192}")
+    private int queueCapacity;
+
+    @Value("${app.logging.access.batch-size:256}")
+    private int batchSize;
+
+    @Value("${app.logging.access.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.logging.access.max-open-files:64}")
+    private int maxOpenFiles;
+
+    @Value("${app.logging.access.max-file-bytes:52428800}")
+    private long maxFileBytes;
+
+    @Value("${app.logging.access.sample-rate:10}")
+    private int sampleRate;
+
+    private final ConcurrentLinkedQueue<AccessLogRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    private final Counter droppedFull;
+    private final Counter droppedSampled;
+    private final Counter written;
+
+    // Accédés uniquement par le thread d'écriture
+    private final Map<Path, LogSegment> openSegments = new LinkedHashMap<>(16, 0.75f, true);
+    private LocalDate openSegmentsDate;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    private final ObjectMapper objectMapper;
+
+    public AccessLogWriter(MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.droppedFull = Counter.builder("access.log.dropped").tag("reason", "full").register(meterRegistry);
+        this.droppedSampled = Counter.builder("access.log.dropped").tag("reason", "sampled").register(meterRegistry);
+        this.written = Counter.builder("access.log.written").register(meterRegistry);
+        Gauge.builder("access.log.queue.size", queueSize, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writerThread = new Thread(this::run, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Dépose une entrée sans bloquer ; peut la rejeter si l'écriture ne suit pas
+     */
+    public void submit(AccessLogRecord record) {
+        int size = queueSize.get();
+        if (size >= queueCapacity * 3 / 4 && record.getStatus() < 400
+                && sampleCounter.incrementAndGet() % Math.max(sampleRate, 1) != 0) {
+            droppedSampled.increment();
+            return;
+        }
+        if (queueSize.incrementAndGet() > queueCapacity) {
+            queueSize.decrementAndGet();
+            droppedFull.increment();
+            return;
+        }
+        queue.offer(record);
+    }
+
+    private void run() {
+        List<AccessLogRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            AccessLogRecord record;
+            while (batch.size() < batchSize && (record = queue.poll()) != null) {
+                batch.add(record);
+            }
+            queueSize.addAndGet(-batch.size());
+
+            if (batch.isEmpty()) {
+                closeSegmentsIfDayChanged();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                continue;
+            }
+
+            try {
+                writeBatch(batch);
+                written.increment(batch.size());
+            } catch (Exception e) {
+                log.warn("Écriture du journal d'accès impossible: {}", e.getMessage());
+            }
+            batch.clear();
+        }
+        closeAllSegments();
+    }
+
+    private void writeBatch(List<AccessLogRecord> batch) {
+        closeSegmentsIfDayChanged();
+
+        Map<Path, List<LogSegment.Line>> linesBySegment = new LinkedHashMap<>();
+        for (AccessLogRecord record : batch) {
+            Path path = Paths.get(LOG_DIRECTORY, record.getTimestamp().format(DATE_DIRECTORY_FORMATTER),
+                record.getToken() + LogSegment.DATA_EXTENSION);
+            try {
+                linesBySegment.computeIfAbsent(path, p -> new ArrayList<>()).add(new LogSegment.Line(
+                    objectMapper.writeValueAsBytes(toJson(record)),
+                    record.getTimestamp().toInstant().toEpochMilli(),
+                    record.getStatus(),
+                    record.getUri()));
+            } catch (JsonProcessingException e) {
+                log.warn("Sérialisation d'une entrée du journal d'accès impossible: {}", e.getMessage());
+            }
+        }
+
+        for (Map.Entry<Path, List<LogSegment.Line>> entry : linesBySegment.entrySet()) {
+            try {
+                LogSegment segment = segmentFor(entry.getKey());
+                segment.append(entry.getValue());
+                if (segment.size() > maxFileBytes) {
+                    rotate(entry.getKey());
+                }
+            } catch (IOException e) {
+                closeSegment(entry.getKey());
+                log.warn("Écriture du journal d'accès {} impossible: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private LogSegment segmentFor(Path path) throws IOException {
+        LogSegment segment = openSegments.get(path);
+        if (segment != null) {
+            return segment;
+        }
+
+        segment = LogSegment.open(path);
+        openSegments.put(path, segment);
+
+        // Fermer les segments les moins récemment utilisés au-delà de la limite
+        Iterator<Map.Entry<Path, LogSegment>> it = openSegments.entrySet().iterator();
+        while (openSegments.size() > maxOpenFiles && it.hasNext()) {
+            Map.Entry<Path, LogSegment> eldest = it.next();
+            it.remove();
+            closeQuietly(eldest.getValue());
+        }
+        return segment;
+    }
+
+    /**
+     * Renomme le segment plein (données et index) en <token>.HHmmssSSS ;
+     * l'écriture suivante repart d'un segment vide
+     */
+    private void rotate(Path path) throws IOException {
+        closeSegment(path);
+        String suffix = "." + LocalTime.now().format(ROTATION_SUFFIX_FORMATTER);
+        String base = path.getFileName().toString();
+        base = base.substring(0, base.length() - LogSegment.DATA_EXTENSION.length());
+        Path rotated = path.resolveSibling(base + suffix + LogSegment.DATA_EXTENSION);
+        Files.move(LogSegment.indexPathFor(path), LogSegment.indexPathFor(rotated));
+        Files.move(path, rotated);
+    }
+
+    private void closeSegmentsIfDayChanged() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(openSegmentsDate)) {
+            closeAllSegments();
+            openSegmentsDate = today;
+        }
+    }
+
+    private void closeSegment(Path path) {
+        LogSegment segment = openSegments.remove(path);
+        if (segment != null) {
+            closeQuietly(segment);
+        }
+    }
+
+    private void closeAllSegments() {
+        openSegments.values().forEach(this::closeQuietly);
+        openSegments.clear();
+    }
+
+    private void closeQuietly(LogSegment segment) {
+        try {
+            segment.close();
+        } catch (IOException e) {
+            // Rien à faire
+        }
+    }
+
+    private ObjectNode toJson(AccessLogRecord record) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("timestamp", record.getTimestamp().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+        node.put("durationMs", record.getDurationMs());
+        node.put("ip", record.getIp());
+        node.put("userAgent", record.getUserAgent());
+        node.put("method", record.getMethod());
+        node.put("uri", record.getUri());
+        node.put("queryString", record.getQueryString());
+        ArrayNode requestHeaders = node.putArray("requestHeaders");
+        record.getRequestHeaders().forEach(requestHeaders::add);
+        if (record.getRequestBody() != null && record.getRequestBody().length > 0) {
+            node.put("requestBody", new String(record.getRequestBody(), StandardCharsets.UTF_8));
+        }
+        node.put("status", record.getStatus());
+        node.put("contentType", record.getContentType());
+        ArrayNode responseHeaders = node.putArray("responseHeaders");
+        record.getResponseHeaders().forEach(responseHeaders::add);
+        if (record.getResponseBody() != null && record.getResponseBody().length > 0) {
+            node.put("responseBody", new String(record.getResponseBody(), StandardCharsets.UTF_8));
+            node.put("responseTruncated", record.isResponseTruncated());
+        }
+        if (record.getException() != null) {
+            node.put("exception", record.getException());
+        }
+        return node;
+    }
+}
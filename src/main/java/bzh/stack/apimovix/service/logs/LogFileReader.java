@@ -0,0 +1,100 @@
+package bzh.stack.apimovix.service.logs;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import bzh.stack.apimovix.dto.logs.LogChunkDTO;
+
+/**
+ * Lecture partielle d'un fichier de log via une projection mémoire (MappedByteBuffer) :
+ * seul le morceau demandé est copié dans le tas, quelle que soit la taille du fichier.
+ * Les morceaux sont coupés sur des fins de ligne quand c'est possible.
+ */
+public final class LogFileReader {
+
+    public static final int MAX_CHUNK_BYTES = 1024 * 1024;
+    private static final int TAIL_WINDOW_BYTES = 64 * 1024;
+
+    private LogFileReader() {
+    }
+
+    /**
+     * Lit au plus length octets à partir de offset
+     */
+    public static LogChunkDTO readRange(Path file, String relativePath, long offset, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long start = Math.min(Math.max(offset, 0), fileSize);
+            int size = (int) Math.min(Math.min(Math.max(length, 0), MAX_CHUNK_BYTES), fileSize - start);
+            if (size == 0) {
+                return new LogChunkDTO(relativePath, "", start, start, fileSize, start > 0, false);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+
+            // Arrêter après la dernière fin de ligne pour ne pas couper une entrée
+            int end = size;
+            if (start + size < fileSize) {
+                for (int i = size - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        end = i + 1;
+                        break;
+                    }
+                }
+            }
+
+            byte[] bytes = new byte[end];
+            buffer.get(0, bytes);
+            long endOffset = start + end;
+            return new LogChunkDTO(relativePath, new String(bytes, StandardCharsets.UTF_8), start, endOffset, fileSize,
+                start > 0, endOffset < fileSize);
+        }
+    }
+
+    /**
+     * Lit les lines dernières lignes avant l'offset before (fin du fichier si null),
+     * dans la limite de MAX_CHUNK_BYTES
+     */
+    public static LogChunkDTO tail(Path file, String relativePath, int lines, Long before) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long end = before != null ? Math.min(Math.max(before, 0), fileSize) : fileSize;
+            long limit = Math.max(end - MAX_CHUNK_BYTES, 0);
+            int wanted = Math.max(lines, 1);
+
+            // Remonter par fenêtres en comptant les fins de ligne (celle qui termine le morceau ne compte pas)
+            long start = limit;
+            int found = 0;
+            long position = end;
+            boolean done = false;
+            while (position > limit && !done) {
+                long windowStart = Math.max(position - TAIL_WINDOW_BYTES, limit);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, position - windowStart);
+                for (int i = (int) (position - windowStart) - 1; i >= 0; i--) {
+                    long absolute = windowStart + i;
+                    if (window.get(i) == '\n' && absolute != end - 1) {
+                        found++;
+                        if (found == wanted) {
+                            start = absolute + 1;
+                            done = true;
+                            break;
+                        }
+                    }
+                }
+                position = windowStart;
+            }
+
+            int size = (int) (end - start);
+            byte[] bytes = new byte[size];
+            if (size > 0) {
+                channel.map(FileChannel.MapMode.READ_ONLY, start, size).get(0, bytes);
+            }
+            return new LogChunkDTO(relativePath, new String(bytes, StandardCharsets.UTF_8), start, end, fileSize,
+                start > 0, end < fileSize);
+        }
+    }
+}
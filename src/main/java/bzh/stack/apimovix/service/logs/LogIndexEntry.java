@@ -0,0 +1,55 @@
+package bzh.stack.apimovix.service.logs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Ligne de l'index (.idx) d'un segment NDJSON :
+ * offset, longueur, horodatage (epoch ms), statut HTTP et URI, séparés par des tabulations.
+ */
+@Getter
+@AllArgsConstructor
+public class LogIndexEntry {
+    private static final int MAX_URI_LENGTH = 128;
+
+    private final long offset;
+    private final int length;
+    private final long timestamp;
+    private final int status;
+    private final String uri;
+
+    public String toLine() {
+        return offset + "\t" + length + "\t" + timestamp + "\t" + status + "\t" + uri + "\n";
+    }
+
+    /**
+     * @return l'entrée, ou null si la ligne est incomplète ou invalide
+     */
+    public static LogIndexEntry parse(String line) {
+        String[] parts = line.split("\t", 5);
+        if (parts.length < 5) {
+            return null;
+        }
+        try {
+            return new LogIndexEntry(
+                Long.parseLong(parts[0]),
+                Integer.parseInt(parts[1]),
+                Long.parseLong(parts[2]),
+                Integer.parseInt(parts[3]),
+                parts[4]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * URI telle que stockée dans l'index : sans tabulation ni retour à la ligne, tronquée
+     */
+    public static String indexableUri(String uri) {
+        if (uri == null) {
+            return "";
+        }
+        String clean = uri.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+        return clean.length() > MAX_URI_LENGTH ? clean.substring(0, MAX_URI_LENGTH) : clean;
+    }
+}
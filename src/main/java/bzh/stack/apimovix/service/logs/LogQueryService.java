@@ -0,0 +1,156 @@
+package bzh.stack.apimovix.service.logs;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import bzh.stack.apimovix.dto.logs.LogQueryDTO;
+import bzh.stack.apimovix.dto.logs.LogQueryResultDTO;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Recherche dans les segments NDJSON (journal d'accès, journal d'erreurs).
+ * Seuls les index .idx sont parcourus ; les entrées de la page demandée sont ensuite
+ * lues à leur offset, sans charger les fichiers de données.
+ * Les fichiers texte antérieurs au format NDJSON (sans index) sont ignorés.
+ */
+@Service
+@RequiredArgsConstructor
+public class LogQueryService {
+
+    private static final DateTimeFormatter DATE_DIRECTORY_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_DAYS = 31;
+    // Profondeur maximale (page + 1) × size : borne la taille du tas en mémoire
+    private static final int MAX_RESULT_WINDOW = 10_000;
+
+    private final ObjectMapper objectMapper;
+
+    @AllArgsConstructor
+    private static class Match {
+        private final Path dataPath;
+        private final LogIndexEntry entry;
+    }
+
+    public LogQueryResultDTO query(String rootDirectory, LogQueryDTO query) throws IOException {
+        LocalDate from = query.getFrom() != null ? query.getFrom() : LocalDate.now();
+        LocalDate to = query.getTo() != null ? query.getTo() : from;
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("La date de fin est antérieure à la date de début");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new IllegalArgumentException("Intervalle limité à " + MAX_DAYS + " jours");
+        }
+
+        int page = Math.max(query.getPage() != null ? query.getPage() : 0, 0);
+        int size = Math.min(Math.max(query.getSize() != null ? query.getSize() : 50, 1), MAX_PAGE_SIZE);
+        if ((long) (page + 1) * size > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Pagination limitée aux " + MAX_RESULT_WINDOW
+                    + " entrées les plus récentes : réduire l'intervalle ou ajouter des filtres");
+        }
+        int keep = (page + 1) * size;
+
+        // Tas des "keep" entrées les plus récentes : la mémoire dépend de la page, pas du volume de logs
+        PriorityQueue<Match> newest = new PriorityQueue<>(Comparator.comparingLong(m -> m.entry.getTimestamp()));
+        long total = 0;
+
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Path dayDirectory = Paths.get(rootDirectory, day.format(DATE_DIRECTORY_FORMATTER));
+            if (!Files.isDirectory(dayDirectory)) {
+                continue;
+            }
+            try (DirectoryStream<Path> indexes = Files.newDirectoryStream(dayDirectory, "*" + LogSegment.INDEX_EXTENSION)) {
+                for (Path indexPath : indexes) {
+                    if (!matchesToken(indexPath, query.getToken())) {
+                        continue;
+                    }
+                    Path dataPath = LogSegment.dataPathFor(indexPath);
+                    try (BufferedReader reader = Files.newBufferedReader(indexPath, StandardCharsets.UTF_8)) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            LogIndexEntry entry = LogIndexEntry.parse(line);
+                            if (entry == null || !matches(entry, query)) {
+                                continue;
+                            }
+                            total++;
+                            newest.add(new Match(dataPath, entry));
+                            if (newest.size() > keep) {
+                                newest.poll();
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Match> sorted = new ArrayList<>(newest);
+        sorted.sort(Comparator.comparingLong((Match m) -> m.entry.getTimestamp()).reversed());
+
+        List<JsonNode> records = new ArrayList<>();
+        for (int i = page * size; i < sorted.size(); i++) {
+            records.add(readRecord(sorted.get(i)));
+        }
+
+        return new LogQueryResultDTO(total, page, size, records);
+    }
+
+    private boolean matchesToken(Path indexPath, String token) {
+        if (token == null || token.isBlank()) {
+            return true;
+        }
+        String sanitized = token.replaceAll("[/\\\\:*?\"<>|]", "_");
+        String name = indexPath.getFileName().toString();
+        String base = name.substring(0, name.length() - LogSegment.INDEX_EXTENSION.length());
+        // Segments tournés : <token>.HHmmssSSS
+        return base.equals(sanitized) || base.startsWith(sanitized + ".");
+    }
+
+    private boolean matches(LogIndexEntry entry, LogQueryDTO query) {
+        if (query.getStatus() != null && entry.getStatus() != query.getStatus()) {
+            return false;
+        }
+        if (query.getMinStatus() != null && entry.getStatus() < query.getMinStatus()) {
+            return false;
+        }
+        if (query.getUriPrefix() != null && !query.getUriPrefix().isBlank()
+                && !entry.getUri().startsWith(query.getUriPrefix())) {
+            return false;
+        }
+        return true;
+    }
+
+    private JsonNode readRecord(Match match) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(match.entry.getLength());
+        try (FileChannel channel = FileChannel.open(match.dataPath, StandardOpenOption.READ)) {
+            long position = match.entry.getOffset();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+            }
+        }
+        return objectMapper.readTree(buffer.array(), 0, buffer.position());
+    }
+}
@@ -0,0 +1,106 @@
+package bzh.stack.apimovix.service.logs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Segment de journal : un fichier NDJSON (une entrée JSON par ligne) et son index .idx.
+ * Les données sont écrites avant l'index : une entrée indexée est toujours lisible.
+ * Non thread-safe, un seul écrivain par segment.
+ */
+public class LogSegment implements Closeable {
+
+    public static final String DATA_EXTENSION = ".ndjson";
+    public static final String INDEX_EXTENSION = ".idx";
+
+    @Getter
+    @AllArgsConstructor
+    public static class Line {
+        private final byte[] json;
+        private final long timestamp;
+        private final int status;
+        private final String uri;
+    }
+
+    private final FileChannel data;
+    private final FileChannel index;
+
+    private LogSegment(FileChannel data, FileChannel index) {
+        this.data = data;
+        this.index = index;
+    }
+
+    public static LogSegment open(Path dataPath) throws IOException {
+        Files.createDirectories(dataPath.getParent());
+        FileChannel data = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            FileChannel index = FileChannel.open(indexPathFor(dataPath), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            return new LogSegment(data, index);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+    }
+
+    public static Path indexPathFor(Path dataPath) {
+        String name = dataPath.getFileName().toString();
+        String base = name.endsWith(DATA_EXTENSION) ? name.substring(0, name.length() - DATA_EXTENSION.length()) : name;
+        return dataPath.resolveSibling(base + INDEX_EXTENSION);
+    }
+
+    public static Path dataPathFor(Path indexPath) {
+        String name = indexPath.getFileName().toString();
+        String base = name.endsWith(INDEX_EXTENSION) ? name.substring(0, name.length() - INDEX_EXTENSION.length()) : name;
+        return indexPath.resolveSibling(base + DATA_EXTENSION);
+    }
+
+    public long size() throws IOException {
+        return data.size();
+    }
+
+    /**
+     * Ajoute les lignes en une écriture pour les données et une pour l'index
+     */
+    public void append(List<Line> lines) throws IOException {
+        long offset = data.size();
+        ByteArrayOutputStream dataBytes = new ByteArrayOutputStream(lines.size() * 1024);
+        StringBuilder indexLines = new StringBuilder(lines.size() * 64);
+
+        for (Line line : lines) {
+            dataBytes.write(line.getJson());
+            dataBytes.write('\n');
+            indexLines.append(new LogIndexEntry(offset, line.getJson().length, line.getTimestamp(), line.getStatus(),
+                LogIndexEntry.indexableUri(line.getUri())).toLine());
+            offset += line.getJson().length + 1;
+        }
+
+        writeFully(data, ByteBuffer.wrap(dataBytes.toByteArray()));
+        writeFully(index, ByteBuffer.wrap(indexLines.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package bzh.stack.apimovix.service.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import bzh.stack.apimovix.dto.common.CoordsDTO;
+import bzh.stack.apimovix.service.DistanceMatrix;
+import bzh.stack.apimovix.service.RouteDistanceCacheService;
+import bzh.stack.apimovix.service.RouteMatrixService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optimisation locale de l'ordre de passage, sans appel au service /optimize distant :
+ * - le premier point est le dépôt (départ et retour), les autres sont réordonnés
+ * - coûts : matrice routière des points (RouteMatrixService : en cache, ou demandée à ORS si fetchRoadMatrix),
+ *   sinon distances du cache mémoire (RouteDistanceCacheService) et haversine × app.ors.optimize.local.road-factor
+ * - app.ors.optimize.local.restarts redémarrages (TspSolver) en parallèle sur un ForkJoinPool dédié,
+ *   bornés par app.ors.optimize.local.time-limit-ms ; la meilleure tournée est retenue
+ * Les points sans coordonnées sont ajoutés en fin d'ordre, dans l'ordre reçu.
+ * Métrique : ors.optimize.local.
+ */
+@Slf4j
+@Service
+public class LocalRouteOptimizer {
+
+    private final RouteDistanceCacheService routeDistanceCacheService;
+    private final RouteMatrixService routeMatrixService;
+    private final ForkJoinPool pool;
+    private final int restarts;
+    private final int iterations;
+    private final long timeLimitMillis;
+    private final double roadFactor;
+    private final double averageSpeedKmh;
+    private final Timer optimizeTimer;
+
+    public LocalRouteOptimizer(
+            RouteDistanceCacheService routeDistanceCacheService,
+            RouteMatrixService routeMatrixService,
+            MeterRegistry meterRegistry,
+            @Value("${app.ors.optimize.local.parallelism:0}") int parallelism,
+            @Value("${app.ors.optimize.local.restarts:0}") int restarts,
+            @Value("${app.ors.optimize.local.iterations:300}") int iterations,
+            @Value("${app.ors.optimize.local.time-limit-ms:2000}") long timeLimitMillis,
+            @Value("${app.ors.optimize.local.road-factor:1.3}") double roadFactor,
+            @Value("${app.ors.optimize.local.average-speed-kmh:50}") double averageSpeedKmh) {
+        this.routeDistanceCacheService = routeDistanceCacheService;
+        this.routeMatrixService = routeMatrixService;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads);
+        this.restarts = restarts > 0 ? restarts : threads;
+        this.iterations = Math.max(0, iterations);
+        this.timeLimitMillis = timeLimitMillis;
+        this.roadFactor = roadFactor;
+        this.averageSpeedKmh = averageSpeedKmh;
+        this.optimizeTimer = Timer.builder("ors.optimize.local").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Identifiants des points dans l'ordre de passage, dépôt en tête ; vide si le dépôt n'a pas de coordonnées.
+     * fetchRoadMatrix : demander la matrice routière à ORS si elle n'est pas en cache
+     */
+    public Optional<List<String>> optimizeOrder(List<CoordsDTO> coordinates, boolean fetchRoadMatrix) {
+        if (coordinates == null || coordinates.isEmpty() || !hasCoordinates(coordinates.get(0))) {
+            return Optional.empty();
+        }
+
+        List<CoordsDTO> located = new ArrayList<>();
+        List<CoordsDTO> unlocated = new ArrayList<>();
+        located.add(coordinates.get(0));
+        for (CoordsDTO coords : coordinates.subList(1, coordinates.size())) {
+            (hasCoordinates(coords) ? located : unlocated).add(coords);
+        }
+
+        long start = System.nanoTime();
+        int[] order = solve(buildMatrix(located, fetchRoadMatrix));
+        optimizeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        List<String> ids = new ArrayList<>(coordinates.size());
+        for (int index : order) {
+            ids.add(located.get(index).getId());
+        }
+        unlocated.forEach(coords -> ids.add(coords.getId()));
+        return Optional.of(ids);
+    }
+
+    /**
+     * Matrice routière des points, sinon matrice approchée corrigée par les distances routières déjà connues en mémoire
+     */
+    DistanceMatrix buildMatrix(List<CoordsDTO> points, boolean fetchRoadMatrix) {
+        int size = points.size();
+        double[] latLng = new double[size * 2];
+        List<double[]> stops = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            latLng[2 * i] = points.get(i).getLat();
+            latLng[2 * i + 1] = points.get(i).getLon();
+            stops.add(new double[] { latLng[2 * i], latLng[2 * i + 1] });
+        }
+        Optional<DistanceMatrix> roadMatrix = fetchRoadMatrix
+                ? routeMatrixService.getMatrix(stops)
+                : routeMatrixService.getCachedMatrix(stops);
+        if (roadMatrix.isPresent()) {
+            return roadMatrix.get();
+        }
+
+        DistanceMatrix matrix = DistanceMatrix.approximate(latLng, roadFactor, averageSpeedKmh);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (i == j) {
+                    continue;
+                }
+                int from = i;
+                int to = j;
+                routeDistanceCacheService.findLocalDistanceKm(latLng[2 * i], latLng[2 * i + 1], latLng[2 * j], latLng[2 * j + 1])
+                        .ifPresent(km -> matrix.set(from, to, km, matrix.durationMin(from, to)));
+            }
+        }
+        return matrix;
+    }
+
+    private int[] solve(DistanceMatrix matrix) {
+        TspSolver solver = new TspSolver(matrix);
+        if (matrix.size() <= 3) {
+            return solver.nearestNeighbour(null);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+        List<Callable<int[]>> tasks = IntStream.range(0, restarts)
+                .<Callable<int[]>>mapToObj(restart -> () -> solver.solve(restart, iterations, deadline))
+                .toList();
+
+        int[] best = null;
+        double bestLength = Double.MAX_VALUE;
+        try {
+            for (Future<int[]> future : pool.invokeAll(tasks)) {
+                int[] tour = future.get();
+                double length = solver.length(tour);
+                if (length < bestLength) {
+                    best = tour;
+                    bestLength = length;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Erreur lors de l'optimisation locale", e.getCause());
+        }
+
+        if (best == null) {
+            best = solver.nearestNeighbour(null);
+            solver.improve(best);
+            bestLength = solver.length(best);
+        }
+        log.debug("Optimisation locale de {} points : {} km estimes ({} redemarrages)",
+                matrix.size(), Math.round(bestLength * 10) / 10.0, restarts);
+        return best;
+    }
+
+    private static boolean hasCoordinates(CoordsDTO coords) {
+        return coords != null && coords.getLat() != null && coords.getLon() != null;
+    }
+}
@@ -0,0 +1,224 @@
+package bzh.stack.apimovix.service.optimizer;
+
+import java.util.Random;
+
+import bzh.stack.apimovix.service.DistanceMatrix;
+
+/**
+ * Tournée fermée de coût minimal sur une matrice de distances, point 0 fixé en tête (dépôt) :
+ * - départ au plus proche voisin (tiré parmi les 3 plus proches pour les redémarrages)
+ * - recherche locale 2-opt + Or-opt (segments de 1 à 3 points, dans les deux sens) jusqu'à l'optimum local
+ * - perturbations double-bridge de la meilleure tournée, conservées si la recherche locale l'améliore
+ * La matrice est symétrisée (moyenne aller/retour) pour que l'inversion d'un segment ne change pas son coût.
+ * Lecture seule après construction : une instance peut servir plusieurs redémarrages en parallèle.
+ */
+final class TspSolver {
+
+    private static final double EPSILON = 1e-9;
+    private static final int SEED_CANDIDATES = 3;
+    private static final int MAX_SEGMENT = 3;
+
+    private final int n;
+    private final double[] cost;
+
+    TspSolver(DistanceMatrix matrix) {
+        this.n = matrix.size();
+        this.cost = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                cost[i * n + j] = (matrix.distanceKm(i, j) + matrix.distanceKm(j, i)) / 2;
+            }
+        }
+    }
+
+    /**
+     * Un redémarrage : départ (déterministe pour restart 0), recherche locale, puis perturbations
+     * jusqu'à iterations ou deadlineNanos
+     */
+    int[] solve(int restart, int iterations, long deadlineNanos) {
+        Random random = new Random(31L * restart + n);
+        int[] best = nearestNeighbour(restart == 0 ? null : random);
+        improve(best);
+        if (n < 8) {
+            return best;
+        }
+        double bestLength = length(best);
+        for (int i = 0; i < iterations && System.nanoTime() < deadlineNanos; i++) {
+            int[] candidate = doubleBridge(best, random);
+            improve(candidate);
+            double candidateLength = length(candidate);
+            if (candidateLength < bestLength - EPSILON) {
+                best = candidate;
+                bestLength = candidateLength;
+            }
+        }
+        return best;
+    }
+
+    double length(int[] tour) {
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += d(tour[i], tour[(i + 1) % n]);
+        }
+        return total;
+    }
+
+    int[] nearestNeighbour(Random random) {
+        int[] tour = new int[n];
+        boolean[] visited = new boolean[n];
+        visited[0] = true;
+        int[] candidates = new int[SEED_CANDIDATES];
+        for (int position = 1; position < n; position++) {
+            int current = tour[position - 1];
+            int found = 0;
+            // Les SEED_CANDIDATES plus proches non visités, triés par distance
+            for (int next = 1; next < n; next++) {
+                if (visited[next]) {
+                    continue;
+                }
+                int k = Math.min(found, SEED_CANDIDATES - 1);
+                if (found < SEED_CANDIDATES || d(current, next) < d(current, candidates[k])) {
+                    while (k > 0 && d(current, next) < d(current, candidates[k - 1])) {
+                        candidates[k] = candidates[k - 1];
+                        k--;
+                    }
+                    candidates[k] = next;
+                    found = Math.min(found + 1, SEED_CANDIDATES);
+                }
+            }
+            int chosen = random == null ? candidates[0] : candidates[random.nextInt(found)];
+            tour[position] = chosen;
+            visited[chosen] = true;
+        }
+        return tour;
+    }
+
+    void improve(int[] tour) {
+        boolean improved = true;
+        while (improved) {
+            improved = twoOpt(tour);
+            improved |= orOpt(tour);
+        }
+    }
+
+    private boolean twoOpt(int[] tour) {
+        boolean improved = false;
+        for (int i = 1; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                int a = tour[i - 1];
+                int b = tour[i];
+                int c = tour[j];
+                int e = tour[(j + 1) % n];
+                double delta = d(a, c) + d(b, e) - d(a, b) - d(c, e);
+                if (delta < -EPSILON) {
+                    reverse(tour, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private boolean orOpt(int[] tour) {
+        boolean improved = false;
+        for (int length = 1; length <= MAX_SEGMENT && length < n - 1; length++) {
+            for (int i = 1; i + length - 1 < n; i++) {
+                int j = i + length - 1;
+                int previous = tour[i - 1];
+                int next = tour[(j + 1) % n];
+                int first = tour[i];
+                int last = tour[j];
+                double removeGain = d(previous, first) + d(last, next) - d(previous, next);
+                if (removeGain <= EPSILON) {
+                    continue;
+                }
+
+                double bestAdd = removeGain - EPSILON;
+                int bestPosition = -1;
+                boolean bestReversed = false;
+                for (int p = 0; p < n; p++) {
+                    if (p >= i - 1 && p <= j) {
+                        continue;
+                    }
+                    int u = tour[p];
+                    int v = tour[(p + 1) % n];
+                    double base = d(u, v);
+                    double forward = d(u, first) + d(last, v) - base;
+                    double backward = d(u, last) + d(first, v) - base;
+                    if (forward < bestAdd) {
+                        bestAdd = forward;
+                        bestPosition = p;
+                        bestReversed = false;
+                    }
+                    if (backward < bestAdd) {
+                        bestAdd = backward;
+                        bestPosition = p;
+                        bestReversed = true;
+                    }
+                }
+                if (bestPosition >= 0) {
+                    moveSegment(tour, i, j, tour[bestPosition], bestReversed);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Déplace tour[i..j] juste après le point after (hors segment) ; le dépôt reste en tête
+     */
+    private void moveSegment(int[] tour, int i, int j, int after, boolean reversed) {
+        int length = j - i + 1;
+        int[] moved = new int[n];
+        int k = 0;
+        for (int p = 0; p < n; p++) {
+            if (p >= i && p <= j) {
+                continue;
+            }
+            moved[k++] = tour[p];
+            if (tour[p] == after) {
+                for (int s = 0; s < length; s++) {
+                    moved[k++] = reversed ? tour[j - s] : tour[i + s];
+                }
+            }
+        }
+        System.arraycopy(moved, 0, tour, 0, n);
+    }
+
+    /**
+     * Double-bridge sur les positions 1..n-1 : A B C D -> A C B D
+     */
+    private int[] doubleBridge(int[] tour, Random random) {
+        int a = 1 + random.nextInt(n - 3);
+        int b = a + 1 + random.nextInt(n - a - 2);
+        int c = b + 1 + random.nextInt(n - b - 1);
+        int[] perturbed = new int[n];
+        int k = 0;
+        for (int p = 0; p < a; p++) {
+            perturbed[k++] = tour[p];
+        }
+        for (int p = b; p < c; p++) {
+            perturbed[k++] = tour[p];
+        }
+        for (int p = a; p < b; p++) {
+            perturbed[k++] = tour[p];
+        }
+        for (int p = c; p < n; p++) {
+            perturbed[k++] = tour[p];
+        }
+        return perturbed;
+    }
+
+    private static void reverse(int[] tour, int i, int j) {
+        while (i < j) {
+            int swap = tour[i];
+            tour[i++] = tour[j];
+            tour[j--] = swap;
+        }
+    }
+
+    private double d(int from, int to) {
+        return cost[from * n + to];
+    }
+}
@@ -20,12 +20,16 @@ public class HistoryPackageStatusService {
 
     @Transactional
     public HistoryPackageStatus createHistoryPackageStatus(PackageEntity packageEntity, Profil profil, @NotNull PackageStatus status) {
+        return historyPackageStatusRepository.save(buildHistoryPackageStatus(packageEntity, profil, status));
+    }
+
+    public HistoryPackageStatus buildHistoryPackageStatus(PackageEntity packageEntity, Profil profil, @NotNull PackageStatus status) {
         HistoryPackageStatus historyPackageStatus = new HistoryPackageStatus();
         historyPackageStatus.setPackageEntity(packageEntity);
         historyPackageStatus.setProfil(profil);
         historyPackageStatus.setId(UUID.randomUUID());
         historyPackageStatus.setStatus(status);
-        return historyPackageStatusRepository.save(historyPackageStatus);
+        return historyPackageStatus;
     }
 
     @Transactional
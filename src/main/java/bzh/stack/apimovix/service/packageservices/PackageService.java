@@ -1,8 +1,15 @@
 package bzh.stack.apimovix.service.packageservices;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -21,9 +28,12 @@ import bzh.stack.apimovix.model.History.HistoryPackageStatus;
 import bzh.stack.apimovix.model.StatusType.PackageStatus;
 import bzh.stack.apimovix.repository.command.CommandRepository;
 import bzh.stack.apimovix.repository.packagerepository.PackageRepository;
+import bzh.stack.apimovix.service.IdAllocationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PackageService {
@@ -32,42 +42,104 @@ public class PackageService {
     private final HistoryPackageStatusService historyPackageStatusService;
     private final PackageStatusService packageStatusService;
     private final CommandRepository commandRepository;
+    private final IdAllocationService idAllocationService;
 
-    private final Random random = new Random();
+    private static final int BARCODE_QUERY_CHUNK = 1000;
 
-    public String generateBarcode() {
-        StringBuilder barcode = new StringBuilder();
-        for (int i = 0; i < 12; i++) {
-            barcode.append(random.nextInt(10));
+    /**
+     * Code-barres imposé s'il est libre, sinon code attribué par IdAllocationService (voir generateNewBarcodes)
+     */
+    @Transactional(readOnly = true)
+    public String generateNewBarcode(String base, String forceBarcode) {
+        return generateNewBarcodes(Collections.singletonList(base), Collections.singletonList(forceBarcode)).get(0);
+    }
+
+    /**
+     * Variante par lot de generateNewBarcode : une requête IN pour les codes imposés,
+     * les autres sont attribués par préfixe. Les codes renvoyés sont aussi uniques au sein du lot.
+     * Un code imposé par un client peut tomber dans une plage déjà réservée par IdAllocationService :
+     * les codes attribués sont vérifiés en une requête IN (table et codes imposés du lot) et
+     * remplacés s'ils sont déjà pris.
+     */
+    @Transactional(readOnly = true)
+    public List<String> generateNewBarcodes(List<String> bases, List<String> forceBarcodes) {
+        String[] barcodes = new String[bases.size()];
+        Set<String> taken = new HashSet<>();
+
+        List<String> forced = forceBarcodes.stream()
+                .filter(barcode -> barcode != null && !barcode.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        taken.addAll(findExistingBarcodes(forced));
+
+        Map<String, List<Integer>> pendingByBase = new HashMap<>();
+        for (int i = 0; i < barcodes.length; i++) {
+            String forceBarcode = forceBarcodes.get(i);
+            if (forceBarcode != null && !forceBarcode.isEmpty() && taken.add(forceBarcode)) {
+                barcodes[i] = forceBarcode;
+            } else {
+                pendingByBase.computeIfAbsent(bases.get(i), base -> new ArrayList<>()).add(i);
+            }
         }
 
-        int sum = 0;
-        for (int i = 0; i < 12; i++) {
-            int digit = Character.getNumericValue(barcode.charAt(i));
-            sum += (i % 2 == 0) ? digit : digit * 3;
+        while (!pendingByBase.isEmpty()) {
+            Map<Integer, String> allocated = new HashMap<>();
+            pendingByBase.forEach((base, positions) -> {
+                List<String> values = idAllocationService.nextBarcodes(base, positions.size());
+                for (int k = 0; k < positions.size(); k++) {
+                    allocated.put(positions.get(k), values.get(k));
+                }
+            });
+            Set<String> existing = new HashSet<>(findExistingBarcodes(allocated.values()));
+
+            pendingByBase = new HashMap<>();
+            for (Map.Entry<Integer, String> entry : allocated.entrySet()) {
+                int position = entry.getKey();
+                if (!existing.contains(entry.getValue()) && taken.add(entry.getValue())) {
+                    barcodes[position] = entry.getValue();
+                } else {
+                    log.warn("Code-barres attribue {} deja utilise, nouveau code attribue", entry.getValue());
+                    pendingByBase.computeIfAbsent(bases.get(position), base -> new ArrayList<>()).add(position);
+                }
+            }
         }
-        int checkDigit = (10 - (sum % 10)) % 10;
-        barcode.append(checkDigit);
 
-        return barcode.toString();
+        return Arrays.asList(barcodes);
     }
 
-    @Transactional(readOnly = true)
-    public String generateNewBarcode(String base, String forceBarcode) {
-        String barcode;
-
-        if (forceBarcode != null && !forceBarcode.isEmpty()) {
-            barcode = forceBarcode;
-            if (packageRepository.findById(barcode).orElse(null) == null) {
-                return barcode;
+    private List<String> findExistingBarcodes(Collection<String> barcodes) {
+        List<String> existing = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(BARCODE_QUERY_CHUNK);
+        for (String barcode : barcodes) {
+            chunk.add(barcode);
+            if (chunk.size() == BARCODE_QUERY_CHUNK) {
+                existing.addAll(packageRepository.findExistingBarcodes(chunk));
+                chunk.clear();
             }
         }
+        if (!chunk.isEmpty()) {
+            existing.addAll(packageRepository.findExistingBarcodes(chunk));
+        }
+        return existing;
+    }
 
-        do {
-            barcode = base + generateBarcode();
-        } while (packageRepository.findById(barcode).orElse(null) != null);
-
-        return barcode;
+    /**
+     * Construit un colis importé non persisté (sans code-barres ni historique)
+     */
+    public PackageEntity buildPackage(Command command, PackageImporterDTO packageDTO, String numTransport) {
+        PackageEntity packageEntity;
+        if (packageDTO != null) {
+            packageEntity = packageMapper.toEntity(packageDTO);
+        } else {
+            packageEntity = new PackageEntity();
+        }
+        String zoneName = (command.getPharmacy().getZone() != null)
+                ? command.getPharmacy().getZone().getName()
+                : null;
+        packageEntity.setZoneName(zoneName);
+        packageEntity.setCommand(command);
+        packageEntity.setCNumTransport(numTransport);
+        return packageEntity;
     }
 
     @Transactional
@@ -109,18 +181,7 @@ public class PackageService {
     @Transactional
     public PackageEntity createPackage(Command command, @Valid PackageImporterDTO packageDTO, String numTransport,
             String forceBarcode) {
-        PackageEntity packageEntity;
-        if (packageDTO != null) {
-            packageEntity = packageMapper.toEntity(packageDTO);
-        } else {
-            packageEntity = new PackageEntity();
-        }
-        String zoneName = (command.getPharmacy().getZone() != null)
-                ? command.getPharmacy().getZone().getName()
-                : null;
-        packageEntity.setZoneName(zoneName);
-        packageEntity.setCommand(command);
-        packageEntity.setCNumTransport(numTransport);
+        PackageEntity packageEntity = buildPackage(command, packageDTO, numTransport);
 
         String newBarcode = generateNewBarcode(command.getPharmacy().getPostalCode(), forceBarcode);
         packageEntity.setBarcode(newBarcode);
@@ -12,7 +12,6 @@ import org.springframework.stereotype.Component;
 import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.io.image.ImageDataFactory;
 import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfReader;
@@ -33,10 +32,12 @@ public class AnomaliePdfGenerator {
 
     private final PictureService pictureService;
     private final FileService fileService;
+    private final PdfAssetCache pdfAssetCache;
 
-    public AnomaliePdfGenerator(PictureService pictureService, FileService fileService) {
+    public AnomaliePdfGenerator(PictureService pictureService, FileService fileService, PdfAssetCache pdfAssetCache) {
         this.pictureService = pictureService;
         this.fileService = fileService;
+        this.pdfAssetCache = pdfAssetCache;
     }
 
     /**
@@ -67,8 +68,8 @@ public class AnomaliePdfGenerator {
         PdfDocument pdf = new PdfDocument(reader, writer);
 
         // Créer les polices
-        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
-        PdfFont fontBold = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        PdfFont font = pdfAssetCache.font(StandardFonts.HELVETICA);
+        PdfFont fontBold = pdfAssetCache.font(StandardFonts.HELVETICA_BOLD);
 
         // Remplir les informations de l'anomalie sur la première page du template
         fillAnomalieDataOnTemplate(pdf, anomalie, font, fontBold);
@@ -91,8 +92,8 @@ public class AnomaliePdfGenerator {
         PdfDocument pdf = new PdfDocument(writer);
         Document document = new Document(pdf, PageSize.A4);
 
-        PdfFont fontBold = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
-        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        PdfFont fontBold = pdfAssetCache.font(StandardFonts.HELVETICA_BOLD);
+        PdfFont font = pdfAssetCache.font(StandardFonts.HELVETICA);
 
         // Titre
         document.add(new Paragraph("FICHE D'ANOMALIE")
@@ -12,7 +12,6 @@ import com.itextpdf.barcodes.Barcode128;
 import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
@@ -25,7 +24,6 @@ import bzh.stack.apimovix.model.PackageEntity;
 import bzh.stack.apimovix.model.Pharmacy;
 import bzh.stack.apimovix.model.PharmacyInformations;
 import bzh.stack.apimovix.repository.PharmacyInformationsRepository;
-import bzh.stack.apimovix.service.picture.PictureService;
 
 /**
  * Générateur de PDF pour les étiquettes de colis
@@ -36,11 +34,11 @@ public class PackageLabelGenerator {
     private static final float LABEL_WIDTH = 295;
     private static final float LABEL_HEIGHT = 421;
 
-    private final PictureService pictureService;
+    private final PdfAssetCache pdfAssetCache;
     private final PharmacyInformationsRepository pharmacyInformationsRepository;
 
-    public PackageLabelGenerator(PictureService pictureService, PharmacyInformationsRepository pharmacyInformationsRepository) {
-        this.pictureService = pictureService;
+    public PackageLabelGenerator(PdfAssetCache pdfAssetCache, PharmacyInformationsRepository pharmacyInformationsRepository) {
+        this.pdfAssetCache = pdfAssetCache;
         this.pharmacyInformationsRepository = pharmacyInformationsRepository;
     }
 
@@ -57,8 +55,8 @@ public class PackageLabelGenerator {
         // Ajouter explicitement la première page
         pdf.addNewPage();
 
-        PdfFont font = PdfFontFactory.createFont(StandardFonts.COURIER);
-        PdfFont fontBold = PdfFontFactory.createFont(StandardFonts.COURIER_BOLD);
+        PdfFont font = pdfAssetCache.font(StandardFonts.COURIER);
+        PdfFont fontBold = pdfAssetCache.font(StandardFonts.COURIER_BOLD);
 
         // Récupérer le compte depuis le tour de la commande (pour le logo et transport)
         Account account = null;
@@ -102,7 +100,7 @@ public class PackageLabelGenerator {
         }
 
         // Dessiner le logo
-        PdfDrawingUtils.drawLogo(document, account, pictureService);
+        PdfDrawingUtils.drawLogo(document, pdfAssetCache.grayscaleLogo(account));
 
         // Dessiner le code-barres
         drawPackageBarcode(document, packageEntity, font);
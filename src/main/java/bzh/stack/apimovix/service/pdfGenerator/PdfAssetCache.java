@@ -0,0 +1,119 @@
+package bzh.stack.apimovix.service.pdfGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.zxing.WriterException;
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+
+import bzh.stack.apimovix.model.Account;
+import bzh.stack.apimovix.service.picture.PictureService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Ressources partagées entre les PDF générés :
+ * - logo en niveaux de gris de chaque compte (ImageData), recalculé si le logo change
+ *   (invalidateLogo à la mise à jour du compte, sinon nom ou date du fichier)
+ * - QR codes par contenu et taille
+ * Les ImageData ne sont que lus à la création des Image : ils peuvent servir à plusieurs documents.
+ */
+@Component
+public class PdfAssetCache {
+
+    private final PictureService pictureService;
+    private final Cache<UUID, LogoEntry> logos;
+    private final Cache<String, ImageData> qrCodes;
+
+    public PdfAssetCache(
+            PictureService pictureService,
+            MeterRegistry meterRegistry,
+            @Value("${app.pdf.assets.logo-cache-size:500}") long logoCacheSize,
+            @Value("${app.pdf.assets.qr-cache-size:5000}") long qrCacheSize) {
+        this.pictureService = pictureService;
+        this.logos = Caffeine.newBuilder()
+                .maximumSize(logoCacheSize)
+                .recordStats()
+                .build();
+        this.qrCodes = Caffeine.newBuilder()
+                .maximumSize(qrCacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, logos, "pdf.logos");
+        CaffeineCacheMetrics.monitor(meterRegistry, qrCodes, "pdf.qrcodes");
+    }
+
+    /**
+     * Logo du compte converti en niveaux de gris, ou null si le compte n'a pas de logo lisible
+     */
+    public ImageData grayscaleLogo(Account account) throws IOException {
+        if (account == null || account.getLogo() == null) {
+            return null;
+        }
+        String logoName = account.getLogo().getName();
+        File file = pictureService.findImageFile(logoName);
+        if (file == null) {
+            return null;
+        }
+        long lastModified = file.lastModified();
+
+        LogoEntry entry = logos.getIfPresent(account.getId());
+        if (entry != null && entry.matches(logoName, lastModified)) {
+            return entry.imageData();
+        }
+
+        byte[] grayscaleBytes = PdfDrawingUtils.convertToGrayscale(Files.readAllBytes(file.toPath()));
+        ImageData imageData = ImageDataFactory.create(grayscaleBytes);
+        logos.put(account.getId(), new LogoEntry(logoName, lastModified, imageData));
+        return imageData;
+    }
+
+    /**
+     * Oublie le logo du compte (logo remplacé ou supprimé)
+     */
+    public void invalidateLogo(UUID accountId) {
+        logos.invalidate(accountId);
+    }
+
+    /**
+     * Nouvelle police standard (StandardFonts) pour un document ; le PdfFont reste propre à chaque document,
+     * le programme de police est mis en cache par iText (FontCache)
+     */
+    public PdfFont font(String standardFont) {
+        try {
+            return PdfFontFactory.createFont(standardFont);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * QR code (PNG) d'un contenu, généré une fois par contenu et taille
+     */
+    public ImageData qrCode(String content, int size) throws WriterException, IOException {
+        String key = size + ":" + content;
+        ImageData imageData = qrCodes.getIfPresent(key);
+        if (imageData == null) {
+            imageData = QrCodeUtils.generateQrCodeImageData(content, size);
+            qrCodes.put(key, imageData);
+        }
+        return imageData;
+    }
+
+    private record LogoEntry(String logoName, long lastModified, ImageData imageData) {
+        boolean matches(String name, long modified) {
+            return logoName.equals(name) && lastModified == modified;
+        }
+    }
+}
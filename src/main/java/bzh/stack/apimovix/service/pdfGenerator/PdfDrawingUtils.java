@@ -1,13 +1,13 @@
 package bzh.stack.apimovix.service.pdfGenerator;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 
 import javax.imageio.ImageIO;
 
-import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.io.image.ImageData;
 import com.itextpdf.kernel.colors.Color;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.font.PdfFont;
@@ -16,8 +16,6 @@ import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Image;
 
-import bzh.stack.apimovix.model.Account;
-import bzh.stack.apimovix.service.picture.PictureService;
 
 /**
  * Classe utilitaire contenant toutes les fonctions de dessin pour les PDF
@@ -29,43 +27,37 @@ public class PdfDrawingUtils {
      */
     public static byte[] convertToGrayscale(byte[] imageBytes) throws IOException {
         BufferedImage originalImage = ImageIO.read(new java.io.ByteArrayInputStream(imageBytes));
+        int width = originalImage.getWidth();
+        int height = originalImage.getHeight();
 
         // Vérifier si l'image a de la transparence
         boolean hasAlpha = originalImage.getColorModel().hasAlpha();
 
         BufferedImage grayscaleImage;
         if (hasAlpha) {
-            // Utiliser TYPE_BYTE_GRAY avec canal alpha pour préserver la transparence
-            grayscaleImage = new BufferedImage(
-                originalImage.getWidth(),
-                originalImage.getHeight(),
-                BufferedImage.TYPE_INT_ARGB
-            );
-
-            // Convertir en niveaux de gris pixel par pixel en préservant l'alpha
-            for (int y = 0; y < originalImage.getHeight(); y++) {
-                for (int x = 0; x < originalImage.getWidth(); x++) {
-                    int rgb = originalImage.getRGB(x, y);
-                    int alpha = (rgb >> 24) & 0xFF;
-                    int red = (rgb >> 16) & 0xFF;
-                    int green = (rgb >> 8) & 0xFF;
-                    int blue = rgb & 0xFF;
-
-                    // Formule de luminance pour conversion en niveaux de gris
-                    int gray = (int) (0.299 * red + 0.587 * green + 0.114 * blue);
-
-                    // Reconstruire le pixel avec le niveau de gris et l'alpha original
-                    int grayRgb = (alpha << 24) | (gray << 16) | (gray << 8) | gray;
-                    grayscaleImage.setRGB(x, y, grayRgb);
-                }
+            // Copie ARGB puis conversion directement sur le tableau de pixels du raster
+            grayscaleImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            java.awt.Graphics2D g2d = grayscaleImage.createGraphics();
+            g2d.setComposite(java.awt.AlphaComposite.Src);
+            g2d.drawImage(originalImage, 0, 0, null);
+            g2d.dispose();
+
+            int[] pixels = ((DataBufferInt) grayscaleImage.getRaster().getDataBuffer()).getData();
+            for (int i = 0; i < pixels.length; i++) {
+                int argb = pixels[i];
+                int red = (argb >> 16) & 0xFF;
+                int green = (argb >> 8) & 0xFF;
+                int blue = argb & 0xFF;
+
+                // Formule de luminance pour conversion en niveaux de gris
+                int gray = (int) (0.299 * red + 0.587 * green + 0.114 * blue);
+
+                // Reconstruire le pixel avec le niveau de gris et l'alpha original
+                pixels[i] = (argb & 0xFF000000) | (gray << 16) | (gray << 8) | gray;
             }
         } else {
             // Pas de transparence, conversion simple
-            grayscaleImage = new BufferedImage(
-                originalImage.getWidth(),
-                originalImage.getHeight(),
-                BufferedImage.TYPE_BYTE_GRAY
-            );
+            grayscaleImage = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
 
             java.awt.Graphics2D g2d = grayscaleImage.createGraphics();
             g2d.drawImage(originalImage, 0, 0, null);
@@ -78,41 +70,34 @@ public class PdfDrawingUtils {
     }
 
     /**
-     * Dessine le logo d'un compte en haut à droite du document
+     * Dessine le logo d'un compte (voir PdfAssetCache.grayscaleLogo) en haut à droite du document
      */
-    public static void drawLogo(Document document, Account account, PictureService pictureService) throws IOException {
+    public static void drawLogo(Document document, ImageData logoData) {
         // Ne dessiner le logo que si le compte a un logo défini
-        if (account == null || account.getLogo() == null) {
+        if (logoData == null) {
             return;
         }
 
-        File file = pictureService.findImageFile(account.getLogo().getName());
+        Image logo = new Image(logoData);
 
-        if (file != null && file.exists()) {
-            byte[] imageBytes = java.nio.file.Files.readAllBytes(file.toPath());
-            // Convertir l'image en noir et blanc
-            byte[] grayscaleBytes = convertToGrayscale(imageBytes);
-            Image logo = new Image(ImageDataFactory.create(grayscaleBytes));
+        // Forcer la hauteur à exactement 40px en gardant le ratio
+        float targetHeight = 40;
+        float ratio = logo.getImageWidth() / logo.getImageHeight();
+        float targetWidth = targetHeight * ratio;
+        logo.scaleAbsolute(targetWidth, targetHeight);
 
-            // Forcer la hauteur à exactement 40px en gardant le ratio
-            float targetHeight = 40;
-            float ratio = logo.getImageWidth() / logo.getImageHeight();
-            float targetWidth = targetHeight * ratio;
-            logo.scaleAbsolute(targetWidth, targetHeight);
+        // Positionner le logo en haut à droite avec une marge de 15px
+        float pageWidth = document.getPdfDocument().getDefaultPageSize().getWidth();
+        float pageHeight = document.getPdfDocument().getDefaultPageSize().getHeight();
+        float margin = 15;
 
-            // Positionner le logo en haut à droite avec une marge de 15px
-            float pageWidth = document.getPdfDocument().getDefaultPageSize().getWidth();
-            float pageHeight = document.getPdfDocument().getDefaultPageSize().getHeight();
-            float margin = 15;
+        // setFixedPosition positionne le coin inférieur gauche de l'image
+        // Pour avoir le coin supérieur droit du logo à 15px du coin supérieur droit de la page :
+        float x = pageWidth - targetWidth - margin;
+        float y = pageHeight - targetHeight - margin;
 
-            // setFixedPosition positionne le coin inférieur gauche de l'image
-            // Pour avoir le coin supérieur droit du logo à 15px du coin supérieur droit de la page :
-            float x = pageWidth - targetWidth - margin;
-            float y = pageHeight - targetHeight - margin;
-
-            logo.setFixedPosition(x, y);
-            document.add(logo);
-        }
+        logo.setFixedPosition(x, y);
+        document.add(logo);
     }
 
     /**
@@ -1,16 +1,14 @@
 package bzh.stack.apimovix.service.pdfGenerator;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 
 import org.springframework.stereotype.Component;
 
 import com.itextpdf.barcodes.Barcode128;
 import com.itextpdf.io.font.constants.StandardFonts;
-import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.io.image.ImageData;
 import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
@@ -20,7 +18,6 @@ import com.itextpdf.layout.properties.HorizontalAlignment;
 
 import bzh.stack.apimovix.model.Account;
 import bzh.stack.apimovix.model.Pharmacy;
-import bzh.stack.apimovix.service.picture.PictureService;
 
 /**
  * Générateur de PDF pour les étiquettes de pharmacie
@@ -28,10 +25,10 @@ import bzh.stack.apimovix.service.picture.PictureService;
 @Component
 public class PharmacyLabelGenerator {
 
-    private final PictureService pictureService;
+    private final PdfAssetCache pdfAssetCache;
 
-    public PharmacyLabelGenerator(PictureService pictureService) {
-        this.pictureService = pictureService;
+    public PharmacyLabelGenerator(PdfAssetCache pdfAssetCache) {
+        this.pdfAssetCache = pdfAssetCache;
     }
 
     /**
@@ -77,36 +74,31 @@ public class PharmacyLabelGenerator {
         Document document = new Document(pdf, new PageSize(labelWidth, labelHeight));
         document.setMargins(0, 0, 0, 0);
 
-        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
-        PdfFont fontBold = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        PdfFont font = pdfAssetCache.font(StandardFonts.HELVETICA);
+        PdfFont fontBold = pdfAssetCache.font(StandardFonts.HELVETICA_BOLD);
         pdf.addNewPage();
 
         // Section 1: Logo centré en haut du label
         try {
-            if (account != null && account.getLogo() != null) {
-                File logoFile = pictureService.findImageFile(account.getLogo().getName());
-
-                if (logoFile != null && logoFile.exists()) {
-                    byte[] imageBytes = java.nio.file.Files.readAllBytes(logoFile.toPath());
-                    byte[] grayscaleBytes = PdfDrawingUtils.convertToGrayscale(imageBytes);
-                    Image logo = new Image(ImageDataFactory.create(grayscaleBytes));
-
-                    // Redimensionner le logo pour qu'il rentre dans les dimensions max
-                    logo.scaleToFit(logoMaxWidth, logoMaxHeight);
-
-                    // Calculer la position Y (verticale)
-                    float logoY = labelHeight - logo.getImageScaledHeight() - logoMarginTop;
-
-                    // Calculer la position X pour un centrage parfait
-                    // On s'assure que le logo est centré en utilisant la largeur réelle après scaling
-                    float logoActualWidth = logo.getImageScaledWidth();
-                    float logoX = (labelWidth - logoActualWidth) / 2;
-
-                    // Appliquer le centrage horizontal et la position
-                    logo.setHorizontalAlignment(HorizontalAlignment.CENTER);
-                    logo.setFixedPosition(logoX, logoY);
-                    document.add(logo);
-                }
+            ImageData logoData = pdfAssetCache.grayscaleLogo(account);
+            if (logoData != null) {
+                Image logo = new Image(logoData);
+
+                // Redimensionner le logo pour qu'il rentre dans les dimensions max
+                logo.scaleToFit(logoMaxWidth, logoMaxHeight);
+
+                // Calculer la position Y (verticale)
+                float logoY = labelHeight - logo.getImageScaledHeight() - logoMarginTop;
+
+                // Calculer la position X pour un centrage parfait
+                // On s'assure que le logo est centré en utilisant la largeur réelle après scaling
+                float logoActualWidth = logo.getImageScaledWidth();
+                float logoX = (labelWidth - logoActualWidth) / 2;
+
+                // Appliquer le centrage horizontal et la position
+                logo.setHorizontalAlignment(HorizontalAlignment.CENTER);
+                logo.setFixedPosition(logoX, logoY);
+                document.add(logo);
             }
         } catch (Exception e) {
             // Si le logo ne peut pas être chargé, on continue sans
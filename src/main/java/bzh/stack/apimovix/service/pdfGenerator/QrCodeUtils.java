@@ -1,6 +1,7 @@
 package bzh.stack.apimovix.service.pdfGenerator;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.HashMap;
@@ -14,6 +15,7 @@ import com.google.zxing.WriterException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.itextpdf.io.image.ImageData;
 import com.itextpdf.io.image.ImageDataFactory;
 import com.itextpdf.layout.element.Image;
 
@@ -26,25 +28,35 @@ public class QrCodeUtils {
      * Génère un QR code pour une URL Google Maps
      */
     public static Image generateQrCode(String content, int size, float qrWidth) throws WriterException, IOException {
+        Image qrCodeImage = new Image(generateQrCodeImageData(content, size));
+        qrCodeImage.setWidth(qrWidth);
+        qrCodeImage.setHeight(qrWidth);
+        return qrCodeImage;
+    }
+
+    /**
+     * Image PNG du QR code (modules noirs sur fond transparent), écrite ligne par ligne dans le raster
+     */
+    public static ImageData generateQrCodeImageData(String content, int size) throws WriterException, IOException {
         QRCodeWriter qrCodeWriter = new QRCodeWriter();
         Map<EncodeHintType, Object> hints = new HashMap<>();
         hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.L);
         BitMatrix bitMatrix = qrCodeWriter.encode(content, BarcodeFormat.QR_CODE, size, size, hints);
 
         BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                image.setRGB(x, y, bitMatrix.get(x, y) ? 0xFF000000 : 0x00000000);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < size; y++) {
+            int row = y * size;
+            for (int x = 0; x < size; x++) {
+                if (bitMatrix.get(x, y)) {
+                    pixels[row + x] = 0xFF000000;
+                }
             }
         }
 
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         ImageIO.write(image, "PNG", outputStream);
-
-        Image qrCodeImage = new Image(ImageDataFactory.create(outputStream.toByteArray()));
-        qrCodeImage.setWidth(qrWidth);
-        qrCodeImage.setHeight(qrWidth);
-        return qrCodeImage;
+        return ImageDataFactory.create(outputStream.toByteArray());
     }
 
     /**
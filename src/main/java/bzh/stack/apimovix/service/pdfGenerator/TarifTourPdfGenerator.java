@@ -14,7 +14,6 @@ import com.itextpdf.barcodes.Barcode128;
 import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
@@ -34,9 +33,11 @@ import bzh.stack.apimovix.service.ORSService;
 public class TarifTourPdfGenerator {
 
     private final ORSService orsService;
+    private final PdfAssetCache pdfAssetCache;
 
-    public TarifTourPdfGenerator(ORSService orsService) {
+    public TarifTourPdfGenerator(ORSService orsService, PdfAssetCache pdfAssetCache) {
         this.orsService = orsService;
+        this.pdfAssetCache = pdfAssetCache;
     }
 
     /**
@@ -52,8 +53,8 @@ public class TarifTourPdfGenerator {
         Document document = new Document(pdf, new PageSize(w, h));
         document.setMargins(0, 0, 0, 0);
 
-        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
-        PdfFont fontBold = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        PdfFont font = pdfAssetCache.font(StandardFonts.HELVETICA);
+        PdfFont fontBold = pdfAssetCache.font(StandardFonts.HELVETICA_BOLD);
 
         pdf.addNewPage();
 
@@ -80,7 +81,7 @@ public class TarifTourPdfGenerator {
 
         PdfDrawingUtils.drawPageNumber(document, 1, totalPages, font);
 
-        // Pre-calculer toutes les distances en parallele (evite les appels HTTP sequentiels)
+        // Pre-calculer toutes les distances (cache + requetes matrix ORS groupees)
         Map<UUID, Double> distanceCache = orsService.calculateCommandDistancesBatch(tour.getCommands());
 
         // Dessiner chaque commande avec tarif
@@ -234,7 +235,7 @@ public class TarifTourPdfGenerator {
         float y = 50;
 
         // Créer une police italique pour l'avertissement
-        PdfFont fontItalic = PdfFontFactory.createFont(StandardFonts.HELVETICA_OBLIQUE);
+        PdfFont fontItalic = pdfAssetCache.font(StandardFonts.HELVETICA_OBLIQUE);
 
         // Rectangle de fond pour le résumé
         PdfDrawingUtils.drawSquare(document, 20, y, 20, 215);
@@ -9,7 +9,6 @@ import com.google.zxing.WriterException;
 import com.itextpdf.barcodes.Barcode128;
 import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
@@ -27,6 +26,12 @@ import bzh.stack.apimovix.model.Tour;
 @Component
 public class TourPdfGenerator {
 
+    private final PdfAssetCache pdfAssetCache;
+
+    public TourPdfGenerator(PdfAssetCache pdfAssetCache) {
+        this.pdfAssetCache = pdfAssetCache;
+    }
+
     /**
      * Génère un PDF de tournée
      */
@@ -40,8 +45,8 @@ public class TourPdfGenerator {
         Document document = new Document(pdf, new PageSize(w, h));
         document.setMargins(0, 0, 0, 0);
 
-        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
-        PdfFont fontBold = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        PdfFont font = pdfAssetCache.font(StandardFonts.HELVETICA);
+        PdfFont fontBold = pdfAssetCache.font(StandardFonts.HELVETICA_BOLD);
 
         pdf.addNewPage();
 
@@ -170,7 +175,9 @@ public class TourPdfGenerator {
                     command.getPharmacy().getLatitude(),
                     command.getPharmacy().getLongitude());
 
-            Image qrCodeImage = QrCodeUtils.generateQrCode(mapsUrl, 200, qrWidth);
+            Image qrCodeImage = new Image(pdfAssetCache.qrCode(mapsUrl, 200));
+            qrCodeImage.setWidth(qrWidth);
+            qrCodeImage.setHeight(qrWidth);
 
             int currentPage = document.getPdfDocument().getNumberOfPages();
             qrCodeImage.setFixedPosition(currentPage,
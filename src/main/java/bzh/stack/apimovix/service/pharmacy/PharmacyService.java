@@ -1,12 +1,17 @@
 package bzh.stack.apimovix.service.pharmacy;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
 import bzh.stack.apimovix.dto.pharmacy.PharmacyCreateDTO;
 import bzh.stack.apimovix.dto.pharmacy.PharmacySearchDTO;
@@ -29,6 +34,7 @@ import bzh.stack.apimovix.repository.pharmacy.PharmacyInfosRepository;
 import bzh.stack.apimovix.repository.pharmacy.PharmacyInfosPictureRepository;
 import bzh.stack.apimovix.repository.pharmacy.PharmacyPictureRepository;
 import bzh.stack.apimovix.repository.pharmacy.PharmacyRepository;
+import bzh.stack.apimovix.service.RouteDistanceCacheService;
 import bzh.stack.apimovix.service.picture.PictureService;
 import bzh.stack.apimovix.util.GLOBAL;
 import jakarta.validation.Valid;
@@ -47,6 +53,7 @@ public class PharmacyService {
     private final PictureService pictureService;
     private final ZoneRepository zoneRepository;
     private final AccountRepository accountRepository;
+    private final RouteDistanceCacheService routeDistanceCacheService;
 
     public PharmacyService(
             PharmacyRepository pharmacyRepository,
@@ -58,7 +65,8 @@ public class PharmacyService {
             PictureService pictureService,
             PharmacyInformationsMapper pharmacyInformationsMapper,
             ZoneRepository zoneRepository,
-            AccountRepository accountRepository) {
+            AccountRepository accountRepository,
+            RouteDistanceCacheService routeDistanceCacheService) {
         this.pharmacyRepository = pharmacyRepository;
         this.pharmacyPictureRepository = pharmacyPictureRepository;
         this.pharmacyInfosPictureRepository = pharmacyInfosPictureRepository;
@@ -69,6 +77,7 @@ public class PharmacyService {
         this.pharmacyInformationsMapper = pharmacyInformationsMapper;
         this.zoneRepository = zoneRepository;
         this.accountRepository = accountRepository;
+        this.routeDistanceCacheService = routeDistanceCacheService;
     }
 
 
@@ -134,6 +143,12 @@ public class PharmacyService {
         return Optional.ofNullable(pharmacyRepository.findPharmacyByCipOnly(cip));
     }
 
+    @Transactional(readOnly = true)
+    public Map<String, Pharmacy> findPharmaciesByCips(Collection<String> cips) {
+        return pharmacyRepository.findPharmaciesByCips(cips).stream()
+                .collect(Collectors.toMap(Pharmacy::getCip, Function.identity()));
+    }
+
     @Transactional(readOnly = true)
     public List<Pharmacy> searchPharmacies(PharmacySearchDTO pharmacySearchDTO) {
         String name = pharmacySearchDTO.getName();
@@ -379,6 +394,16 @@ public class PharmacyService {
     @Transactional
     public PharmacyPicture createPharmacyPicture(Pharmacy pharmacy, Account account, String base64Image, Integer displayOrder) {
         String fileName = pictureService.savePharmacyImage(pharmacy, base64Image);
+        return attachPharmacyPicture(pharmacy, account, fileName, displayOrder);
+    }
+
+    @Transactional
+    public PharmacyPicture createPharmacyPicture(Pharmacy pharmacy, Account account, MultipartFile file, Integer displayOrder) {
+        String fileName = pictureService.savePharmacyImage(pharmacy, file);
+        return attachPharmacyPicture(pharmacy, account, fileName, displayOrder);
+    }
+
+    private PharmacyPicture attachPharmacyPicture(Pharmacy pharmacy, Account account, String fileName, Integer displayOrder) {
         PharmacyPicture picture = null;
 
         if (fileName != null) {
@@ -541,10 +566,18 @@ public class PharmacyService {
         // Obtenir ou créer le PharmacyInformations pour ce compte
         PharmacyInformations pharmacyInformations = pharmacy.getOrCreatePharmacyInformationsForAccount(account);
         pharmacy.setPharmacyInformations(pharmacyInformations);
+        Double previousLatitude = pharmacy.getLatitude();
+        Double previousLongitude = pharmacy.getLongitude();
 
         // Mettre à jour uniquement le PharmacyInformations, PAS la table Pharmacy
         pharmacyInformationsMapper.updateFromDto(pharmacyUpdateDTO, pharmacyInformations);
 
+        // Les distances calculées depuis l'ancienne position ne sont plus valables
+        if (!Objects.equals(previousLatitude, pharmacy.getLatitude())
+                || !Objects.equals(previousLongitude, pharmacy.getLongitude())) {
+            routeDistanceCacheService.invalidatePoint(previousLatitude, previousLongitude);
+        }
+
         // Gérer la zone uniquement si le champ zoneId était présent dans la requête
         if (pharmacyUpdateDTO.isZoneIdWasSet()) {
             String zoneIdStr = pharmacyUpdateDTO.getZoneId();
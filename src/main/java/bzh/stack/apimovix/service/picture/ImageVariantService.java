@@ -0,0 +1,173 @@
+package bzh.stack.apimovix.service.picture;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import bzh.stack.apimovix.enums.ImageSizeENUM;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Variantes redimensionnées des photos (miniature, moyenne), ré-encodées en JPEG.
+ * Elles sont générées à l'upload à partir de l'image déjà décodée, ou à la première
+ * demande si elles manquent, puis stockées à côté de l'original : {nom}_{variante}.jpg
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    @Value("${app.image.variants.thumbnail-size:320}")
+    private int thumbnailSize;
+
+    @Value("${app.image.variants.medium-size:1280}")
+    private int mediumSize;
+
+    @Value("${app.image.variants.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    /**
+     * Décode une image enregistrée, null si le fichier n'est pas une image lisible
+     */
+    public BufferedImage decode(File file) {
+        try {
+            return ImageIO.read(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Génère toutes les variantes d'une image qui vient d'être enregistrée
+     */
+    public void generateAll(File original, BufferedImage image) {
+        for (ImageSizeENUM size : ImageSizeENUM.values()) {
+            if (size == ImageSizeENUM.Original) {
+                continue;
+            }
+            try {
+                writeVariant(image, size, variantFile(original, size));
+            } catch (IOException e) {
+                log.warn("Impossible de générer la variante {} de {}: {}", size, original.getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Retourne la variante demandée, générée à la volée si absente.
+     * Retombe sur l'original si la génération échoue.
+     */
+    public File getVariant(File original, ImageSizeENUM size) {
+        if (size == null || size == ImageSizeENUM.Original) {
+            return original;
+        }
+
+        File variant = variantFile(original, size);
+        if (variant.isFile() && variant.lastModified() >= original.lastModified()) {
+            return variant;
+        }
+
+        try {
+            BufferedImage image = ImageIO.read(original);
+            if (image == null) {
+                return original;
+            }
+            writeVariant(image, size, variant);
+            return variant;
+        } catch (IOException e) {
+            log.warn("Impossible de générer la variante {} de {}: {}", size, original.getName(), e.getMessage());
+            return original;
+        }
+    }
+
+    /**
+     * Supprime les variantes d'une image
+     */
+    public void deleteVariants(File original) {
+        for (ImageSizeENUM size : ImageSizeENUM.values()) {
+            if (size != ImageSizeENUM.Original) {
+                variantFile(original, size).delete();
+            }
+        }
+    }
+
+    File variantFile(File original, ImageSizeENUM size) {
+        String name = original.getName();
+        int dot = name.lastIndexOf('.');
+        String baseName = dot > 0 ? name.substring(0, dot) : name;
+        return new File(original.getParentFile(), baseName + "_" + size.name().toLowerCase() + ".jpg");
+    }
+
+    private int maxDimension(ImageSizeENUM size) {
+        return size == ImageSizeENUM.Thumbnail ? thumbnailSize : mediumSize;
+    }
+
+    private void writeVariant(BufferedImage image, ImageSizeENUM size, File target) throws IOException {
+        BufferedImage resized = resize(image, maxDimension(size));
+
+        // Écriture dans un fichier temporaire puis déplacement atomique : une requête
+        // concurrente ne lit jamais une variante partiellement écrite
+        Path tmp = Files.createTempFile(target.getParentFile().toPath(), target.getName(), ".tmp");
+        try {
+            writeJpeg(resized, tmp.toFile());
+            Files.move(tmp, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private BufferedImage resize(BufferedImage image, int maxDimension) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // Toujours redessiner en RGB : le JPEG ne supporte pas la transparence
+        BufferedImage resized = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, targetWidth, targetHeight);
+            graphics.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private void writeJpeg(BufferedImage image, File target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpg");
+        if (!writers.hasNext()) {
+            throw new IOException("Aucun encodeur JPEG disponible");
+        }
+        ImageWriter writer = writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package bzh.stack.apimovix.service.picture;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -15,8 +18,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
+import bzh.stack.apimovix.enums.ImageSizeENUM;
 import bzh.stack.apimovix.enums.PictureENUM;
+import bzh.stack.apimovix.exception.ImageTooLargeException;
 import bzh.stack.apimovix.model.Account;
 import bzh.stack.apimovix.model.Anomalie;
 import bzh.stack.apimovix.model.Command;
@@ -35,34 +41,51 @@ public class PictureService {
     @Value("${app.upload.dir:D:/3_PROJET/Movix/_apimovix/uploads}")
     private String uploadDir;
 
+    @Value("${app.upload.max-image-bytes:20971520}")
+    private long maxImageBytes;
+
     @Autowired
     private AnomaliePictureRepository anomaliePictureRepository;
 
     @Autowired
     private CommandPictureRepository commandPictureRepository;
 
-    private String cleanBase64String(String base64Image) {
-        if (base64Image.contains("base64,")) {
-            return base64Image.split("base64,")[1];
-        }
-        return base64Image;
-    }
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    private static final String BASE64_MARKER = "base64,";
+    private static final int COPY_BUFFER_SIZE = 8192;
 
     public String saveAnomalieImage(Anomalie anomalie, String base64Image) {
         String subDir = anomalie.getId().toString();
         return saveBase64Image(PictureENUM.Anomalie, base64Image, subDir, true);
     }
 
+    public String saveAnomalieImage(Anomalie anomalie, MultipartFile file) {
+        String subDir = anomalie.getId().toString();
+        return saveMultipartImage(PictureENUM.Anomalie, file, subDir, true);
+    }
+
     public String savePharmacyImage(Pharmacy pharmacy, String base64Image) {
         String subDir = pharmacy.getCip();
         return saveBase64Image(PictureENUM.Pharmacy, base64Image, subDir, false);
     }
 
+    public String savePharmacyImage(Pharmacy pharmacy, MultipartFile file) {
+        String subDir = pharmacy.getCip();
+        return saveMultipartImage(PictureENUM.Pharmacy, file, subDir, false);
+    }
+
     public String saveCommandImage(Command command, String base64Image) {
         String subDir = command.getId().toString();
         return saveBase64Image(PictureENUM.Command, base64Image, subDir, true);
     }
 
+    public String saveCommandImage(Command command, MultipartFile file) {
+        String subDir = command.getId().toString();
+        return saveMultipartImage(PictureENUM.Command, file, subDir, true);
+    }
+
     public String savePharmacyInfosImage(PharmacyInfos pharmacyInfos, String base64Image) {
         String subDir = pharmacyInfos.getPharmacy().getCip() + File.separator + pharmacyInfos.getId();
         return saveBase64Image(PictureENUM.PharmacyInfos, base64Image, subDir, false);
@@ -78,7 +101,51 @@ public class PictureService {
         return saveBase64Image(PictureENUM.Profil, base64Image, subDir, false);
     }
 
+    /**
+     * Enregistre une image base64 (avec ou sans préfixe data:...;base64,).
+     * La chaîne est décodée en flux, sans copie intermédiaire ni tableau d'octets complet.
+     */
     public String saveBase64Image(PictureENUM type, String base64Image, String subDirectory, boolean saveCreatedAt) {
+        if (base64Image == null) {
+            return null;
+        }
+        int markerIndex = base64Image.indexOf(BASE64_MARKER);
+        int start = markerIndex >= 0 ? markerIndex + BASE64_MARKER.length() : 0;
+
+        // Refus immédiat si la taille décodée dépasse déjà la limite
+        long decodedLength = (long) (base64Image.length() - start) * 3 / 4;
+        if (decodedLength > maxImageBytes + 2) {
+            throw new ImageTooLargeException(maxImageBytes);
+        }
+
+        InputStream source = Base64.getDecoder().wrap(new CharSequenceInputStream(base64Image, start));
+        return saveImage(type, source, subDirectory, saveCreatedAt);
+    }
+
+    /**
+     * Enregistre une image envoyée en multipart (binaire, sans encodage base64)
+     */
+    public String saveMultipartImage(PictureENUM type, MultipartFile file, String subDirectory, boolean saveCreatedAt) {
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        if (file.getSize() > maxImageBytes) {
+            throw new ImageTooLargeException(maxImageBytes);
+        }
+        try {
+            return saveImage(type, file.getInputStream(), subDirectory, saveCreatedAt);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Copie le flux dans un fichier temporaire du répertoire cible (taille bornée),
+     * puis le déplace atomiquement sous son nom définitif et génère les variantes.
+     * @return le chemin relatif de l'image, ou null si le flux est illisible
+     * @throws ImageTooLargeException si le flux dépasse app.upload.max-image-bytes
+     */
+    private String saveImage(PictureENUM type, InputStream source, String subDirectory, boolean saveCreatedAt) {
         String path = type.toString().toLowerCase();
 
         if (saveCreatedAt) {
@@ -100,22 +167,84 @@ public class PictureService {
         }
 
         String fileName = UUID.randomUUID().toString() + ".jpg";
-        String filePath = fullPath + File.separator + fileName;
+        File target = new File(fullPath, fileName);
 
-        try {
-            String cleanedBase64 = cleanBase64String(base64Image);
-            byte[] imageBytes = Base64.getDecoder().decode(cleanedBase64);
-            try (FileOutputStream fos = new FileOutputStream(filePath)) {
-                fos.write(imageBytes);
+        Path tmp = null;
+        try (InputStream in = source) {
+            tmp = Files.createTempFile(directory.toPath(), fileName, ".upload");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                copyBounded(in, out);
             }
-            return path + File.separator + fileName;
+            Files.move(tmp, target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+        } catch (ImageTooLargeException e) {
+            throw e;
         } catch (Exception e) {
             return null;
+        } finally {
+            if (tmp != null) {
+                tmp.toFile().delete();
+            }
+        }
+
+        // Décodage unique pour générer les variantes (miniature, moyenne)
+        BufferedImage image = imageVariantService.decode(target);
+        if (image != null) {
+            imageVariantService.generateAll(target, image);
         }
+        return path + File.separator + fileName;
     }
-    
+
+    private void copyBounded(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > maxImageBytes) {
+                throw new ImageTooLargeException(maxImageBytes);
+            }
+            out.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Lit les caractères ASCII d'une chaîne comme des octets, sans la copier
+     */
+    private static class CharSequenceInputStream extends InputStream {
+        private final CharSequence chars;
+        private int position;
+
+        CharSequenceInputStream(CharSequence chars, int start) {
+            this.chars = chars;
+            this.position = start;
+        }
+
+        @Override
+        public int read() {
+            return position < chars.length() ? chars.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int remaining = chars.length() - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = Math.min(len, remaining);
+            for (int i = 0; i < count; i++) {
+                b[off + i] = (byte) chars.charAt(position++);
+            }
+            return count;
+        }
+    }
+
     public boolean deleteImage(String filePath) {
         File file = new File(uploadDir + File.separator + filePath);
+        imageVariantService.deleteVariants(file);
         if (file.exists() && file.delete()) {
             File parentDir = file.getParentFile();
             if (parentDir != null && parentDir.isDirectory() && parentDir.list().length == 0) {
@@ -142,6 +271,17 @@ public class PictureService {
         return file.exists() ? file : null;
     }
 
+    /**
+     * Retourne la variante demandée d'une image (générée si absente)
+     */
+    public File findImageFile(String imagePath, ImageSizeENUM size) {
+        File file = findImageFile(imagePath);
+        if (file == null) {
+            return null;
+        }
+        return imageVariantService.getVariant(file, size);
+    }
+
     public String copyPharmacyInfosImageToPharmacyImage(PharmacyInfosPicture pharmacyInfosPicture, Pharmacy pharmacy) {
         try {
             // Chemin source de l'image PharmacyInfos
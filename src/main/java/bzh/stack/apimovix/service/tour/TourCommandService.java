@@ -12,13 +12,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import bzh.stack.apimovix.dto.command.CommandIdsDTO;
-import bzh.stack.apimovix.dto.ors.RouteResponseDTO;
 import bzh.stack.apimovix.model.Account;
 import bzh.stack.apimovix.model.Command;
 import bzh.stack.apimovix.model.Tour;
 import bzh.stack.apimovix.repository.command.CommandRepository;
 import bzh.stack.apimovix.repository.tour.TourRepository;
-import bzh.stack.apimovix.service.ORSService;
 import bzh.stack.apimovix.service.command.CommandService;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
@@ -30,7 +28,7 @@ public class TourCommandService {
     private final TourRepository tourRepository;
     private final TourService tourService;
     private final CommandService commandService;
-    private final ORSService orsService;
+    private final TourRouteService tourRouteService;
     private final EntityManager entityManager;
 
     @Transactional
@@ -90,7 +88,7 @@ public class TourCommandService {
         entityManager.flush();
         entityManager.clear();
 
-        updateTourRoutes(account, toursToReorganize);
+        tourRouteService.schedule(account, toursToReorganize);
 
         return true;
     }
@@ -116,51 +114,6 @@ public class TourCommandService {
         }
     }
 
-    public void updateTourRoutes(Account account, Set<String> tourIds) {
-        List<Tour> toursToUpdate = tourIds.stream()
-                .map(id -> tourRepository.findTour(account, id))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        // Charger les PharmacyInformationsList et appliquer les PharmacyInformations
-        List<Command> allCommands = toursToUpdate.stream()
-            .flatMap(tour -> tour.getCommands() != null ? tour.getCommands().stream() : java.util.stream.Stream.empty())
-            .collect(Collectors.toList());
-
-        if (!allCommands.isEmpty()) {
-            List<String> pharmacyCips = allCommands.stream()
-                .filter(c -> c.getPharmacy() != null)
-                .map(c -> c.getPharmacy().getCip())
-                .distinct()
-                .collect(Collectors.toList());
-
-            if (!pharmacyCips.isEmpty()) {
-                tourRepository.loadPharmacyInformationsByCips(pharmacyCips);
-                allCommands.forEach(command -> {
-                    if (command.getPharmacy() != null) {
-                        command.getPharmacy().loadPharmacyInformationsForAccount(account.getId());
-                    }
-                });
-            }
-        }
-
-        toursToUpdate.parallelStream().forEach(tour -> {
-            Optional<RouteResponseDTO> tourRouteOptional = orsService.calculateTourRoute(tour);
-            if (tourRouteOptional.isEmpty()) {
-                tour.setGeometry(null);
-                tour.setEstimateKm(0.0);
-                tour.setEstimateMins(0.0);
-            } else {
-                RouteResponseDTO tourRoute = tourRouteOptional.get();
-                tour.setGeometry(tourRoute.getGeometry());
-                tour.setEstimateKm(tourRoute.getDistance());
-                tour.setEstimateMins(tourRoute.getDuration());
-            }
-        });
-
-        tourRepository.saveAll(toursToUpdate);
-    }
-
     @Transactional
     public boolean addTourToCommand(Account account, Command command, Tour tour) {
         if (command == null || tour == null) {
@@ -189,7 +142,42 @@ public class TourCommandService {
         entityManager.flush();
         entityManager.clear();
 
-        updateTourRoutes(account, toursToReorganize);
+        tourRouteService.schedule(account, toursToReorganize);
+
+        return true;
+    }
+
+    /**
+     * Variante par lot de addTourToCommand pour des commandes dont la tournée est déjà renseignée :
+     * une seule réorganisation et un seul recalcul d'itinéraire par tournée touchée.
+     */
+    @Transactional
+    public boolean addCommandsToTours(Account account, List<Command> commands) {
+        List<Command> commandsToUpdate = commands.stream()
+                .filter(command -> command.getTour() != null)
+                .collect(Collectors.toList());
+        if (commandsToUpdate.isEmpty()) {
+            return false;
+        }
+
+        commandsToUpdate.forEach(command -> command.setTourOrder(9999));
+        commandRepository.saveAll(commandsToUpdate);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        Set<String> toursToReorganize = commandsToUpdate.stream()
+                .map(command -> command.getTour().getId())
+                .collect(Collectors.toSet());
+
+        for (String tourId : toursToReorganize) {
+            reorganizeTourOrder(account, tourId);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        tourRouteService.schedule(account, toursToReorganize);
 
         return true;
     }
@@ -247,7 +235,7 @@ public class TourCommandService {
         entityManager.flush();
         entityManager.clear();
 
-        updateTourRoutes(account, affectedTourIds);
+        tourRouteService.schedule(account, affectedTourIds);
 
         return true;
     }
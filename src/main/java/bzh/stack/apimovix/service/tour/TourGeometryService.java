@@ -0,0 +1,77 @@
+package bzh.stack.apimovix.service.tour;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import bzh.stack.apimovix.dto.tour.TourGeometryDTO;
+import bzh.stack.apimovix.model.Account;
+import bzh.stack.apimovix.repository.tour.TourRepository;
+import bzh.stack.apimovix.util.PolylineCodec;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Géométrie des tournées (polyline ORS) :
+ * - simplifiée à l'enregistrement si app.tours.geometry.simplify-tolerance-m > 0 (Douglas-Peucker, en mètres)
+ * - servie seule par /tours/{id}/geometry, sans charger la tournée ni ses commandes
+ */
+@Slf4j
+@Service
+public class TourGeometryService {
+
+    private final TourRepository tourRepository;
+    private final double simplifyToleranceMeters;
+
+    public TourGeometryService(
+            TourRepository tourRepository,
+            @Value("${app.tours.geometry.simplify-tolerance-m:0}") double simplifyToleranceMeters) {
+        this.tourRepository = tourRepository;
+        this.simplifyToleranceMeters = simplifyToleranceMeters;
+    }
+
+    /**
+     * Géométrie à enregistrer sur la tournée ; inchangée si la simplification est désactivée ou impossible
+     */
+    public String compact(String geometry) {
+        if (simplifyToleranceMeters <= 0 || geometry == null || geometry.isEmpty()) {
+            return geometry;
+        }
+        try {
+            int[] points = PolylineCodec.decodeE5(geometry);
+            int[] simplified = PolylineCodec.simplify(points, simplifyToleranceMeters);
+            return simplified == points ? geometry : PolylineCodec.encode(simplified);
+        } catch (IllegalArgumentException e) {
+            log.warn("Geometrie de tournee non simplifiee : {}", e.getMessage());
+            return geometry;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<TourGeometryDTO> findTourGeometry(Account account, String id, boolean decoded) {
+        TourGeometryDTO geometry = tourRepository.findTourGeometry(account, id);
+        if (geometry == null) {
+            return Optional.empty();
+        }
+        if (decoded && geometry.getGeometry() != null && !geometry.getGeometry().isEmpty()) {
+            double[] latLng;
+            try {
+                latLng = PolylineCodec.decode(geometry.getGeometry());
+            } catch (IllegalArgumentException e) {
+                // Géométrie enregistrée illisible : renvoyée encodée, sans coordonnées
+                log.warn("Geometrie de la tournee {} illisible : {}", id, e.getMessage());
+                return Optional.of(geometry);
+            }
+            List<List<Double>> coordinates = new ArrayList<>(latLng.length / 2);
+            for (int i = 0; i < latLng.length; i += 2) {
+                coordinates.add(List.of(latLng[i + 1], latLng[i]));
+            }
+            geometry.setPoints(coordinates.size());
+            geometry.setCoordinates(coordinates);
+        }
+        return Optional.of(geometry);
+    }
+}
@@ -0,0 +1,292 @@
+package bzh.stack.apimovix.service.tour;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import bzh.stack.apimovix.dto.ors.RouteRequestDTO;
+import bzh.stack.apimovix.dto.ors.RouteResponseDTO;
+import bzh.stack.apimovix.model.Account;
+import bzh.stack.apimovix.model.Command;
+import bzh.stack.apimovix.model.Tour;
+import bzh.stack.apimovix.repository.tour.TourRepository;
+import bzh.stack.apimovix.service.ORSService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recalcul des itinéraires de tournée hors de la transaction d'écriture :
+ * - schedule marque les tournées route_pending dans la transaction appelante, le recalcul est mis en file après commit
+ * - les modifications d'une même tournée à moins de app.tours.route.debounce-ms d'intervalle donnent un seul appel ORS
+ * - un seul recalcul à la fois par tournée ; une modification arrivée pendant le calcul en relance un ensuite
+ * - le résultat est écrit par une requête ciblée (geometry, estimations, route_pending = false), sans verrou pendant l'appel ORS,
+ *   seulement si route_version n'a pas changé depuis la lecture de la tournée (modification concurrente, autre instance)
+ * - échec : route_pending reste positionné, nouvel essai après app.tours.route.retry-initial-ms, doublé à chaque échec
+ *   jusqu'à app.tours.route.retry-max-ms
+ * Les clients suivent route_pending sur les tournées ou via /tours/{id}/geometry.
+ * Au démarrage, les tournées restées route_pending (arrêt en cours de file) sont recalculées.
+ * Métriques : tours.route.pending, tours.route.recompute.
+ */
+@Slf4j
+@Service
+public class TourRouteService {
+
+    private final TourRepository tourRepository;
+    private final ORSService orsService;
+    private final TourGeometryService tourGeometryService;
+    private final TransactionTemplate readTransaction;
+    private final ThreadPoolTaskScheduler scheduler;
+    private final long debounceMillis;
+    private final long retryInitialMillis;
+    private final long retryMaxMillis;
+    private final Timer recomputeTimer;
+
+    // Tournées en attente ou en cours de recalcul ; accès sous synchronized(this)
+    private final Map<String, PendingRoute> pending = new HashMap<>();
+
+    public TourRouteService(
+            TourRepository tourRepository,
+            ORSService orsService,
+            TourGeometryService tourGeometryService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.tours.route.workers:4}") int workers,
+            @Value("${app.tours.route.debounce-ms:1500}") long debounceMillis,
+            @Value("${app.tours.route.retry-initial-ms:5000}") long retryInitialMillis,
+            @Value("${app.tours.route.retry-max-ms:300000}") long retryMaxMillis) {
+        this.tourRepository = tourRepository;
+        this.orsService = orsService;
+        this.tourGeometryService = tourGeometryService;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.retryInitialMillis = Math.max(1, retryInitialMillis);
+        this.retryMaxMillis = Math.max(this.retryInitialMillis, retryMaxMillis);
+
+        this.scheduler = new ThreadPoolTaskScheduler();
+        this.scheduler.setPoolSize(Math.max(1, workers));
+        this.scheduler.setThreadNamePrefix("TourRoute-");
+        this.scheduler.initialize();
+
+        Gauge.builder("tours.route.pending", this, TourRouteService::pendingCount)
+                .description("Tournees en attente de recalcul d'itineraire sur cette instance")
+                .register(meterRegistry);
+        this.recomputeTimer = Timer.builder("tours.route.recompute").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Demande le recalcul de l'itinéraire de ces tournées, après commit de la transaction en cours s'il y en a une
+     */
+    public void schedule(Account account, Collection<String> tourIds) {
+        if (tourIds == null || tourIds.isEmpty()) {
+            return;
+        }
+        Set<String> ids = new LinkedHashSet<>(tourIds);
+        tourRepository.markRoutePending(ids);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.forEach(id -> enqueue(account, id));
+                }
+            });
+        } else {
+            ids.forEach(id -> enqueue(account, id));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingRoutes() {
+        List<Tour> tours = tourRepository.findRoutePending();
+        if (!tours.isEmpty()) {
+            log.info("{} tournees en attente de recalcul d'itineraire reprises au demarrage", tours.size());
+            tours.forEach(tour -> enqueue(tour.getAccount(), tour.getId()));
+        }
+    }
+
+    private synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private synchronized void enqueue(Account account, String tourId) {
+        PendingRoute route = pending.computeIfAbsent(tourId, id -> new PendingRoute(account));
+        route.dueAt = System.currentTimeMillis() + debounceMillis;
+        route.version++;
+        if (!route.scheduled && !route.running) {
+            route.scheduled = true;
+            scheduler.schedule(() -> fire(tourId), Instant.ofEpochMilli(route.dueAt));
+        }
+    }
+
+    /**
+     * Réserve le recalcul si le délai est écoulé ; sinon le replanifie à la dernière échéance
+     */
+    private synchronized PendingRoute claim(String tourId) {
+        PendingRoute route = pending.get(tourId);
+        if (route == null) {
+            return null;
+        }
+        if (route.dueAt > System.currentTimeMillis()) {
+            scheduler.schedule(() -> fire(tourId), Instant.ofEpochMilli(route.dueAt));
+            return null;
+        }
+        route.scheduled = false;
+        route.running = true;
+        route.runningVersion = route.version;
+        return route;
+    }
+
+    private synchronized boolean isCurrent(String tourId, PendingRoute route) {
+        return pending.get(tourId) == route && route.version == route.runningVersion;
+    }
+
+    /**
+     * Échec du recalcul : route_pending reste positionné, nouvel essai avec délai exponentiel
+     */
+    private synchronized void retryLater(String tourId, PendingRoute route) {
+        long delay = Math.min(retryMaxMillis, retryInitialMillis << Math.min(route.failures, 20));
+        route.failures++;
+        route.retry = true;
+        route.dueAt = Math.max(route.dueAt, System.currentTimeMillis() + delay);
+        log.warn("Recalcul de l'itineraire de la tournee {} en echec (essai {}), nouvel essai dans {} ms",
+                tourId, route.failures, delay);
+    }
+
+    private synchronized void release(String tourId, PendingRoute route) {
+        route.running = false;
+        if (route.retry) {
+            route.retry = false;
+            route.scheduled = true;
+            scheduler.schedule(() -> fire(tourId), Instant.ofEpochMilli(route.dueAt));
+            return;
+        }
+        route.failures = 0;
+        if (route.version == route.runningVersion) {
+            pending.remove(tourId);
+        } else if (!route.scheduled) {
+            route.scheduled = true;
+            scheduler.schedule(() -> fire(tourId), Instant.ofEpochMilli(route.dueAt));
+        }
+    }
+
+    private void fire(String tourId) {
+        PendingRoute route = claim(tourId);
+        if (route == null) {
+            return;
+        }
+        try {
+            recomputeTimer.record(() -> recompute(tourId, route));
+        } catch (Exception e) {
+            log.error("Erreur lors du recalcul de l'itineraire de la tournee {}", tourId, e);
+            retryLater(tourId, route);
+        } finally {
+            release(tourId, route);
+        }
+    }
+
+    private void recompute(String tourId, PendingRoute route) {
+        // Lecture courte : la requête ORS est construite pendant que les entités sont chargées
+        Optional<RouteSnapshot> snapshot = readTransaction.execute(status -> {
+            Tour tour = tourRepository.findTour(route.account, tourId);
+            if (tour == null) {
+                return Optional.empty();
+            }
+            loadPharmacyInformations(tour, route.account.getId());
+            long routeVersion = tour.getRouteVersion() != null ? tour.getRouteVersion() : 0L;
+            return Optional.of(new RouteSnapshot(routeVersion, orsService.buildTourRouteRequest(tour)));
+        });
+        if (snapshot.isEmpty()) {
+            return;
+        }
+
+        // Appel ORS sans transaction ni connexion ouverte
+        RouteRequestDTO request = snapshot.get().request();
+        Optional<RouteResponseDTO> tourRoute = orsService.getRouteInfo(request);
+        if (tourRoute.isEmpty() && request.getCoordinates() != null && request.getCoordinates().size() > 1) {
+            // getRouteInfo renvoie vide en cas d'erreur ORS : nouvel essai plutôt qu'un itinéraire vide
+            throw new IllegalStateException("Itineraire ORS indisponible pour la tournee " + tourId);
+        }
+
+        // Modifiée pendant le calcul sur cette instance : le recalcul suivant écrira le résultat à jour
+        if (!isCurrent(tourId, route)) {
+            return;
+        }
+        long routeVersion = snapshot.get().routeVersion();
+        int updated = tourRoute
+                .map(result -> tourRepository.updateRoute(tourId, routeVersion,
+                        tourGeometryService.compact(result.getGeometry()), result.getDistance(), result.getDuration()))
+                .orElseGet(() -> tourRepository.updateRoute(tourId, routeVersion, null, 0.0, 0.0));
+        if (updated == 0) {
+            log.debug("Tournee {} modifiee pendant le recalcul de son itineraire, resultat ignore", tourId);
+        }
+    }
+
+    /**
+     * Applique les PharmacyInformations du compte aux pharmacies de la tournée
+     */
+    private void loadPharmacyInformations(Tour tour, UUID accountId) {
+        if (tour.getCommands() == null || tour.getCommands().isEmpty()) {
+            return;
+        }
+        List<String> pharmacyCips = tour.getCommands().stream()
+                .filter(c -> c.getPharmacy() != null)
+                .map(c -> c.getPharmacy().getCip())
+                .distinct()
+                .toList();
+        if (pharmacyCips.isEmpty()) {
+            return;
+        }
+        tourRepository.loadPharmacyInformationsByCips(pharmacyCips);
+        for (Command command : tour.getCommands()) {
+            if (command.getPharmacy() != null) {
+                command.getPharmacy().loadPharmacyInformationsForAccount(accountId);
+            }
+        }
+    }
+
+    /**
+     * Recalcul demandé pour une tournée ; champs modifiés sous synchronized(TourRouteService)
+     */
+    private static class PendingRoute {
+        private final Account account;
+        private long dueAt;
+        private long version;
+        private long runningVersion;
+        private boolean scheduled;
+        private boolean running;
+        private boolean retry;
+        private int failures;
+
+        PendingRoute(Account account) {
+            this.account = account;
+        }
+    }
+
+    private record RouteSnapshot(long routeVersion, RouteRequestDTO request) {
+    }
+}
@@ -18,7 +18,6 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -48,6 +47,7 @@ import bzh.stack.apimovix.repository.ZoneRepository;
 import bzh.stack.apimovix.repository.packagerepository.HistoryPackageStatusRepository;
 import bzh.stack.apimovix.repository.tour.HistoryTourStatusRepository;
 import bzh.stack.apimovix.repository.tour.TourRepository;
+import bzh.stack.apimovix.service.IdAllocationService;
 import bzh.stack.apimovix.service.ORSService;
 import bzh.stack.apimovix.service.ProfileService;
 import bzh.stack.apimovix.service.TarifService;
@@ -69,7 +69,9 @@ public class TourService {
     private final ORSService orsService;
     private final TarifService tarifService;
     private final ZoneRepository zoneRepository;
-    private final TourCommandService tourCommandService;
+    private final TourRouteService tourRouteService;
+    private final IdAllocationService idAllocationService;
+    private final TourGeometryService tourGeometryService;
 
     public TourService(
             TourMapper tourMapper,
@@ -84,7 +86,9 @@ public class TourService {
             ORSService orsService,
             TarifService tarifService,
             ZoneRepository zoneRepository,
-            @Lazy TourCommandService tourCommandService) {
+            TourRouteService tourRouteService,
+            IdAllocationService idAllocationService,
+            TourGeometryService tourGeometryService) {
         this.tourMapper = tourMapper;
         this.tourRepository = tourRepository;
         this.historyPackageStatusRepository = historyPackageStatusRepository;
@@ -97,7 +101,9 @@ public class TourService {
         this.orsService = orsService;
         this.tarifService = tarifService;
         this.zoneRepository = zoneRepository;
-        this.tourCommandService = tourCommandService;
+        this.tourRouteService = tourRouteService;
+        this.idAllocationService = idAllocationService;
+        this.tourGeometryService = tourGeometryService;
     }
 
     /**
@@ -334,7 +340,7 @@ public class TourService {
             tour.setEstimateKm(tourUpdate.getEstimateKm());
         }
         if (tourUpdate.getGeometry() != null) {
-            tour.setGeometry(tourUpdate.getGeometry());
+            tour.setGeometry(tourGeometryService.compact(tourUpdate.getGeometry()));
         }
         if (tourUpdate.getZoneId() != null) {
             Optional<Zone> optZone = zoneRepository.findZone(account, tourUpdate.getZoneId());
@@ -510,7 +516,7 @@ public class TourService {
 
         // Recalculer les routes pour toutes les tournées affectées uniquement si autoUpdateRoute est true
         if (tourUpdateOrderDTO.isAutoUpdateRoute() && !tourIdsToUpdate.isEmpty()) {
-            tourCommandService.updateTourRoutes(account, tourIdsToUpdate);
+            tourRouteService.schedule(account, tourIdsToUpdate);
         }
 
         return true;
@@ -549,27 +555,8 @@ public class TourService {
         return tourRepository.save(tour);
     }
 
-    public String generateTourId() {
-        StringBuilder tourId = new StringBuilder();
-        String hexChars = "0123456789abcdef";
-        java.util.Random random = new java.util.Random();
-
-        for (int i = 0; i < 20; i++) {
-            int index = random.nextInt(hexChars.length());
-            tourId.append(hexChars.charAt(index));
-        }
-
-        return tourId.toString();
-    }
-
-    @Transactional(readOnly = true)
     public String generateNewId() {
-        String tourId;
-        do {
-            tourId = generateTourId();
-        } while (tourRepository.findById(tourId).orElse(null) != null);
-
-        return tourId;
+        return idAllocationService.nextTourId();
     }
 
     @Transactional
@@ -631,7 +618,7 @@ public class TourService {
             }
         });
 
-        // Calcul parallele des distances (10 threads au lieu de sequentiel)
+        // Distances en cache ou calculees par requetes matrix ORS groupees
         Map<UUID, Double> distanceCache = orsService.calculateCommandDistancesBatch(allCommands);
 
         return allCommands.stream()
@@ -0,0 +1,80 @@
+package bzh.stack.apimovix.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Gabarit texte analysé une seule fois : segments fixes entrecoupés d'emplacements {{nom}}.
+ * Le rendu ajoute segments et valeurs dans un StringBuilder réutilisé par thread,
+ * sans relire le format à chaque appel comme String.format.
+ */
+public final class HtmlTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8192));
+
+    private final String[] segments;
+    private final int[] slots;
+    private final int parameterCount;
+    private final int fixedLength;
+
+    private HtmlTemplate(String[] segments, int[] slots, int parameterCount) {
+        this.segments = segments;
+        this.slots = slots;
+        this.parameterCount = parameterCount;
+        this.fixedLength = Arrays.stream(segments).mapToInt(String::length).sum();
+    }
+
+    /**
+     * Analyse source ; chaque {{nom}} doit faire partie de names, dont l'ordre est celui des valeurs au rendu
+     */
+    public static HtmlTemplate compile(String source, String... names) {
+        List<String> parameters = Arrays.asList(names);
+        List<String> segments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int position = 0;
+        int open;
+        while ((open = source.indexOf(OPEN, position)) >= 0) {
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Emplacement non fermé à la position " + open);
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            int slot = parameters.indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Emplacement inconnu : " + name);
+            }
+            segments.add(source.substring(position, open));
+            slots.add(slot);
+            position = close + CLOSE.length();
+        }
+        segments.add(source.substring(position));
+        return new HtmlTemplate(segments.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray(), names.length);
+    }
+
+    public String render(String... values) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        String result = renderTo(out, values).toString();
+        if (out.capacity() > MAX_RETAINED_CAPACITY) {
+            // Ne pas garder un tampon démesuré après un email exceptionnellement long
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    public StringBuilder renderTo(StringBuilder out, String... values) {
+        if (values.length != parameterCount) {
+            throw new IllegalArgumentException("Attendu " + parameterCount + " valeurs, reçu " + values.length);
+        }
+        out.ensureCapacity(out.length() + fixedLength + 256);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(segments[i]).append(values[slots[i]]);
+        }
+        return out.append(segments[slots.length]);
+    }
+}
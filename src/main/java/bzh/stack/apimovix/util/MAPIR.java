@@ -3,13 +3,19 @@ package bzh.stack.apimovix.util;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 
 public class MAPIR {
+    private static final Map<String, String> CONTENT_TYPES_BY_EXTENSION = new ConcurrentHashMap<>();
+
     /**
      * Retourne une réponse avec le code d'erreur HTTP 400 (Bad Request)
      * @param message Le message d'erreur à retourner
@@ -115,35 +121,64 @@ public class MAPIR {
     }
 
     /**
-     * Retourne une réponse avec le code HTTP 200 (OK) contenant un fichier
+     * Retourne une réponse avec le code HTTP 200 (OK) contenant un fichier.
+     * Le fichier est envoyé en flux (FileSystemResource), les requêtes Range sont
+     * servies en 206 et les GET conditionnels (ETag / Last-Modified) en 304 par Spring MVC.
      * @param file Le fichier à retourner
      * @return ResponseEntity avec le code 200 et le contenu du fichier
      */
     public static ResponseEntity<?> file(File file) {
-        try {
-            byte[] fileBytes = Files.readAllBytes(file.toPath());
-            String contentType = Files.probeContentType(file.toPath());
-            String fileName = file.getName();
-
-            // Fallback pour les types MIME non reconnus
-            if (contentType == null) {
-                if (fileName.toLowerCase().endsWith(".apk")) {
-                    contentType = "application/vnd.android.package-archive";
-                } else {
-                    contentType = "application/octet-stream";
-                }
-            }
+        if (!file.isFile()) {
+            return MAPIR.notFound();
+        }
+
+        String fileName = file.getName();
+        long lastModified = file.lastModified();
+        long length = file.length();
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.setContentDispositionFormData("attachment", fileName);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(resolveContentType(file)));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(fileName).build());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
 
-            return ResponseEntity.ok()
-                .headers(headers)
-                .body(fileBytes);
+        return ResponseEntity.ok()
+            .headers(headers)
+            .eTag("\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"")
+            .lastModified(lastModified)
+            .body(new FileSystemResource(file));
+    }
+
+    /**
+     * Type MIME d'un fichier, mis en cache par extension
+     */
+    private static String resolveContentType(File file) {
+        String fileName = file.getName().toLowerCase();
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return probeContentType(file);
+        }
+        return CONTENT_TYPES_BY_EXTENSION.computeIfAbsent(fileName.substring(dot + 1), extension -> probeContentType(file));
+    }
+
+    private static String probeContentType(File file) {
+        String contentType = null;
+        try {
+            contentType = Files.probeContentType(file.toPath());
         } catch (IOException e) {
-            return MAPIR.internalServerError();
+            // Type inconnu, fallback ci-dessous
+        }
+
+        // Fallback pour les types MIME non reconnus
+        if (contentType == null) {
+            if (file.getName().toLowerCase().endsWith(".apk")) {
+                contentType = "application/vnd.android.package-archive";
+            } else if (file.getName().toLowerCase().endsWith(".pdf")) {
+                contentType = MediaType.APPLICATION_PDF_VALUE;
+            } else {
+                contentType = "application/octet-stream";
+            }
         }
+        return contentType;
     }
 
     /**
@@ -183,4 +218,13 @@ public class MAPIR {
     public static ResponseEntity<?> gone(String message) {
         return ResponseEntity.status(410).body(message);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Retourne une réponse avec le code HTTP 413 (Payload Too Large)
+     * @param message Le message indiquant la taille maximale acceptée
+     * @return ResponseEntity avec le code 413
+     */
+    public static ResponseEntity<?> payloadTooLarge(String message) {
+        return ResponseEntity.status(413).body(message);
+    }
+}
@@ -0,0 +1,174 @@
+package bzh.stack.apimovix.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Codec polyline (format Google, précision 5) sur tableaux primitifs.
+ * Les points sont stockés à plat : [lat0, lon0, lat1, lon1, ...], en entiers E5 (degrés × 1e5) ou en degrés.
+ */
+public final class PolylineCodec {
+
+    private static final double FACTOR = 1e5;
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * Décode une polyline en entiers E5 ; tableau vide pour une chaîne vide ou null
+     */
+    public static int[] decodeE5(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return new int[0];
+        }
+
+        // Premier passage : une valeur se termine sur chaque caractère sans bit de continuation
+        int length = encoded.length();
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            int c = encoded.charAt(i) - 63;
+            if (c < 0 || c > 63) {
+                throw new IllegalArgumentException("Caractère invalide dans la polyline à la position " + i);
+            }
+            if (c < 0x20) {
+                count++;
+            }
+        }
+        if (count % 2 != 0 || (encoded.charAt(length - 1) - 63) >= 0x20) {
+            throw new IllegalArgumentException("Polyline tronquée");
+        }
+
+        int[] values = new int[count];
+        int index = 0;
+        for (int n = 0; n < count; n++) {
+            int result = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = encoded.charAt(index++) - 63;
+                result |= (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            int delta = (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+            values[n] = (n >= 2 ? values[n - 2] : 0) + delta;
+        }
+        return values;
+    }
+
+    /**
+     * Décode une polyline en degrés : [lat0, lon0, lat1, lon1, ...]
+     */
+    public static double[] decode(String encoded) {
+        int[] e5 = decodeE5(encoded);
+        double[] degrees = new double[e5.length];
+        for (int i = 0; i < e5.length; i++) {
+            degrees[i] = e5[i] / FACTOR;
+        }
+        return degrees;
+    }
+
+    public static String encode(int[] e5) {
+        StringBuilder encoded = new StringBuilder(e5.length * 3);
+        for (int i = 0; i < e5.length; i++) {
+            appendValue(encoded, e5[i] - (i >= 2 ? e5[i - 2] : 0));
+        }
+        return encoded.toString();
+    }
+
+    public static String encode(double[] degrees) {
+        int[] e5 = new int[degrees.length];
+        for (int i = 0; i < degrees.length; i++) {
+            e5[i] = (int) Math.round(degrees[i] * FACTOR);
+        }
+        return encode(e5);
+    }
+
+    /**
+     * Simplification Douglas-Peucker : conserve les points à plus de toleranceMeters
+     * du segment qui les remplace. Premier et dernier points toujours conservés.
+     */
+    public static int[] simplify(int[] e5, double toleranceMeters) {
+        int points = e5.length / 2;
+        if (points < 3 || toleranceMeters <= 0) {
+            return e5;
+        }
+
+        // Projection locale équirectangulaire en mètres, suffisante à l'échelle d'une tournée
+        double meanLatitude = 0;
+        for (int i = 0; i < points; i++) {
+            meanLatitude += e5[2 * i];
+        }
+        double cosLatitude = Math.cos(Math.toRadians(meanLatitude / points / FACTOR));
+        double yScale = METERS_PER_DEGREE / FACTOR;
+        double xScale = yScale * cosLatitude;
+        double toleranceSquared = toleranceMeters * toleranceMeters;
+
+        boolean[] keep = new boolean[points];
+        keep[0] = true;
+        keep[points - 1] = true;
+        int kept = 2;
+
+        Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[] { 0, points - 1 });
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            int first = range[0];
+            int last = range[1];
+            if (last - first < 2) {
+                continue;
+            }
+
+            double ax = e5[2 * first + 1] * xScale;
+            double ay = e5[2 * first] * yScale;
+            double dx = e5[2 * last + 1] * xScale - ax;
+            double dy = e5[2 * last] * yScale - ay;
+            double lengthSquared = dx * dx + dy * dy;
+
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double px = e5[2 * i + 1] * xScale - ax;
+                double py = e5[2 * i] * yScale - ay;
+                double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared));
+                double ex = px - t * dx;
+                double ey = py - t * dy;
+                double distance = ex * ex + ey * ey;
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            if (maxDistance > toleranceSquared) {
+                keep[farthest] = true;
+                kept++;
+                ranges.push(new int[] { first, farthest });
+                ranges.push(new int[] { farthest, last });
+            }
+        }
+
+        if (kept == points) {
+            return e5;
+        }
+        int[] simplified = new int[kept * 2];
+        int n = 0;
+        for (int i = 0; i < points; i++) {
+            if (keep[i]) {
+                simplified[n++] = e5[2 * i];
+                simplified[n++] = e5[2 * i + 1];
+            }
+        }
+        return n == simplified.length ? simplified : Arrays.copyOf(simplified, n);
+    }
+
+    private static void appendValue(StringBuilder encoded, int delta) {
+        int value = delta < 0 ? ~(delta << 1) : delta << 1;
+        while (value >= 0x20) {
+            encoded.append((char) ((0x20 | (value & 0x1f)) + 63));
+            value >>>= 5;
+        }
+        encoded.append((char) (value + 63));
+    }
+}
@@ -0,0 +1,185 @@
+package bzh.stack.apimovix.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * La page compilée (HtmlTemplate) doit produire exactement les pages construites auparavant avec String.format
+ */
+class EmailServiceTemplateTest {
+
+    private static final String TITLE = "Commande livrée";
+    private static final String MESSAGE = "La commande <b>42</b> a été livrée à 10:30 (100 % des colis).";
+    private static final String CUSTOM = "<p style=\"color: #123456;\">Détail : 3 colis, dont 1 froid</p>";
+
+    @Test
+    void notificationPageMatchesFormattedPage() {
+        assertEquals(legacyNotificationPage(TITLE, MESSAGE), EmailService.notificationPage(TITLE, MESSAGE));
+    }
+
+    @Test
+    void customNotificationPageMatchesFormattedPage() {
+        assertEquals(legacyCustomNotificationPage(TITLE, MESSAGE, CUSTOM),
+                EmailService.notificationPage(TITLE, MESSAGE, CUSTOM));
+    }
+
+    @Test
+    void emptyValuesMatchFormattedPage() {
+        assertEquals(legacyNotificationPage("", ""), EmailService.notificationPage("", ""));
+        assertEquals(legacyCustomNotificationPage("", "", ""), EmailService.notificationPage("", "", ""));
+    }
+
+    // Pages construites par EmailService avant la compilation des gabarits
+
+    private static final String MOVIX_PRIMARY_COLOR = "#123456";
+    private static final String MOVIX_LIGHT_BG = "#F8F9FA";
+    private static final String MOVIX_DARK_TEXT = "#2C3E50";
+
+    private static String generateMovixHeader() {
+        return """
+            <div style="background-color: %s; padding: 20px; text-align: center; border-bottom: 2px solid %s;">
+                <h1 style="color: %s; margin: 0; font-size: 24px; font-weight: 600;">
+                    Movix
+                </h1>
+            </div>
+            """.formatted(MOVIX_LIGHT_BG, MOVIX_PRIMARY_COLOR, MOVIX_DARK_TEXT);
+    }
+
+    private static String generateMovixFooter() {
+        return """
+            <div style="background-color: %s; padding: 15px; border-top: 1px solid #E9ECEF; margin-top: 20px;">
+                <div style="max-width: 600px; margin: 0 auto;">
+                    <!-- Avertissement noreply simple -->
+                    <p style="color: #856404; margin: 0 0 10px; font-size: 12px; background-color: #FFF3CD; padding: 8px; border-radius: 3px;">
+                        ⚠️ Email automatique - Ne pas répondre
+                    </p>
+                    
+                    <!-- Contact simple -->
+                    <p style="color: %s; margin: 0 0 8px; font-size: 12px; text-align: center;">
+                        Support : <a href="mailto:contact@stack.bzh" style="color: %s;">contact@stack.bzh</a>
+                    </p>
+                    
+                    <!-- Copyright -->
+                    <p style="color: #6C757D; margin: 0; font-size: 11px; text-align: center;">
+                        © 2025 Movix
+                    </p>
+                </div>
+            </div>
+            """.formatted(MOVIX_LIGHT_BG, MOVIX_DARK_TEXT, MOVIX_PRIMARY_COLOR);
+    }
+
+    private static String generateMovixContent(String title, String message) {
+        return """
+            <div style="background-color: white; padding: 25px 20px;">
+                <div style="max-width: 600px; margin: 0 auto;">
+                    <h2 style="color: %s; margin: 0 0 15px; font-size: 20px; font-weight: 600;">
+                        %s
+                    </h2>
+                    <div style="color: %s; font-size: 14px; line-height: 1.5;">
+                        %s
+                    </div>
+                </div>
+            </div>
+            """.formatted(MOVIX_DARK_TEXT, title, MOVIX_DARK_TEXT, message);
+    }
+
+    private static String legacyNotificationPage(String title, String message) {
+        return """
+            <!DOCTYPE html>
+            <html>
+            <head>
+                <meta charset="UTF-8">
+                <meta name="viewport" content="width=device-width, initial-scale=1.0">
+                <title>%s - Movix</title>
+                <style>
+                    body { 
+                        font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; 
+                        line-height: 1.6; 
+                        color: #333; 
+                        margin: 0; 
+                        padding: 0; 
+                        background-color: #f4f6f8;
+                    }
+                    .email-container { 
+                        max-width: 600px; 
+                        margin: 20px auto; 
+                        background-color: white; 
+                        border-radius: 8px; 
+                        box-shadow: 0 4px 20px rgba(0,0,0,0.1); 
+                        overflow: hidden;
+                    }
+                    .content-wrapper {
+                        background-color: white;
+                    }
+                    @media only screen and (max-width: 600px) {
+                        .email-container { 
+                            margin: 10px; 
+                            border-radius: 4px; 
+                        }
+                    }
+                </style>
+            </head>
+            <body>
+                <div class="email-container">
+                    %s
+                    <div class="content-wrapper">
+                        %s
+                    </div>
+                    %s
+                </div>
+            </body>
+            </html>
+            """.formatted(title, generateMovixHeader(), generateMovixContent(title, message), generateMovixFooter());
+    }
+
+    private static String legacyCustomNotificationPage(String title, String message, String customContent) {
+        return """
+            <!DOCTYPE html>
+            <html>
+            <head>
+                <meta charset="UTF-8">
+                <meta name="viewport" content="width=device-width, initial-scale=1.0">
+                <title>%s - Movix</title>
+                <style>
+                    body { 
+                        font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif; 
+                        line-height: 1.6; 
+                        color: #333; 
+                        margin: 0; 
+                        padding: 0; 
+                        background-color: #f4f6f8;
+                    }
+                    .email-container { 
+                        max-width: 600px; 
+                        margin: 20px auto; 
+                        background-color: white; 
+                        border-radius: 8px; 
+                        box-shadow: 0 4px 20px rgba(0,0,0,0.1); 
+                        overflow: hidden;
+                    }
+                    .content-wrapper {
+                        background-color: white;
+                    }
+                    @media only screen and (max-width: 600px) {
+                        .email-container { 
+                            margin: 10px; 
+                            border-radius: 4px; 
+                        }
+                    }
+                </style>
+            </head>
+            <body>
+                <div class="email-container">
+                    %s
+                    <div class="content-wrapper">
+                        %s
+                        %s
+                    </div>
+                    %s
+                </div>
+            </body>
+            </html>
+            """.formatted(title, generateMovixHeader(), generateMovixContent(title, message), customContent, generateMovixFooter());
+    }
+}
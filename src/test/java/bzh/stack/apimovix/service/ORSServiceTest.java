@@ -0,0 +1,295 @@
+package bzh.stack.apimovix.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import bzh.stack.apimovix.dto.common.CoordsDTO;
+import bzh.stack.apimovix.dto.ors.DistanceRequestDTO;
+import bzh.stack.apimovix.dto.ors.DistanceResponseDTO;
+import bzh.stack.apimovix.dto.ors.RouteRequestDTO;
+import bzh.stack.apimovix.dto.ors.RouteResponseDTO;
+import bzh.stack.apimovix.dto.ors.RouteSegmentDTO;
+import bzh.stack.apimovix.model.Account;
+import bzh.stack.apimovix.model.Command;
+import bzh.stack.apimovix.model.Pharmacy;
+import bzh.stack.apimovix.model.Sender;
+import bzh.stack.apimovix.service.optimizer.LocalRouteOptimizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ORSServiceTest {
+
+    private static final String DIRECTIONS_URL = "http://ors.stack.bzh/v2/directions/driving-car";
+    private static final String MATRIX_URL = "http://ors.stack.bzh/v2/matrix/driving-car";
+
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+    private ORSService orsService;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        orsService = orsService(100);
+    }
+
+    private ORSService orsService(int matrixMaxDestinations) {
+        RouteMatrixService routeMatrixService = new RouteMatrixService(restTemplate, new SimpleMeterRegistry(),
+                2500, 150, 2_000_000, 720);
+        return new ORSService(restTemplate, mock(RouteDistanceCacheService.class),
+                mock(LocalRouteOptimizer.class), routeMatrixService, matrixMaxDestinations, "Auto");
+    }
+
+    @Test
+    void getRouteInfoReadsLegsFromSingleDirectionsCall() {
+        server.expect(once(), requestTo(DIRECTIONS_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.coordinates.length()").value(3))
+                .andExpect(jsonPath("$.coordinates[0][0]").value(-4.1))
+                .andExpect(jsonPath("$.coordinates[0][1]").value(48.1))
+                .andRespond(withSuccess("""
+                        {"routes": [{
+                            "summary": {"distance": 19134.6, "duration": 1321},
+                            "geometry": "_p~iF~ps|U_ulLnnqC",
+                            "segments": [
+                                {"distance": 12345.6, "duration": 901},
+                                {"distance": 6789, "duration": 420}
+                            ]
+                        }]}
+                        """, MediaType.APPLICATION_JSON));
+
+        RouteRequestDTO request = new RouteRequestDTO();
+        request.setCoordinates(List.of(coords("depot", 48.1, -4.1), coords("a", 48.2, -4.2), coords("b", 48.3, -4.3)));
+        request.setReturnCoords(false);
+
+        Optional<RouteResponseDTO> route = orsService.getRouteInfo(request);
+
+        server.verify();
+        assertTrue(route.isPresent());
+        assertEquals(19.13, route.get().getDistance());
+        assertEquals(22.0, route.get().getDuration());
+
+        List<RouteSegmentDTO> segments = route.get().getSegments();
+        assertEquals(3, segments.size());
+        assertSegment(segments.get(0), "depot", 0.0, 0.0, 0.0, 0.0);
+        assertSegment(segments.get(1), "a", 12.35, 15.0, 12.35, 15.0);
+        assertSegment(segments.get(2), "b", 6.79, 7.0, 19.14, 22.0);
+    }
+
+    @Test
+    void getRouteInfoTreatsMissingLegValuesAsZero() {
+        // ORS omet distance et durée d'une étape entre deux points identiques
+        server.expect(once(), requestTo(DIRECTIONS_URL))
+                .andRespond(withSuccess("""
+                        {"routes": [{
+                            "summary": {"distance": 5000, "duration": 300},
+                            "geometry": "_p~iF~ps|U",
+                            "segments": [{}, {"distance": 5000, "duration": 300}]
+                        }]}
+                        """, MediaType.APPLICATION_JSON));
+
+        RouteRequestDTO request = new RouteRequestDTO();
+        request.setCoordinates(List.of(coords("depot", 48.1, -4.1), coords("a", 48.1, -4.1), coords("b", 48.3, -4.3)));
+        request.setReturnCoords(false);
+
+        List<RouteSegmentDTO> segments = orsService.getRouteInfo(request).orElseThrow().getSegments();
+
+        server.verify();
+        assertSegment(segments.get(1), "a", 0.0, 0.0, 0.0, 0.0);
+        assertSegment(segments.get(2), "b", 5.0, 5.0, 5.0, 5.0);
+    }
+
+    @Test
+    void getDrivingDistancesFromPointUsesOneMatrixCallPerChunk() {
+        orsService = orsService(2);
+        server.expect(once(), requestTo(MATRIX_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.sources[0]").value(0))
+                .andExpect(jsonPath("$.destinations.length()").value(2))
+                .andExpect(jsonPath("$.locations[0][0]").value(-4.0))
+                .andRespond(withSuccess("""
+                        {"distances": [[1234, 5678]], "durations": [[120, 600]]}
+                        """, MediaType.APPLICATION_JSON));
+        server.expect(once(), requestTo(MATRIX_URL))
+                .andExpect(jsonPath("$.destinations.length()").value(1))
+                .andRespond(withSuccess("""
+                        {"distances": [[9000]], "durations": [[900]]}
+                        """, MediaType.APPLICATION_JSON));
+
+        DistanceResponseDTO response = orsService.getDrivingDistancesFromPoint(
+                distanceRequest(coords("a", 48.1, -4.1), coords("b", 48.2, -4.2), coords("c", 48.3, -4.3)))
+                .orElseThrow();
+
+        server.verify();
+        assertEquals(3, response.getDistances().size());
+        assertDistance(response.getDistances().get(0), "a", 1.23, 2.0);
+        assertDistance(response.getDistances().get(1), "b", 5.68, 10.0);
+        assertDistance(response.getDistances().get(2), "c", 9.0, 15.0);
+    }
+
+    @Test
+    void getDrivingDistancesFromPointFallsBackToDirectionsForFailedChunk() {
+        orsService = orsService(2);
+        server.expect(once(), requestTo(MATRIX_URL))
+                .andRespond(withSuccess("""
+                        {"distances": [[1000, 2000]], "durations": [[60, 120]]}
+                        """, MediaType.APPLICATION_JSON));
+        server.expect(once(), requestTo(MATRIX_URL)).andRespond(withServerError());
+        server.expect(once(), requestTo(DIRECTIONS_URL))
+                .andExpect(jsonPath("$.coordinates[1][0]").value(-4.3))
+                .andRespond(withSuccess("""
+                        {"routes": [{
+                            "summary": {"distance": 3000, "duration": 180},
+                            "geometry": "_p~iF~ps|U",
+                            "segments": [{"distance": 3000, "duration": 180}]
+                        }]}
+                        """, MediaType.APPLICATION_JSON));
+
+        DistanceResponseDTO response = orsService.getDrivingDistancesFromPoint(
+                distanceRequest(coords("a", 48.1, -4.1), coords("b", 48.2, -4.2), coords("c", 48.3, -4.3)))
+                .orElseThrow();
+
+        server.verify();
+        assertDistance(response.getDistances().get(0), "a", 1.0, 1.0);
+        assertDistance(response.getDistances().get(1), "b", 2.0, 2.0);
+        assertDistance(response.getDistances().get(2), "c", 3.0, 3.0);
+    }
+
+    @Test
+    void calculateCommandDistancesBatchSendsOneMatrixCallPerChunk() {
+        int commandCount = 7;
+        int limit = 3;
+        orsService = orsService(limit);
+        for (int from = 0; from < commandCount; from += limit) {
+            int count = Math.min(limit, commandCount - from);
+            server.expect(once(), requestTo(MATRIX_URL))
+                    .andExpect(method(HttpMethod.POST))
+                    .andExpect(jsonPath("$.sources.length()").value(1))
+                    .andExpect(jsonPath("$.destinations.length()").value(count))
+                    .andRespond(withSuccess(matrixRow(from, count), MediaType.APPLICATION_JSON));
+        }
+
+        List<Command> commands = commands(commandCount);
+        Map<UUID, Double> distances = orsService.calculateCommandDistancesBatch(commands);
+
+        // ceil(7 / 3) = 3 requêtes matrix, aucun itinéraire
+        server.verify();
+        assertEquals(commandCount, distances.size());
+        for (int i = 0; i < commandCount; i++) {
+            assertEquals(i + 1.0, distances.get(commands.get(i).getId()), 1e-9);
+        }
+    }
+
+    @Test
+    void calculateCommandDistancesBatchFallsBackToDirectionsWhenMatrixFails() {
+        orsService = orsService(2);
+        server.expect(once(), requestTo(MATRIX_URL))
+                .andRespond(withSuccess(matrixRow(0, 2), MediaType.APPLICATION_JSON));
+        server.expect(once(), requestTo(MATRIX_URL)).andRespond(withServerError());
+        server.expect(once(), requestTo(DIRECTIONS_URL))
+                .andExpect(jsonPath("$.coordinates[1][1]").value(48.3))
+                .andRespond(withSuccess("""
+                        {"routes": [{
+                            "summary": {"distance": 3000, "duration": 180},
+                            "geometry": "_p~iF~ps|U",
+                            "segments": [{"distance": 3000, "duration": 180}]
+                        }]}
+                        """, MediaType.APPLICATION_JSON));
+
+        List<Command> commands = commands(3);
+        Map<UUID, Double> distances = orsService.calculateCommandDistancesBatch(commands);
+
+        server.verify();
+        assertEquals(1.0, distances.get(commands.get(0).getId()), 1e-9);
+        assertEquals(2.0, distances.get(commands.get(1).getId()), 1e-9);
+        assertEquals(3.0, distances.get(commands.get(2).getId()), 1e-9);
+    }
+
+    /**
+     * Commandes d'un même dépôt vers des pharmacies distinctes (48.1, 48.2, ...)
+     */
+    private static List<Command> commands(int count) {
+        Account account = new Account();
+        account.setLatitude(48.0);
+        account.setLongitude(-4.0);
+        Sender sender = new Sender();
+        sender.setAccount(account);
+
+        List<Command> commands = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Pharmacy pharmacy = new Pharmacy();
+            pharmacy.setLatitude(Double.parseDouble("48." + (i + 1)));
+            pharmacy.setLongitude(-4.0);
+            Command command = new Command();
+            command.setId(UUID.randomUUID());
+            command.setSender(sender);
+            command.setPharmacy(pharmacy);
+            commands.add(command);
+        }
+        return commands;
+    }
+
+    /**
+     * Ligne matrix ORS : destination i à (i + 1) km et (i + 1) minutes
+     */
+    private static String matrixRow(int first, int count) {
+        String distances = IntStream.range(first, first + count)
+                .mapToObj(i -> String.valueOf((i + 1) * 1000))
+                .collect(Collectors.joining(", "));
+        String durations = IntStream.range(first, first + count)
+                .mapToObj(i -> String.valueOf((i + 1) * 60))
+                .collect(Collectors.joining(", "));
+        return "{\"distances\": [[" + distances + "]], \"durations\": [[" + durations + "]]}";
+    }
+
+    private static DistanceRequestDTO distanceRequest(CoordsDTO... destinations) {
+        DistanceRequestDTO request = new DistanceRequestDTO();
+        request.setStart(coords("depot", 48.0, -4.0));
+        request.setCoordinates(List.of(destinations));
+        return request;
+    }
+
+    private static void assertDistance(RouteResponseDTO distance, String id, double km, double minutes) {
+        assertEquals(id, distance.getCoord().getId());
+        assertEquals(km, distance.getDistance(), 1e-9);
+        assertEquals(minutes, distance.getDuration(), 1e-9);
+    }
+
+    private static CoordsDTO coords(String id, double lat, double lon) {
+        CoordsDTO coords = new CoordsDTO();
+        coords.setId(id);
+        coords.setLat(lat);
+        coords.setLon(lon);
+        return coords;
+    }
+
+    private static void assertSegment(RouteSegmentDTO segment, String id, double distance, double duration,
+            double cumulativeDistance, double cumulativeDuration) {
+        assertEquals(id, segment.getCoord().getId());
+        assertEquals(distance, segment.getDistance(), 1e-9);
+        assertEquals(duration, segment.getDuration(), 1e-9);
+        assertEquals(cumulativeDistance, segment.getCumulativeDistance(), 1e-9);
+        assertEquals(cumulativeDuration, segment.getCumulativeDuration(), 1e-9);
+    }
+}
@@ -0,0 +1,121 @@
+package bzh.stack.apimovix.service.optimizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import bzh.stack.apimovix.dto.common.CoordsDTO;
+import bzh.stack.apimovix.service.DistanceMatrix;
+import bzh.stack.apimovix.service.RouteDistanceCacheService;
+import bzh.stack.apimovix.service.RouteMatrixService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Qualité et durée de l'optimisation locale sur des tournées aléatoires (graine fixe) de 20 à 200 points,
+ * coûts à vol d'oiseau (pas de matrice routière en cache)
+ */
+class LocalRouteOptimizerTest {
+
+    private static final long TIME_LIMIT_MS = 1000;
+    // Recherche locale en cours à l'échéance, démarrage du pool
+    private static final long TIME_MARGIN_MS = 500;
+
+    private LocalRouteOptimizer optimizer;
+
+    @BeforeEach
+    void setUp() {
+        optimizer = new LocalRouteOptimizer(mock(RouteDistanceCacheService.class, withSettings().stubOnly()),
+                mock(RouteMatrixService.class), new SimpleMeterRegistry(), 0, 0, 300, TIME_LIMIT_MS, 1.3, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        optimizer.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 20, 100, 200 })
+    void optimizeOrderVisitsEveryStopOnceWithinTimeLimit(int stops) {
+        List<CoordsDTO> points = randomStops(stops, stops);
+
+        // time-limit-ms borne la recherche, pas la construction de la matrice (mesurée à part)
+        long start = System.nanoTime();
+        DistanceMatrix matrix = optimizer.buildMatrix(points, false);
+        long matrixMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        start = System.nanoTime();
+        List<String> order = optimizer.optimizeOrder(points, false).orElseThrow();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(stops + 1, order.size());
+        assertEquals("depot", order.get(0));
+        assertEquals(stops + 1, new HashSet<>(order).size());
+        assertTrue(elapsedMs <= TIME_LIMIT_MS + matrixMs + TIME_MARGIN_MS,
+                "Optimisation de " + stops + " points en " + elapsedMs + " ms (matrice " + matrixMs + " ms)");
+
+        TspSolver solver = new TspSolver(matrix);
+        double seedLength = solver.length(solver.nearestNeighbour(null));
+        double localLength = solver.length(indexes(order));
+        assertTrue(localLength <= seedLength + 1e-9,
+                "Tournée locale " + localLength + " km plus longue que le plus proche voisin " + seedLength + " km");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 20, 100, 200 })
+    void optimizeOrderIsNoLongerThanInputOrder(int stops) {
+        List<CoordsDTO> points = randomStops(stops, 1000 + stops);
+        List<String> order = optimizer.optimizeOrder(points, false).orElseThrow();
+
+        TspSolver solver = new TspSolver(optimizer.buildMatrix(points, false));
+        int[] inputOrder = new int[stops + 1];
+        for (int i = 0; i <= stops; i++) {
+            inputOrder[i] = i;
+        }
+        assertTrue(solver.length(indexes(order)) <= solver.length(inputOrder));
+    }
+
+    /**
+     * Dépôt puis stops points tirés dans un carré d'environ 50 km autour de Brest
+     */
+    private static List<CoordsDTO> randomStops(int stops, long seed) {
+        Random random = new Random(seed);
+        List<CoordsDTO> points = new ArrayList<>(stops + 1);
+        points.add(coords("depot", 48.39, -4.49));
+        for (int i = 1; i <= stops; i++) {
+            points.add(coords("p" + i, 48.2 + random.nextDouble() * 0.45, -4.8 + random.nextDouble() * 0.65));
+        }
+        return points;
+    }
+
+    /**
+     * Positions dans randomStops des identifiants renvoyés (depot = 0, pN = N)
+     */
+    private static int[] indexes(List<String> order) {
+        int[] tour = new int[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            String id = order.get(i);
+            tour[i] = "depot".equals(id) ? 0 : Integer.parseInt(id.substring(1));
+        }
+        return tour;
+    }
+
+    private static CoordsDTO coords(String id, double lat, double lon) {
+        CoordsDTO coords = new CoordsDTO();
+        coords.setId(id);
+        coords.setLat(lat);
+        coords.setLon(lon);
+        return coords;
+    }
+}
@@ -0,0 +1,64 @@
+package bzh.stack.apimovix.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class PolylineCodecTest {
+
+    // Exemple de la documentation Google : (38.5, -120.2), (40.7, -120.95), (43.252, -126.453)
+    private static final String GOOGLE_POLYLINE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+    private static final int[] GOOGLE_E5 = { 3850000, -12020000, 4070000, -12095000, 4325200, -12645300 };
+
+    @Test
+    void decodeE5ReadsGoogleFixture() {
+        assertArrayEquals(GOOGLE_E5, PolylineCodec.decodeE5(GOOGLE_POLYLINE));
+    }
+
+    @Test
+    void decodeReturnsDegrees() {
+        assertArrayEquals(new double[] { 38.5, -120.2, 40.7, -120.95, 43.252, -126.453 },
+                PolylineCodec.decode(GOOGLE_POLYLINE), 1e-9);
+    }
+
+    @Test
+    void encodeWritesGoogleFixture() {
+        assertEquals(GOOGLE_POLYLINE, PolylineCodec.encode(GOOGLE_E5));
+        assertEquals(GOOGLE_POLYLINE, PolylineCodec.encode(new double[] { 38.5, -120.2, 40.7, -120.95, 43.252, -126.453 }));
+    }
+
+    @Test
+    void roundTripKeepsE5Values() {
+        int[] points = { 4839000, -448600, 4839001, -448599, 4700000, -200000, 4700000, -200000, -1, 1 };
+        assertArrayEquals(points, PolylineCodec.decodeE5(PolylineCodec.encode(points)));
+    }
+
+    @Test
+    void decodeE5ReturnsEmptyArrayForEmptyInput() {
+        assertEquals(0, PolylineCodec.decodeE5(null).length);
+        assertEquals(0, PolylineCodec.decodeE5("").length);
+    }
+
+    @Test
+    void decodeE5RejectsTruncatedPolyline() {
+        // Dernier caractère avec bit de continuation
+        assertThrows(IllegalArgumentException.class,
+                () -> PolylineCodec.decodeE5(GOOGLE_POLYLINE.substring(0, GOOGLE_POLYLINE.length() - 1)));
+        // Latitude sans longitude
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decodeE5("_p~iF"));
+    }
+
+    @Test
+    void decodeE5RejectsInvalidCharacter() {
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decodeE5("_p~iF ps|U"));
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decodeE5("_p~iFéps|U"));
+    }
+
+    @Test
+    void simplifyKeepsEndpointsAndDropsAlignedPoints() {
+        int[] line = { 4800000, -400000, 4800100, -400000, 4800200, -400000 };
+        assertArrayEquals(new int[] { 4800000, -400000, 4800200, -400000 }, PolylineCodec.simplify(line, 1.0));
+    }
+}